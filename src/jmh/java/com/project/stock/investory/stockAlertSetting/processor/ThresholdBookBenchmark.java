@@ -0,0 +1,100 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockAlertSetting.model.AlertCondition;
+import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 틱 1건 평가 – {@link ThresholdBook} vs 기존 {@code ConcurrentHashMap<String, TreeMap<Integer, List<AlertCondition>>>}
+ * <p>
+ * 조건 100만 건을 종목에 고르게 나눠 걸고, 가격은 가장 가까운 목표가 아래에서만 움직인다. (발송 없는 평소 틱)
+ * <pre>
+ * gradle jmh -PjmhArgs="ThresholdBookBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgs = "-Xmx2g")
+public class ThresholdBookBenchmark {
+
+    private static final int TICKS = 4096;   // 미리 만든 (종목, 가격) 순환 목록
+
+    @Param({"1000000"})
+    public int conditions;
+
+    @Param({"2000"})
+    public int symbols;
+
+    private ThresholdBook[] books;
+    private Map<String, TreeMap<Integer, List<AlertCondition>>> overMap;
+    private String[] codes;
+    private final int[] tickSymbols = new int[TICKS];
+    private final int[] tickPrices = new int[TICKS];
+    private int next;
+
+    @Setup
+    public void setUp() {
+        SplittableRandom random = new SplittableRandom(42);
+        codes = new String[symbols];
+        books = new ThresholdBook[symbols];
+        overMap = new ConcurrentHashMap<>();
+        List<List<AlertCondition>> perSymbol = new ArrayList<>(symbols);
+        for (int s = 0; s < symbols; s++) {
+            codes[s] = String.format("%06d", s);
+            books[s] = ThresholdBook.ascending();
+            overMap.put(codes[s], new TreeMap<>());
+            perSymbol.add(new ArrayList<>());
+        }
+
+        // 목표가는 100,000 ~ 199,999 – 시세(50,000 ~ 99,999)보다 항상 위
+        for (long id = 0; id < conditions; id++) {
+            int s = (int) (id % symbols);
+            AlertCondition c = new AlertCondition(id, id, codes[s], 100_000 + random.nextInt(100_000), ConditionType.ABOVE);
+            perSymbol.get(s).add(c);
+            overMap.get(codes[s]).computeIfAbsent(c.getTargetPrice(), k -> new ArrayList<>()).add(c);
+        }
+        for (int s = 0; s < symbols; s++) books[s].addAll(perSymbol.get(s));
+
+        for (int i = 0; i < TICKS; i++) {
+            tickSymbols[i] = random.nextInt(symbols);
+            tickPrices[i] = 50_000 + random.nextInt(50_000);
+        }
+    }
+
+    @Benchmark
+    public List<AlertCondition> thresholdBook() {
+        int i = next++ & (TICKS - 1);
+        return books[tickSymbols[i]].takeReached(tickPrices[i]);
+    }
+
+    @Benchmark
+    public void treeMap(Blackhole bh) {
+        int i = next++ & (TICKS - 1);
+        TreeMap<Integer, List<AlertCondition>> book = overMap.get(codes[tickSymbols[i]]);
+        for (List<AlertCondition> reached : book.headMap(tickPrices[i], true).values()) {
+            bh.consume(reached);
+        }
+    }
+}
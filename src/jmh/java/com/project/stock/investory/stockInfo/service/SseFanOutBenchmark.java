@@ -0,0 +1,76 @@
+package com.project.stock.investory.stockInfo.service;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.stock.investory.stockInfo.dto.RealTimeTradeDTO;
+import com.project.stock.investory.stockInfo.util.SseFrame;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 체결 1건 fan-out 비용 – 구독자 수별
+ * <ul>
+ *     <li>{@code perSubscriber}: 예전 sendEvent 경로 – 구독자마다 {@code writeValueAsString} + {@code SseEmitter.event()} 조립</li>
+ *     <li>{@code encodeOnce}: 지금 경로 – {@link SseFrame} 한 번 인코딩 후 연결마다 큐에 넣고 writer 가 꺼내는 것까지</li>
+ * </ul>
+ * 소켓 쓰기는 두 경로가 같으므로 빼고 잰다.
+ * <pre>
+ * gradle jmh -PjmhArgs="SseFanOutBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class SseFanOutBenchmark {
+
+    @Param({"1", "100", "1000", "5000"})
+    public int subscribers;
+
+    private final ObjectMapper om = new ObjectMapper();
+    private final RealTimeTradeDTO dto = new RealTimeTradeDTO("005930", "71000", "500", "0.71%", "10000", "093015");
+    private SseClient[] clients;
+
+    @Setup
+    public void setUp() {
+        LongAdder conflated = new LongAdder();
+        clients = new SseClient[subscribers];
+        for (int i = 0; i < subscribers; i++) {
+            clients[i] = new SseClient("005930", new SseEmitter(), StreamSpec.RAW, 64, 60_000, conflated);
+        }
+    }
+
+    @Benchmark
+    public void perSubscriber(Blackhole bh) throws Exception {
+        for (int i = 0; i < subscribers; i++) {
+            bh.consume(SseEmitter.event().name("trade").data(om.writeValueAsString(dto)).build());
+        }
+    }
+
+    @Benchmark
+    public void encodeOnce(Blackhole bh) throws Exception {
+        long now = System.nanoTime();
+        SseFrame frame = SseFrame.json(om, "trade", dto);
+        for (SseClient client : clients) {
+            bh.consume(client.offer(frame, "005930", now));
+            SseClient.Pending p = client.next();
+            bh.consume(client.delivered(p, now));
+            client.hasMore();
+        }
+    }
+}
@@ -0,0 +1,82 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+import com.project.stock.investory.stockInfo.dto.RealTimeTradeDTO;
+import com.project.stock.investory.stockInfo.service.StockSymbolTable;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 체결 프레임 디코딩 – 커서 디코더 vs 기존 split 경로
+ * <p>
+ * split 경로는 예전 handleRealtime 그대로: {@code split("\\|", 4)} → {@code split("\\^")} → 레코드마다 {@link RealTimeTradeDTO#from(String[])}.
+ * 할당량은 {@code -prof gc} 로 같이 본다.
+ * <pre>
+ * gradle jmh -PjmhArgs="KisFrameDecoderBenchmark -prof gc"
+ * </pre>
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class KisFrameDecoderBenchmark {
+
+    private static final int TRADE_FIELDS = 46;
+
+    @Param({"1", "10"})
+    public int records;
+
+    private String raw;
+    private StockSymbolTable symbols;
+    private final RealTimeTickBatch batch = new RealTimeTickBatch();
+
+    @Setup
+    public void setUp() {
+        symbols = new StockSymbolTable(null);   // load() 를 부르지 않으므로 저장소는 쓰지 않는다
+        symbols.register("005930");
+
+        String[] payload = new String[records];
+        for (int r = 0; r < records; r++) {
+            String[] f = new String[TRADE_FIELDS];
+            Arrays.fill(f, "0");
+            f[KisFrameDecoder.F_STOCK_CODE] = "005930";
+            f[KisFrameDecoder.F_TRADE_TIME] = "0930" + String.format("%02d", r % 60);
+            f[KisFrameDecoder.F_PRICE] = String.valueOf(71_000 + r * 100);
+            f[KisFrameDecoder.F_CHANGE_RATE] = "0.71";
+            f[KisFrameDecoder.F_VOLUME] = String.valueOf(10 + r);
+            f[KisFrameDecoder.F_ACC_VOLUME] = String.valueOf(1_000_000 + r);
+            payload[r] = String.join("^", f);
+        }
+        raw = "0|H0STCNT0|" + String.format("%03d", records) + "|" + String.join("^", payload);
+    }
+
+    @Benchmark
+    public int cursorDecoder() {
+        KisFrameDecoder.decodeTrades(raw, symbols, batch);
+        return batch.size();
+    }
+
+    @Benchmark
+    public void splitPath(Blackhole bh) {
+        String[] parts = raw.split("\\|", 4);
+        String[] fields = parts[3].split("\\^");
+        int perRecord = fields.length / Integer.parseInt(parts[2]);
+        for (int from = 0; from + perRecord <= fields.length; from += perRecord) {
+            bh.consume(RealTimeTradeDTO.from(Arrays.copyOfRange(fields, from, from + perRecord)));
+        }
+    }
+}
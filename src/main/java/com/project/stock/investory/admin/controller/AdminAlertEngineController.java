@@ -0,0 +1,86 @@
+package com.project.stock.investory.admin.controller;
+
+import com.project.stock.investory.stockAlertSetting.processor.AlertPartitionManager;
+import com.project.stock.investory.stockAlertSetting.processor.StockAlertBatchWriter;
+import com.project.stock.investory.stockAlertSetting.processor.StockPriceDispatcher;
+import com.project.stock.investory.stockAlertSetting.processor.StockPriceProcessor;
+import com.project.stock.investory.stockInfo.service.StockWebSocketService;
+import com.project.stock.investory.stockInfo.websocket.KisWebSocketClient;
+import lombok.RequiredArgsConstructor;
+import org.springframework.http.ResponseEntity;
+import org.springframework.security.access.prepost.PreAuthorize;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.util.Map;
+
+@RestController
+@RequestMapping("/api/admin/alert-engine")
+@RequiredArgsConstructor
+public class AdminAlertEngineController {
+
+    private final StockPriceDispatcher stockPriceDispatcher;
+    private final KisWebSocketClient kisWebSocketClient;
+    private final StockAlertBatchWriter stockAlertBatchWriter;
+    private final StockPriceProcessor stockPriceProcessor;
+    private final AlertPartitionManager alertPartitionManager;
+    private final StockWebSocketService stockWebSocketService;
+
+    // 알람 평가 파이프라인 상태 조회 (큐 깊이, drop 수, 지연)
+    @GetMapping("/pipeline")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPipelineStats() {
+        return ResponseEntity.ok(stockPriceDispatcher.getStats());
+    }
+
+    // KIS 실시간 등록 상태 조회 (송신 큐, 응답 확인 여부)
+    @GetMapping("/subscriptions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getSubscriptionStats() {
+        return ResponseEntity.ok(kisWebSocketClient.getSubscriptionStats());
+    }
+
+    // 알람 outbox 조회 (대기 건수, 배치 저장 메트릭)
+    @GetMapping("/alert-outbox")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getAlertOutboxStats() {
+        return ResponseEntity.ok(stockAlertBatchWriter.getStats());
+    }
+
+    // 반복 알람 재무장 상태 조회 (쉬는 조건 수, 체크포인트 대기)
+    @GetMapping("/rearm")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getRearmStats() {
+        return ResponseEntity.ok(stockPriceProcessor.getRearmStats());
+    }
+
+    // 알람 평가 파티션 조회 (노드 ID, 살아 있는 노드 수, 맡은 파티션)
+    @GetMapping("/partitions")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getPartitionStats() {
+        return ResponseEntity.ok(alertPartitionManager.getStats());
+    }
+
+    // 조건 인덱스 스냅샷·저널 상태 조회
+    @GetMapping("/alert-index")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getAlertIndexStats() {
+        return ResponseEntity.ok(stockPriceProcessor.getIndexStoreStats());
+    }
+
+    // 알람 이름 캐시 조회 (회원·종목 수, 적중/미스)
+    @GetMapping("/alert-names")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getAlertNameCacheStats() {
+        return ResponseEntity.ok(stockPriceProcessor.getNameCacheStats());
+    }
+
+    // 실시간 체결 SSE 연결 조회 (연결별 큐 · 지연 · 합치기, 지연이 큰 순)
+    @GetMapping("/sse-clients")
+    @PreAuthorize("hasRole('ADMIN')")
+    public ResponseEntity<Map<String, Object>> getSseClientStats(@RequestParam(defaultValue = "20") int limit) {
+        return ResponseEntity.ok(stockWebSocketService.getClientStats(limit));
+    }
+}
@@ -54,6 +54,10 @@ public class Alarm {
     @JoinColumn(name = "sender_id")
     private User sender;
 
+    // 같은 발송이 두 번 저장되지 않도록 (주가 알람 – 설정 ID·버전 기반, 그 외 null)
+    @Column(name = "idempotency_key", length = 64, unique = true)
+    private String idempotencyKey;
+
     @Column(name = "created_at", columnDefinition = "TIMESTAMP")
     @CreationTimestamp
     private LocalDateTime createdAt;
@@ -58,13 +58,28 @@ public class AlarmHelper {
     public void createStockPriceAlarm(String stockId, User user, int targetPrice, int currentPrice, String stockName, String conditionText) {  // String 타입으로 변경
 //        String content = String.format("%s이(가) 목표가 %.0f원에 도달했습니다. (현재가: %.0f원)",
 //                stockName, targetPrice, currentPrice);
-        String content = String.format("[주식 알림] %s님, %s 주식이 목표가 %,d원 %s에 도달했습니다. (현재가: %,d원)",
-                user.getName(), stockName, targetPrice, conditionText, currentPrice);
-        String targetUrl = "/stock/" + stockId + "/stock-info/product-info" ;  // stockCode 대신 stockId 사용
+        String content = stockPriceContent(user.getName(), stockName, targetPrice, currentPrice, conditionText);
+        String targetUrl = stockPriceTargetUrl(stockId);
 
         AlarmRequestDTO dto = AlarmRequestDTO.forStock(
                 AlarmType.STOCK_PRICE, content, targetUrl, stockId);
 
         alarmService.createAlarm(dto, user.getUserId());
     }
+
+    // 주가 알람 문구 – 배치 저장(StockAlertBatchWriter)에서도 같은 문구를 쓴다
+    public static String stockPriceContent(String userName, String stockName, int targetPrice, int currentPrice, String conditionText) {
+        return String.format("[주식 알림] %s님, %s 주식이 목표가 %,d원 %s에 도달했습니다. (현재가: %,d원)",
+                userName, stockName, targetPrice, conditionText, currentPrice);
+    }
+
+    // 지표 조건(등락률, 거래량 급증, 이동평균 돌파, 스프레드) 알람 문구
+    public static String stockSignalContent(String userName, String stockName, String conditionDescription, int currentPrice) {
+        return String.format("[주식 알림] %s님, %s 주식이 %s 조건에 도달했습니다. (현재가: %,d원)",
+                userName, stockName, conditionDescription, currentPrice);
+    }
+
+    public static String stockPriceTargetUrl(String stockId) {
+        return "/stock/" + stockId + "/stock-info/product-info";  // stockCode 대신 stockId 사용
+    }
 }
\ No newline at end of file
@@ -57,9 +57,17 @@ public class SecurityConfig {
                         .requestMatchers(HttpMethod.GET, "/stock/**").permitAll()
                         .requestMatchers(HttpMethod.GET, "/stock/*/analytics/**").permitAll()
 
+                        // 관심종목 스트림 종목 추가/제거 – 스트림(GET)과 같이 공개하고, 스트림의 watch id 를 권한으로 본다
+                        // (첫 "watchlist" 이벤트로 그 연결에만 알려 주는 임의 UUID)
+                        .requestMatchers(HttpMethod.POST, "/stock/watchlist/*/symbols/*").permitAll()
+                        .requestMatchers(HttpMethod.DELETE, "/stock/watchlist/*/symbols/*").permitAll()
+
                         // stock save api - test code
                         .requestMatchers(HttpMethod.POST, "/stock/save/**").permitAll()
 
+                        // 로컬 KIS 재생 서버 (replay 프로필에서만 등록됨)
+                        .requestMatchers("/kis-replay").permitAll()
+
                         // 🔹 SSE 스트림 엔드포인트 공개 (추가)
                         .requestMatchers(HttpMethod.GET, "/api/stock/*/stream").permitAll()
 
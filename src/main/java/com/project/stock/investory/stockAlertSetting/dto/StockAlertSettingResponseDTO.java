@@ -2,6 +2,7 @@ package com.project.stock.investory.stockAlertSetting.dto;
 
 
 import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+import com.project.stock.investory.stockAlertSetting.model.PriceSource;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
@@ -19,6 +20,11 @@ public class StockAlertSettingResponseDTO {
     private String stockId;
     private int targetPrice;
     private ConditionType condition;
+    private boolean recurring;
+    private Integer cooldownSeconds;
+    private Integer rearmBp;
+    private PriceSource priceSource;
+    private Integer holdMs;
     private LocalDateTime createdAt;
 
 }
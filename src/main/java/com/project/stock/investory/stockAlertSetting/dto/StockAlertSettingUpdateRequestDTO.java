@@ -1,6 +1,7 @@
 package com.project.stock.investory.stockAlertSetting.dto;
 
 import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+import com.project.stock.investory.stockAlertSetting.model.PriceSource;
 import jakarta.validation.constraints.Min;
 import jakarta.validation.constraints.NotBlank;
 import jakarta.validation.constraints.NotNull;
@@ -21,4 +22,20 @@ public class StockAlertSettingUpdateRequestDTO {
     @NotNull(message = "조건을 입력해주세요.")
     private ConditionType condition;
 
+    // 반복 알람 설정 (생략하면 1회성)
+    private Boolean recurring;
+
+    @Min(value = 0, message = "cooldownSeconds는 0 이상이어야 합니다.")
+    private Integer cooldownSeconds;
+
+    @Min(value = 0, message = "rearmBp는 0 이상이어야 합니다.")
+    private Integer rearmBp;
+
+    // 목표가 비교 가격 (생략하면 매수1호가)
+    private PriceSource priceSource;
+
+    // 조건이 이만큼(ms) 유지돼야 발송 (생략하면 즉시)
+    @Min(value = 0, message = "holdMs는 0 이상이어야 합니다.")
+    private Integer holdMs;
+
 }
\ No newline at end of file
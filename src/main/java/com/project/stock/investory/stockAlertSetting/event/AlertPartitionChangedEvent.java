@@ -0,0 +1,9 @@
+package com.project.stock.investory.stockAlertSetting.event;
+
+import java.util.Set;
+
+/**
+ * 이 노드가 맡은 알람 평가 파티션이 바뀌었을 때 – 조건을 다시 로드하고 구독을 맞춘다.
+ */
+public record AlertPartitionChangedEvent(Set<Integer> acquired, Set<Integer> released) {
+}
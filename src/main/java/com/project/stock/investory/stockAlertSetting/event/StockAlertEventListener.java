@@ -1,7 +1,6 @@
 package com.project.stock.investory.stockAlertSetting.event;
 
 import com.project.stock.investory.stockAlertSetting.processor.KisWebSocketClientAlarm;
-import com.project.stock.investory.stockAlertSetting.processor.StockPriceProcessor;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.context.event.EventListener;
@@ -14,7 +13,6 @@ import org.springframework.stereotype.Component;
 public class StockAlertEventListener {
 
     private final KisWebSocketClientAlarm webSocketClient;
-    private final StockPriceProcessor stockPriceProcessor;
 
     @EventListener
     @Async
@@ -45,17 +43,4 @@ public class StockAlertEventListener {
                     event.getAction(), event.getStockCode(), e);
         }
     }
-
-    @EventListener
-    @Async
-    public void handleStockPriceEvent(StockPriceEvent event) {
-        try {
-//            log.debug("주가 이벤트 처리: 종목={}, 가격={}", event.getStockCode(), event.getCurrentPrice());
-            // 🔥 StockPriceProcessor로 주가 데이터 전달
-            stockPriceProcessor.process(event.getStockCode(), event.getCurrentPrice());
-        } catch (Exception e) {
-            log.error("StockPriceEvent 처리 중 오류 발생: 종목={}, 가격={}",
-                    event.getStockCode(), event.getCurrentPrice(), e);
-        }
-    }
 }
\ No newline at end of file
@@ -1,12 +0,0 @@
-// StockPriceEvent.java
-package com.project.stock.investory.stockAlertSetting.event;
-
-import lombok.Getter;
-import lombok.RequiredArgsConstructor;
-
-@Getter
-@RequiredArgsConstructor
-public class StockPriceEvent {
-    private final String stockCode;
-    private final int currentPrice;
-}
\ No newline at end of file
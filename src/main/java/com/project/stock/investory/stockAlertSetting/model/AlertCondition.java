@@ -5,7 +5,7 @@ import lombok.Builder;
 import lombok.Data;
 
 @Data
-@Builder
+@Builder(toBuilder = true)
 @AllArgsConstructor
 public class AlertCondition {
     private final Long settingId;
@@ -13,4 +13,24 @@ public class AlertCondition {
     private final String stockCode;
     private final int targetPrice;
     private final ConditionType condition;
+    private final boolean recurring;       // 발송 후 다시 걸리는 조건인지
+    private final long cooldownMillis;     // 재발송까지 최소 대기 시간
+    private final int rearmBp;             // 목표가에서 반대로 이만큼(bp) 되돌아와야 다시 건다
+    private final PriceSource priceSource; // 목표가와 비교할 가격 (null 이면 매수1호가)
+    private final long holdMillis;         // 조건이 이만큼 계속 만족돼야 발송 (0 = 즉시)
+
+    public AlertCondition(Long settingId, Long userId, String stockCode, int targetPrice, ConditionType condition) {
+        this(settingId, userId, stockCode, targetPrice, condition, false, 0L, 0, PriceSource.BID, 0L);
+    }
+
+    public PriceSource getPriceSource() {
+        return PriceSource.orDefault(priceSource);
+    }
+
+    /**
+     * 체결 구독이 필요한 조건인지 (지표 종류 또는 체결 기반 가격)
+     */
+    public boolean needsTradeFeed() {
+        return condition.needsTradeFeed() || (condition.isPriceTarget() && getPriceSource().needsTradeFeed());
+    }
 }
\ No newline at end of file
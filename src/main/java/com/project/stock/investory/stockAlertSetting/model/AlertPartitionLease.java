@@ -0,0 +1,36 @@
+package com.project.stock.investory.stockAlertSetting.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 알람 평가 파티션 임대 – 파티션(종목 해시 구간) 하나를 어느 노드가 언제까지 맡는지.
+ * 획득·갱신·반납은 {@code AlertPartitionManager} 가 조건부 UPDATE 로만 한다.
+ */
+@Entity
+@Table(name = "alert_partition_lease")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertPartitionLease {
+
+    @Id
+    @Column(name = "partition_no")
+    private Integer partitionNo;
+
+    @Column(name = "owner_id", length = 100)
+    private String ownerId;            // null = 비어 있음
+
+    @Column(name = "lease_until", columnDefinition = "TIMESTAMP")
+    private LocalDateTime leaseUntil;  // DB 시각 기준 만료
+
+    @Column(nullable = false)
+    private Long epoch;                // 소유자가 바뀔 때마다 +1
+}
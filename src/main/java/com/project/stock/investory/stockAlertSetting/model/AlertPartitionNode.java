@@ -0,0 +1,29 @@
+package com.project.stock.investory.stockAlertSetting.model;
+
+import jakarta.persistence.Column;
+import jakarta.persistence.Entity;
+import jakarta.persistence.Id;
+import jakarta.persistence.Table;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * 알람 평가 노드 생존 신호 – 살아 있는 노드 수로 노드당 파티션 몫을 정한다.
+ */
+@Entity
+@Table(name = "alert_partition_node")
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+public class AlertPartitionNode {
+
+    @Id
+    @Column(name = "node_id", length = 100)
+    private String nodeId;
+
+    @Column(name = "heartbeat_at", columnDefinition = "TIMESTAMP")
+    private LocalDateTime heartbeatAt;
+}
@@ -1,6 +1,69 @@
 package com.project.stock.investory.stockAlertSetting.model;
 
+/**
+ * 알람 조건 종류 – targetPrice 칼럼을 조건별 기준값으로 같이 쓴다.
+ */
 public enum ConditionType {
-    ABOVE,
-    BELOW
-}
\ No newline at end of file
+    ABOVE,            // 현재가 >= targetPrice(원)
+    BELOW,            // 현재가 <= targetPrice(원)
+    PERCENT_ABOVE,    // 전일 대비 등락률 >= +targetPrice bp (500 → +5.00%)
+    PERCENT_BELOW,    // 전일 대비 등락률 <= -targetPrice bp (300 → -3.00%)
+    VOLUME_SPIKE,     // 이번 1분 거래량 >= 최근 분당 평균의 targetPrice% (300 → 3배)
+    MA_CROSS_ABOVE,   // 현재가가 targetPrice 분 지수이동평균을 아래에서 위로 돌파
+    MA_CROSS_BELOW,   // 현재가가 targetPrice 분 지수이동평균을 위에서 아래로 돌파
+    SPREAD_ABOVE;     // (매도1호가 - 매수1호가) / 중간가 >= targetPrice bp
+
+    /**
+     * 이동평균 돌파 조건에서 쓸 수 있는 기간(분) – 종목마다 이 기간들만 계산한다.
+     */
+    public static final int[] MA_PERIODS = {5, 20, 60, 120};
+
+    /**
+     * 목표가(원) 비교 조건인지
+     */
+    public boolean isPriceTarget() {
+        return this == ABOVE || this == BELOW;
+    }
+
+    /**
+     * 체결(등락률·거래량) 데이터가 필요한 조건인지 – 호가만으로는 계산할 수 없다.
+     */
+    public boolean needsTradeFeed() {
+        return this == PERCENT_ABOVE || this == PERCENT_BELOW || this == VOLUME_SPIKE;
+    }
+
+    public static int maPeriodIndex(int minutes) {
+        for (int i = 0; i < MA_PERIODS.length; i++) {
+            if (MA_PERIODS[i] == minutes) return i;
+        }
+        return -1;
+    }
+
+    /**
+     * 기준값 검증 – 잘못된 조합이면 IllegalArgumentException
+     */
+    public void validate(int target) {
+        if (target <= 0) {
+            throw new IllegalArgumentException("유효하지 않은 기준값입니다.");
+        }
+        if ((this == MA_CROSS_ABOVE || this == MA_CROSS_BELOW) && maPeriodIndex(target) < 0) {
+            throw new IllegalArgumentException("이동평균 기간은 5, 20, 60, 120분 중 하나여야 합니다.");
+        }
+    }
+
+    /**
+     * 알림 문구용 조건 설명
+     */
+    public String describe(int target) {
+        return switch (this) {
+            case ABOVE -> String.format("목표가 %,d원 이상", target);
+            case BELOW -> String.format("목표가 %,d원 이하", target);
+            case PERCENT_ABOVE -> String.format("전일 대비 +%.2f%% 이상 상승", target / 100.0);
+            case PERCENT_BELOW -> String.format("전일 대비 -%.2f%% 이상 하락", target / 100.0);
+            case VOLUME_SPIKE -> String.format("분당 거래량 평균 대비 %,d%% 이상", target);
+            case MA_CROSS_ABOVE -> String.format("%d분 이동평균 상향 돌파", target);
+            case MA_CROSS_BELOW -> String.format("%d분 이동평균 하향 돌파", target);
+            case SPREAD_ABOVE -> String.format("호가 스프레드 %,dbp 이상", target);
+        };
+    }
+}
@@ -0,0 +1,36 @@
+package com.project.stock.investory.stockAlertSetting.model;
+
+/**
+ * 목표가 조건을 비교할 가격 – 조건마다 고른다. (null = BID, 기존 동작)
+ */
+public enum PriceSource {
+    BID,    // 매수1호가
+    ASK,    // 매도1호가
+    MID,    // (매수1 + 매도1) / 2
+    LAST,   // 최근 체결가 (KRX 체결)
+    VWAP;   // 최근 N초 체결 거래량 가중 평균가 (alarm.price.vwap-seconds)
+
+    public static PriceSource orDefault(PriceSource source) {
+        return source == null ? BID : source;
+    }
+
+    /**
+     * 체결 데이터가 필요한지 – 호가만으로는 계산할 수 없다.
+     */
+    public boolean needsTradeFeed() {
+        return this == LAST || this == VWAP;
+    }
+
+    /**
+     * 알림 문구용 이름
+     */
+    public String label() {
+        return switch (this) {
+            case BID -> "매수1호가";
+            case ASK -> "매도1호가";
+            case MID -> "중간가";
+            case LAST -> "체결가";
+            case VWAP -> "VWAP";
+        };
+    }
+}
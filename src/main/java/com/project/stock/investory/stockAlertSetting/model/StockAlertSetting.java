@@ -54,6 +54,34 @@ public class StockAlertSetting {
     @Column(nullable = false)
     private Integer isActive;
 
+    // 반복 알람 – 1 이면 발송 후 비활성화하지 않고 쿨다운·되돌림 후 다시 건다 (null = 1회성)
+    @Column(name = "is_recurring")
+    private Integer isRecurring;
+
+    // 재발송까지 최소 대기 시간(초)
+    @Column(name = "cooldown_seconds")
+    private Integer cooldownSeconds;
+
+    // 되돌림 폭(bp) – 목표가에서 이만큼 반대로 움직여야 다시 건다 (목표가 조건만, 100 → 1%)
+    @Column(name = "rearm_bp")
+    private Integer rearmBp;
+
+    // 재무장 상태 체크포인트 – 평가 서버가 주기적으로 기록 (null = 무장)
+    @Column(name = "is_armed")
+    private Integer isArmed;
+
+    @Column(name = "last_triggered_at", columnDefinition = "TIMESTAMP")
+    private LocalDateTime lastTriggeredAt;
+
+    // 목표가 비교 가격 (null = 매수1호가)
+    @Enumerated(EnumType.STRING)
+    @Column(name = "price_source", length = 8)
+    private PriceSource priceSource;
+
+    // 조건이 이 시간(ms) 동안 계속 만족돼야 발송 (null/0 = 즉시)
+    @Column(name = "hold_ms")
+    private Integer holdMs;
+
 //    @CreatedDate
 //    @Column(name = "created_at")
 //    private LocalDateTime createdAt;
@@ -88,6 +116,49 @@ public class StockAlertSetting {
         this.condition = condition;
     }
 
+    /**
+     * 조건 종류와 기준값 조합 검증 (이동평균 기간 등)
+     */
+    public void validateTarget() {
+        if (condition == null) {
+            throw new IllegalArgumentException("조건은 null일 수 없습니다.");
+        }
+        condition.validate(targetPrice);
+        if (!condition.isPriceTarget()
+                && (PriceSource.orDefault(priceSource) != PriceSource.BID || (holdMs != null && holdMs > 0))) {
+            throw new IllegalArgumentException("가격 기준과 유지 시간은 목표가 조건에만 설정할 수 있습니다.");
+        }
+    }
+
+    public void updateTrigger(PriceSource priceSource, Integer holdMs) {
+        if (holdMs != null && (holdMs < 0 || holdMs > 600_000)) {
+            throw new IllegalArgumentException("유지 시간은 0 ~ 600000ms 여야 합니다.");
+        }
+        this.priceSource = priceSource;
+        this.holdMs = holdMs;
+    }
+
+    public void updateRecurrence(boolean recurring, Integer cooldownSeconds, Integer rearmBp) {
+        if (cooldownSeconds != null && cooldownSeconds < 0) {
+            throw new IllegalArgumentException("쿨다운은 0초 이상이어야 합니다.");
+        }
+        if (rearmBp != null && (rearmBp < 0 || rearmBp >= 10_000)) {
+            throw new IllegalArgumentException("되돌림 폭은 0 ~ 9999bp 여야 합니다.");
+        }
+        this.isRecurring = recurring ? 1 : 0;
+        this.cooldownSeconds = cooldownSeconds;
+        this.rearmBp = rearmBp;
+    }
+
+    public boolean isRecurringAlert() {
+        return isRecurring != null && isRecurring == 1;
+    }
+
+    // 사용자가 조건을 바꾸면 새 조건으로 바로 다시 건다
+    public void rearm() {
+        this.isArmed = 1;
+    }
+
     @PrePersist
     public void prePersist() {
         if (isActive == null) {
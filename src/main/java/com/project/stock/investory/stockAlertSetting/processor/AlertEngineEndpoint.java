@@ -0,0 +1,88 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockInfo.service.StockSymbolTable;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import io.micrometer.core.instrument.distribution.HistogramSnapshot;
+import io.micrometer.core.instrument.distribution.ValueAtPercentile;
+import lombok.RequiredArgsConstructor;
+import org.springframework.boot.actuate.endpoint.annotation.Endpoint;
+import org.springframework.boot.actuate.endpoint.annotation.ReadOperation;
+import org.springframework.boot.actuate.endpoint.annotation.Selector;
+import org.springframework.stereotype.Component;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * {@code /actuator/alertengine} – 단계별 지연 요약과 평가 비용이 큰 종목 (기본 20개, {@code /actuator/alertengine/{limit}})
+ * <p>
+ * 노출하려면 {@code management.endpoints.web.exposure.include} 에 {@code alertengine} 을 추가한다.
+ * 시계열은 {@code /actuator/metrics/alarm.engine.*} (또는 Prometheus)로 본다.
+ */
+@Component
+@Endpoint(id = "alertengine")
+@RequiredArgsConstructor
+public class AlertEngineEndpoint {
+
+    private static final int DEFAULT_LIMIT = 20;
+    private static final List<String> STAGES = List.of(
+            "kis.ws.parse", "alarm.engine.queue.wait", "alarm.engine.match", "alarm.engine.persist", "alarm.engine.push");
+
+    private final AlertEngineMetrics metrics;
+    private final MeterRegistry registry;
+    private final StockSymbolTable symbols;
+
+    @ReadOperation
+    public Map<String, Object> report() {
+        return report(DEFAULT_LIMIT);
+    }
+
+    @ReadOperation
+    public Map<String, Object> report(@Selector int limit) {
+        Map<String, Object> stages = new LinkedHashMap<>();
+        for (String name : STAGES) {
+            for (Timer timer : registry.find(name).timers()) {
+                String kind = timer.getId().getTag("kind");
+                String tr = timer.getId().getTag("tr");
+                String key = name + (kind != null ? "[" + kind + "]" : "") + (tr != null ? "[" + tr + "]" : "");
+                stages.put(key, summarize(timer));
+            }
+        }
+
+        List<Map<String, Object>> hottest = metrics.hottest(limit).stream()
+                .map(this::toMap)
+                .toList();
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("stages", stages);
+        report.put("hottestSymbols", hottest);
+        return report;
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private static Map<String, Object> summarize(Timer timer) {
+        HistogramSnapshot snapshot = timer.takeSnapshot();
+        Map<String, Object> summary = new LinkedHashMap<>();
+        summary.put("count", snapshot.count());
+        summary.put("meanMicros", (long) snapshot.mean(TimeUnit.MICROSECONDS));
+        summary.put("maxMicros", (long) snapshot.max(TimeUnit.MICROSECONDS));
+        for (ValueAtPercentile p : snapshot.percentileValues()) {
+            summary.put("p" + Math.round(p.percentile() * 100) + "Micros", (long) p.value(TimeUnit.MICROSECONDS));
+        }
+        return summary;
+    }
+
+    private Map<String, Object> toMap(AlertEngineMetrics.HotSymbol h) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("stockCode", symbols.codeOf(h.symbolId()));
+        row.put("evaluations", h.evaluations());
+        row.put("evalMicros", h.evalNanos() / 1_000);
+        row.put("avgEvalNanos", h.evalNanos() / h.evaluations());
+        row.put("fired", h.fired());
+        return row;
+    }
+}
@@ -0,0 +1,168 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+import com.project.stock.investory.stockInfo.util.SymbolIndexedArray;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.springframework.stereotype.Component;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Supplier;
+import java.util.function.ToDoubleFunction;
+
+/**
+ * 알람 엔진 단계별 계측 – 수신 → 평가 → 저장 → 전송
+ * <p>
+ * 단계 타이머 (모두 히스토그램 포함, Prometheus 등에서 분위수 계산 가능):
+ * <ul>
+ *     <li>{@code kis.ws.parse} – 게이트웨이 프레임 해석 (게이트웨이가 직접 기록)</li>
+ *     <li>{@code alarm.engine.queue.wait} – 수신 → 샤드 평가 시작 (링 대기 + 합치기)</li>
+ *     <li>{@code alarm.engine.match} – 종목 1건 평가 (가격/지표)</li>
+ *     <li>{@code alarm.engine.persist} – outbox 배치 저장 트랜잭션</li>
+ *     <li>{@code alarm.engine.push} – 저장된 배치의 실시간 전송</li>
+ * </ul>
+ * 종목별 평가 횟수·평가 시간·발송 수는 태그를 단 미터 대신 심볼 ID 배열에 둔다. (종목 수만큼 시계열이 생기지 않도록)
+ * 한 종목은 항상 같은 샤드 스레드가 평가하므로 쓰기는 단일 스레드이고, 조회는 근사치로 충분하다.
+ */
+@Component
+public class AlertEngineMetrics {
+
+    static final String KIND_PRICE = "price";
+    static final String KIND_SIGNAL = "signal";
+
+    /**
+     * 종목별 평가 비용 (샤드 스레드만 쓴다)
+     */
+    static final class SymbolCost {
+        long evaluations;
+        long evalNanos;
+        long fired;
+    }
+
+    private final MeterRegistry registry;
+    private final Timer queueWait;
+    private final Timer matchPrice;
+    private final Timer matchSignal;
+    private final Timer persist;
+    private final Timer push;
+    private final Counter evaluatedPrice;
+    private final Counter evaluatedSignal;
+    private final Map<ConditionType, Counter> fired = new EnumMap<>(ConditionType.class);
+
+    private final SymbolIndexedArray<SymbolCost> costs = new SymbolIndexedArray<>();
+
+    public AlertEngineMetrics(MeterRegistry registry) {
+        this.registry = registry;
+        this.queueWait = stageTimer("alarm.engine.queue.wait", "수신 → 샤드 평가 시작").register(registry);
+        this.matchPrice = stageTimer("alarm.engine.match", "종목 1건 평가").tag("kind", KIND_PRICE).register(registry);
+        this.matchSignal = stageTimer("alarm.engine.match", "종목 1건 평가").tag("kind", KIND_SIGNAL).register(registry);
+        this.persist = stageTimer("alarm.engine.persist", "알람 배치 저장").register(registry);
+        this.push = stageTimer("alarm.engine.push", "알람 배치 실시간 전송").register(registry);
+        this.evaluatedPrice = Counter.builder("alarm.engine.evaluations").tag("kind", KIND_PRICE).register(registry);
+        this.evaluatedSignal = Counter.builder("alarm.engine.evaluations").tag("kind", KIND_SIGNAL).register(registry);
+        for (ConditionType type : ConditionType.values()) {
+            fired.put(type, Counter.builder("alarm.engine.fired").tag("condition", type.name()).register(registry));
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 샤드 평가 스레드                                                      */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 가격 평가 1건 – 수신 시각부터 평가 시작까지가 대기, 평가 시간이 매칭
+     */
+    void recordPriceEvaluation(int symbolId, long receivedNanos, long startNanos, long endNanos) {
+        queueWait.record(startNanos - receivedNanos, TimeUnit.NANOSECONDS);
+        matchPrice.record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+        evaluatedPrice.increment();
+        addCost(symbolId, endNanos - startNanos);
+    }
+
+    void recordSignalEvaluation(int symbolId, long startNanos, long endNanos) {
+        matchSignal.record(endNanos - startNanos, TimeUnit.NANOSECONDS);
+        evaluatedSignal.increment();
+        addCost(symbolId, endNanos - startNanos);
+    }
+
+    void recordFired(int symbolId, ConditionType type) {
+        fired.get(type).increment();
+        if (symbolId >= 0) costOf(symbolId).fired++;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* writer 스레드                                                        */
+    /* ------------------------------------------------------------------ */
+
+    void recordPersist(long nanos) {
+        persist.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    void recordPush(long nanos) {
+        push.record(nanos, TimeUnit.NANOSECONDS);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 등록 · 조회                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 조회 시점에 계산하는 크기 지표 (인덱스 조건 수, 큐 깊이 등)
+     */
+    void gauge(String name, String description, Supplier<Number> value, String... tags) {
+        Gauge.builder(name, value).description(description).tags(tags).register(registry);
+    }
+
+    /**
+     * 이미 세고 있는 누적값을 카운터로 노출
+     */
+    <T> void counter(String name, T obj, ToDoubleFunction<T> value, String... tags) {
+        FunctionCounter.builder(name, obj, value).tags(tags).register(registry);
+    }
+
+    /**
+     * 평가 시간 누적이 큰 종목 순
+     */
+    List<HotSymbol> hottest(int limit) {
+        List<HotSymbol> all = new ArrayList<>();
+        costs.forEach((symbolId, c) -> {
+            if (c.evaluations > 0) all.add(new HotSymbol(symbolId, c.evaluations, c.evalNanos, c.fired));
+        });
+        all.sort((a, b) -> Long.compare(b.evalNanos(), a.evalNanos()));
+        return all.size() > limit ? all.subList(0, limit) : all;
+    }
+
+    record HotSymbol(int symbolId, long evaluations, long evalNanos, long fired) {
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private void addCost(int symbolId, long nanos) {
+        if (symbolId < 0) return;
+        SymbolCost c = costOf(symbolId);
+        c.evaluations++;
+        c.evalNanos += nanos;
+    }
+
+    private SymbolCost costOf(int symbolId) {
+        SymbolCost c = costs.get(symbolId);
+        return c != null ? c : costs.computeIfAbsent(symbolId, id -> new SymbolCost());
+    }
+
+    private static Timer.Builder stageTimer(String name, String description) {
+        return Timer.builder(name)
+                .description(description)
+                .publishPercentiles(0.5, 0.99)
+                .publishPercentileHistogram()
+                .minimumExpectedValue(Duration.ofNanos(1_000))
+                .maximumExpectedValue(Duration.ofSeconds(5));
+    }
+}
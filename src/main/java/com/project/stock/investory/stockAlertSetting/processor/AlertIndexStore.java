@@ -0,0 +1,443 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockAlertSetting.model.AlertCondition;
+import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+import com.project.stock.investory.stockAlertSetting.model.PriceSource;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * 알람 조건 인덱스의 스냅샷 + 저널 – 재기동 시 DB 전체 로드 없이 조건 목록을 바로 복원한다.
+ * <p>
+ * <b>스냅샷</b> ({@code alert-index.snap}): 헤더(매직, 형식 버전, 저널 세대, 동기화 기준 시각, 건수) 뒤에
+ * 조건 레코드를 고정 순서로 쓰고 CRC32 로 닫는다. 임시 파일에 쓴 뒤 원자적으로 바꿔치기한다.
+ * <br>
+ * <b>저널</b> ({@code journal-<세대>.log}): 스냅샷 이후의 추가(ADD, 레코드 전체)·삭제(REMOVE, 설정 ID)를 덧붙인다.
+ * 스냅샷을 쓸 때 세대를 넘기고, 스냅샷 세대보다 오래된 저널은 지운다.
+ * <p>
+ * 복원은 스냅샷을 읽기 전용으로 매핑해 읽고 그 세대 이후 저널을 순서대로 다시 적용한다.
+ * 같은 설정의 ADD 는 덮어쓰고 REMOVE 는 없는 것도 무시하므로, 세대 경계에서 겹쳐 적용돼도 결과가 같다.
+ * 마지막 레코드가 반쯤 쓰인 저널(비정상 종료)은 그 앞까지만 적용한다.
+ */
+@Slf4j
+@Component
+public class AlertIndexStore {
+
+    private static final int MAGIC = 0x41494458;   // "AIDX"
+    private static final int FORMAT_VERSION = 4;   // 4: enum 을 ordinal 대신 이름으로 (이전 형식은 DB 전체 로드)
+    private static final byte ADD = 1;
+    private static final byte REMOVE = 2;
+    private static final String SNAPSHOT = "alert-index.snap";
+    private static final Pattern JOURNAL = Pattern.compile("journal-(\\d+)\\.log");
+
+    /**
+     * 인덱스 항목 1건 – firedAtMillis 는 반복 알람의 마지막 발송 시각 (없으면 -1), armed 가 false 면 쉬고 있는 반복 알람.
+     * 무장된 반복 알람도 발송 시각을 남겨 재기동 뒤에도 멱등 키의 회차가 이어진다.
+     */
+    public record Entry(AlertCondition condition, long version, long firedAtMillis, boolean armed) {
+    }
+
+    public record Loaded(List<Entry> entries, LocalDateTime syncedUpTo, long journalRecords) {
+    }
+
+    private final boolean enabled;
+    private final Path dir;
+
+    private final Object lock = new Object();
+    private DataOutputStream journal;
+    private long generation;
+    private long journalRecords;   // 현재 세대에 쓴 건수
+
+    public AlertIndexStore(
+            @Value("${alarm.snapshot.enabled:true}") boolean enabled,
+            @Value("${alarm.snapshot.dir:data/alert-index}") String dir
+    ) {
+        this.enabled = enabled;
+        this.dir = Path.of(dir);
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 복원                                                                */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 스냅샷 + 저널 복원. 없거나 깨졌으면 비어 있음 (DB 전체 로드로 대체)
+     * 어느 쪽이든 이후 변경을 받을 새 저널 세대를 연다.
+     */
+    public Optional<Loaded> load() {
+        if (!enabled) return Optional.empty();
+
+        Optional<Loaded> loaded = Optional.empty();
+        long lastGeneration = 0;
+        try {
+            Files.createDirectories(dir);
+            lastGeneration = journalGenerations().stream().mapToLong(Long::longValue).max().orElse(0);
+
+            Path snapshot = dir.resolve(SNAPSHOT);
+            if (Files.exists(snapshot)) {
+                loaded = Optional.of(read(snapshot));
+            }
+        } catch (Exception e) {
+            log.warn("알람 인덱스 스냅샷 복원 실패 – DB 에서 전체 로드", e);
+            loaded = Optional.empty();
+        }
+
+        synchronized (lock) {
+            generation = lastGeneration;
+            openNextJournal();
+        }
+        return loaded;
+    }
+
+    private Loaded read(Path snapshot) throws IOException {
+        Map<Long, Entry> entries = new LinkedHashMap<>();
+        long snapshotGeneration;
+        LocalDateTime syncedUpTo;
+
+        try (FileChannel ch = FileChannel.open(snapshot, StandardOpenOption.READ)) {
+            MappedByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            if (buf.getInt() != MAGIC || buf.getInt() != FORMAT_VERSION) {
+                throw new IOException("알람 인덱스 스냅샷 형식이 아닙니다: " + snapshot);
+            }
+            snapshotGeneration = buf.getLong();
+            long syncedMillis = buf.getLong();
+            int count = buf.getInt();
+
+            int recordsFrom = buf.position();
+            for (int i = 0; i < count; i++) {
+                Entry e = readEntry(buf);
+                entries.put(e.condition().getSettingId(), e);
+            }
+            CRC32 crc = new CRC32();
+            crc.update(buf.duplicate().position(recordsFrom).limit(buf.position()));
+            if ((int) crc.getValue() != buf.getInt()) {
+                throw new IOException("알람 인덱스 스냅샷 CRC 불일치: " + snapshot);
+            }
+            syncedUpTo = syncedMillis < 0 ? null
+                    : LocalDateTime.ofInstant(Instant.ofEpochMilli(syncedMillis), ZoneId.systemDefault());
+        }
+
+        long replayed = 0;
+        for (long gen : journalGenerations()) {
+            if (gen >= snapshotGeneration) replayed += replay(dir.resolve(journalName(gen)), entries);
+        }
+        log.info("알람 인덱스 스냅샷 복원: {}건 (저널 {}건 재적용)", entries.size(), replayed);
+        return new Loaded(new ArrayList<>(entries.values()), syncedUpTo, replayed);
+    }
+
+    private long replay(Path file, Map<Long, Entry> entries) throws IOException {
+        long n = 0;
+        try (FileChannel ch = FileChannel.open(file, StandardOpenOption.READ)) {
+            if (ch.size() == 0) return 0;
+            ByteBuffer buf = ch.map(FileChannel.MapMode.READ_ONLY, 0, ch.size());
+            while (buf.hasRemaining()) {
+                int mark = buf.position();
+                try {
+                    byte type = buf.get();
+                    if (type == ADD) {
+                        Entry e = readEntry(buf);
+                        entries.put(e.condition().getSettingId(), e);
+                    } else if (type == REMOVE) {
+                        entries.remove(buf.getLong());
+                    } else {
+                        break;
+                    }
+                    n++;
+                } catch (BufferUnderflowException e) {
+                    log.warn("저널 끝 레코드가 잘림 – {} 의 {} 바이트 이후 무시", file.getFileName(), mark);
+                    break;
+                }
+            }
+        }
+        return n;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 저널                                                                */
+    /* ------------------------------------------------------------------ */
+
+    public void journalAdd(Entry entry) {
+        if (!enabled) return;
+        synchronized (lock) {
+            if (journal == null) return;
+            try {
+                journal.writeByte(ADD);
+                writeEntry(journal, entry);
+                journalRecords++;
+            } catch (IOException e) {
+                closeJournal(e);
+            }
+        }
+    }
+
+    public void journalRemove(long settingId) {
+        if (!enabled) return;
+        synchronized (lock) {
+            if (journal == null) return;
+            try {
+                journal.writeByte(REMOVE);
+                journal.writeLong(settingId);
+                journalRecords++;
+            } catch (IOException e) {
+                closeJournal(e);
+            }
+        }
+    }
+
+    // 버퍼에 쌓인 저널을 파일로 (기본 1초마다)
+    @Scheduled(fixedDelayString = "${alarm.snapshot.journal-flush-ms:1000}")
+    public void flush() {
+        synchronized (lock) {
+            if (journal == null) return;
+            try {
+                journal.flush();
+            } catch (IOException e) {
+                closeJournal(e);
+            }
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 스냅샷                                                              */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 새 저널 세대를 열고 그 세대 번호를 돌려준다. 이후의 변경은 새 세대에 쌓이므로,
+     * 돌려받은 세대로 {@link #writeSnapshot} 하면 그 전 세대 저널은 필요 없다.
+     */
+    public long rotate() {
+        synchronized (lock) {
+            if (!enabled) return 0;
+            openNextJournal();
+            return generation;
+        }
+    }
+
+    public void writeSnapshot(long journalGeneration, LocalDateTime syncedUpTo, Collection<Entry> entries) throws IOException {
+        if (!enabled) return;
+
+        Path tmp = dir.resolve(SNAPSHOT + ".tmp");
+        CRC32 crc = new CRC32();
+        try (FileOutputStream fos = new FileOutputStream(tmp.toFile());
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(fos, 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(FORMAT_VERSION);
+            out.writeLong(journalGeneration);
+            out.writeLong(syncedUpTo == null ? -1 : syncedUpTo.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli());
+            out.writeInt(entries.size());
+
+            // CRC 는 레코드 구간만
+            ByteBuffer record = ByteBuffer.allocate(256);
+            for (Entry e : entries) {
+                record.clear();
+                putEntry(record, e);
+                record.flip();
+                crc.update(record.array(), 0, record.limit());
+                out.write(record.array(), 0, record.limit());
+            }
+            out.writeInt((int) crc.getValue());
+            out.flush();
+            fos.getFD().sync();
+        }
+        Files.move(tmp, dir.resolve(SNAPSHOT), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+
+        for (long gen : journalGenerations()) {
+            if (gen < journalGeneration) Files.deleteIfExists(dir.resolve(journalName(gen)));
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        synchronized (lock) {
+            stats.put("journalGeneration", generation);
+            stats.put("journalRecords", journalRecords);
+            stats.put("journalOpen", journal != null);
+        }
+        try {
+            Path snapshot = dir.resolve(SNAPSHOT);
+            stats.put("snapshotBytes", Files.exists(snapshot) ? Files.size(snapshot) : 0);
+        } catch (IOException e) {
+            stats.put("snapshotBytes", -1);
+        }
+        return stats;
+    }
+
+    @PreDestroy
+    public void close() {
+        synchronized (lock) {
+            if (journal == null) return;
+            try {
+                journal.close();
+            } catch (IOException e) {
+                log.warn("알람 인덱스 저널 닫기 실패", e);
+            }
+            journal = null;
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 레코드 형식                                                          */
+    /* settingId(8) userId(8) codeLen(2) code targetPrice(4) typeLen(1) type */
+    /* recurring(1) cooldownMillis(8) rearmBp(4) sourceLen(1) source        */
+    /* holdMs(4) version(8) firedAt(8) armed(1)                             */
+    /* enum 은 이름으로 – 상수 순서가 바뀌어도 다른 조건으로 읽히지 않는다.       */
+    /* (이름이 바뀐 상수는 valueOf 에서 실패해 DB 전체 로드로 넘어간다)          */
+    /* ------------------------------------------------------------------ */
+
+    private static void putEntry(ByteBuffer buf, Entry e) {
+        AlertCondition c = e.condition();
+        byte[] code = c.getStockCode().getBytes(StandardCharsets.UTF_8);
+        buf.putLong(c.getSettingId());
+        buf.putLong(c.getUserId());
+        buf.putShort((short) code.length);
+        buf.put(code);
+        buf.putInt(c.getTargetPrice());
+        putName(buf, c.getCondition());
+        buf.put((byte) (c.isRecurring() ? 1 : 0));
+        buf.putLong(c.getCooldownMillis());
+        buf.putInt(c.getRearmBp());
+        putName(buf, c.getPriceSource());
+        buf.putInt((int) c.getHoldMillis());
+        buf.putLong(e.version());
+        buf.putLong(e.firedAtMillis());
+        buf.put((byte) (e.armed() ? 1 : 0));
+    }
+
+    private static void writeEntry(DataOutputStream out, Entry e) throws IOException {
+        AlertCondition c = e.condition();
+        byte[] code = c.getStockCode().getBytes(StandardCharsets.UTF_8);
+        out.writeLong(c.getSettingId());
+        out.writeLong(c.getUserId());
+        out.writeShort(code.length);
+        out.write(code);
+        out.writeInt(c.getTargetPrice());
+        writeName(out, c.getCondition());
+        out.writeByte(c.isRecurring() ? 1 : 0);
+        out.writeLong(c.getCooldownMillis());
+        out.writeInt(c.getRearmBp());
+        writeName(out, c.getPriceSource());
+        out.writeInt((int) c.getHoldMillis());
+        out.writeLong(e.version());
+        out.writeLong(e.firedAtMillis());
+        out.writeByte(e.armed() ? 1 : 0);
+    }
+
+    private static Entry readEntry(ByteBuffer buf) {
+        long settingId = buf.getLong();
+        long userId = buf.getLong();
+        byte[] code = new byte[buf.getShort()];
+        buf.get(code);
+        int targetPrice = buf.getInt();
+        ConditionType type = ConditionType.valueOf(readName(buf));
+        boolean recurring = buf.get() == 1;
+        long cooldownMillis = buf.getLong();
+        int rearmBp = buf.getInt();
+        PriceSource source = PriceSource.valueOf(readName(buf));
+        int holdMs = buf.getInt();
+        long version = buf.getLong();
+        long firedAt = buf.getLong();
+        boolean armed = buf.get() == 1;
+
+        AlertCondition condition = new AlertCondition(settingId, userId, new String(code, StandardCharsets.UTF_8),
+                targetPrice, type, recurring, cooldownMillis, rearmBp, source, holdMs);
+        return new Entry(condition, version, firedAt, armed);
+    }
+
+    private static void putName(ByteBuffer buf, Enum<?> value) {
+        byte[] name = value.name().getBytes(StandardCharsets.US_ASCII);
+        buf.put((byte) name.length);
+        buf.put(name);
+    }
+
+    private static void writeName(DataOutputStream out, Enum<?> value) throws IOException {
+        byte[] name = value.name().getBytes(StandardCharsets.US_ASCII);
+        out.writeByte(name.length);
+        out.write(name);
+    }
+
+    private static String readName(ByteBuffer buf) {
+        byte[] name = new byte[buf.get()];
+        buf.get(name);
+        return new String(name, StandardCharsets.US_ASCII);
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private void openNextJournal() {
+        try {
+            if (journal != null) journal.close();
+            generation++;
+            journal = new DataOutputStream(new BufferedOutputStream(
+                    Files.newOutputStream(dir.resolve(journalName(generation)),
+                            StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND), 1 << 16));
+            journalRecords = 0;
+        } catch (IOException e) {
+            closeJournal(e);
+        }
+    }
+
+    // 저널을 못 쓰면 스냅샷도 믿을 수 없으므로 다음 기동은 DB 전체 로드가 되도록 스냅샷을 지운다
+    private void closeJournal(IOException cause) {
+        log.error("알람 인덱스 저널 기록 실패 – 저널을 닫고 스냅샷을 폐기합니다", cause);
+        try {
+            if (journal != null) journal.close();
+        } catch (IOException ignored) {
+        }
+        journal = null;
+        try {
+            Files.deleteIfExists(dir.resolve(SNAPSHOT));
+        } catch (IOException ignored) {
+        }
+    }
+
+    private List<Long> journalGenerations() throws IOException {
+        List<Long> gens = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.forEach(p -> {
+                Matcher m = JOURNAL.matcher(p.getFileName().toString());
+                if (m.matches()) gens.add(Long.parseLong(m.group(1)));
+            });
+        }
+        gens.sort(null);
+        return gens;
+    }
+
+    private static String journalName(long generation) {
+        return "journal-" + generation + ".log";
+    }
+}
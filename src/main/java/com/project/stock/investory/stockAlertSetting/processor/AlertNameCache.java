@@ -0,0 +1,174 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockInfo.repository.StockRepository;
+import com.project.stock.investory.user.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Function;
+
+/**
+ * 알람 발송용 이름 캐시 – 회원번호 → 이름, 종목코드 → 종목명만 들고 있다.
+ * <p>
+ * 엔티티(비밀번호 해시, 토큰, lazy 프록시)를 통째로 잡아 두지 않고 문자열만 담는다.
+ * 크기는 상한을 두고 가장 오래 안 쓴 항목부터 내보낸다. (LRU)
+ * 없는 항목은 {@link StockAlertBatchWriter} 가 저장 배치 단위로 모아 IN 조회 한 번으로 채운다. (writer 스레드)
+ * <p>
+ * 전체 재구성 때 fetch join 으로 같이 온 이름으로 갱신되고, 회원 정보 변경은
+ * {@link StockPriceProcessor#updateUserCache}/{@link StockPriceProcessor#removeUserCache} 로 바로 반영된다.
+ */
+@Component
+public class AlertNameCache {
+
+    private static final int IN_CHUNK = 1_000;   // Oracle IN 목록 상한
+
+    private final UserRepository userRepository;
+    private final StockRepository stockRepository;
+    private final LruMap<Long, String> userNames;
+    private final LruMap<String, String> stockNames;
+
+    /* 메트릭 */
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder loadQueries = new LongAdder();
+
+    public AlertNameCache(
+            UserRepository userRepository,
+            StockRepository stockRepository,
+            @Value("${alarm.name-cache.max-users:100000}") int maxUsers,
+            @Value("${alarm.name-cache.max-stocks:10000}") int maxStocks
+    ) {
+        this.userRepository = userRepository;
+        this.stockRepository = stockRepository;
+        this.userNames = new LruMap<>(maxUsers);
+        this.stockNames = new LruMap<>(maxStocks);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 조회                                                               */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 저장 직전 – 이번 배치에서 캐시에 없는 것만 한 번에 채운다.
+     */
+    void preload(Collection<Long> userIds, Collection<String> stockCodes) {
+        loadMissing(userNames, userIds, userRepository::findNamesByUserIdIn);
+        loadMissing(stockNames, stockCodes, stockRepository::findNamesByStockIdIn);
+    }
+
+    /**
+     * 없는 회원이면 null
+     */
+    String userName(Long userId) {
+        return get(userNames, userId, userRepository::findNamesByUserIdIn);
+    }
+
+    /**
+     * 없는 종목이면 null
+     */
+    String stockName(String stockCode) {
+        return get(stockNames, stockCode, stockRepository::findNamesByStockIdIn);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 갱신                                                               */
+    /* ------------------------------------------------------------------ */
+
+    void putUser(Long userId, String name) {
+        userNames.put(userId, Objects.requireNonNullElse(name, ""));
+    }
+
+    void removeUser(Long userId) {
+        userNames.remove(userId);
+    }
+
+    void putStock(String stockCode, String stockName) {
+        stockNames.put(stockCode, Objects.requireNonNullElse(stockName, ""));
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("users", userNames.size());
+        stats.put("stocks", stockNames.size());
+        stats.put("hits", hits.sum());
+        stats.put("misses", misses.sum());
+        stats.put("loadQueries", loadQueries.sum());
+        return stats;
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private <K> String get(LruMap<K, String> cache, K key, Function<Collection<K>, List<Object[]>> loader) {
+        String name = cache.get(key);
+        if (name != null) {
+            hits.increment();
+            return name;
+        }
+        loadMissing(cache, List.of(key), loader);
+        return cache.get(key);
+    }
+
+    @SuppressWarnings("unchecked")
+    private <K> void loadMissing(LruMap<K, String> cache, Collection<K> keys, Function<Collection<K>, List<Object[]>> loader) {
+        Set<K> missing = new LinkedHashSet<>();
+        for (K key : keys) {
+            if (!cache.containsKey(key)) missing.add(key);
+        }
+        if (missing.isEmpty()) return;
+        misses.add(missing.size());
+
+        List<K> ids = new ArrayList<>(missing);
+        for (int from = 0; from < ids.size(); from += IN_CHUNK) {
+            List<K> chunk = ids.subList(from, Math.min(from + IN_CHUNK, ids.size()));
+            loadQueries.increment();
+            for (Object[] row : loader.apply(chunk)) {
+                cache.put((K) row[0], Objects.requireNonNullElse((String) row[1], ""));
+            }
+        }
+    }
+
+    /**
+     * 접근 순서 LinkedHashMap – 발송 경로에서만 조회하므로 단순 동기화로 충분하다.
+     */
+    private static final class LruMap<K, V> {
+        private final Map<K, V> map;
+
+        LruMap(int maxSize) {
+            this.map = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<K, V> eldest) {
+                    return size() > maxSize;
+                }
+            };
+        }
+
+        synchronized V get(K key) {
+            return map.get(key);
+        }
+
+        synchronized boolean containsKey(K key) {
+            return map.containsKey(key);
+        }
+
+        synchronized void put(K key, V value) {
+            map.put(key, value);
+        }
+
+        synchronized void remove(K key) {
+            map.remove(key);
+        }
+
+        synchronized int size() {
+            return map.size();
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockAlertSetting.event.AlertPartitionChangedEvent;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.dao.DuplicateKeyException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.UUID;
+
+/**
+ * 알람 평가 파티션 소유권 – 여러 인스턴스가 종목을 나눠 맡는다.
+ * <p>
+ * 종목코드 해시로 고정 개수의 파티션을 나누고, 파티션마다 {@code alert_partition_lease} 행 하나를 임대한다.
+ * 하트비트마다:
+ * <ol>
+ *     <li>생존 신호를 남기고 살아 있는 노드 수로 내 몫(⌈파티션 수 / 노드 수⌉)을 정한다</li>
+ *     <li>내 임대를 연장한다 ({@code owner_id = 나} 조건부 UPDATE)</li>
+ *     <li>몫보다 많으면 반납하고, 모자라면 비었거나 만료된 파티션을 조건부 UPDATE 로 가져온다</li>
+ * </ol>
+ * 시각 비교는 모두 DB 시각(SYSTIMESTAMP)으로 해 노드 간 시계 차이에 영향받지 않는다.
+ * 임대 연장에 계속 실패해 로컬 기준으로도 만료되면 모든 파티션을 내려놓는다. (다른 노드가 가져갈 수 있도록)
+ * <p>
+ * 소유 파티션이 바뀌면 {@link AlertPartitionChangedEvent} 를 발행한다. 넘겨받는 동안 두 노드가 같은 조건을
+ * 한 번씩 발송할 수 있는데, 알람 행의 멱등 키로 한 번만 저장된다.
+ * <p>
+ * {@code alarm.partition.enabled=false}(기본)면 DB 를 쓰지 않고 모든 종목을 맡는다. (단일 인스턴스)
+ */
+@Slf4j
+@Component
+public class AlertPartitionManager {
+
+    private static final String TOUCH_NODE_SQL =
+            "UPDATE alert_partition_node SET heartbeat_at = SYSTIMESTAMP WHERE node_id = ?";
+    private static final String INSERT_NODE_SQL =
+            "INSERT INTO alert_partition_node (node_id, heartbeat_at) VALUES (?, SYSTIMESTAMP)";
+    private static final String LIVE_NODES_SQL =
+            "SELECT COUNT(*) FROM alert_partition_node WHERE heartbeat_at > SYSTIMESTAMP - NUMTODSINTERVAL(?, 'SECOND')";
+    private static final String INSERT_PARTITION_SQL =
+            "INSERT INTO alert_partition_lease (partition_no, owner_id, lease_until, epoch) " +
+                    "SELECT ?, NULL, SYSTIMESTAMP, 0 FROM dual " +
+                    "WHERE NOT EXISTS (SELECT 1 FROM alert_partition_lease WHERE partition_no = ?)";
+    private static final String RENEW_SQL =
+            "UPDATE alert_partition_lease SET lease_until = SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND') WHERE owner_id = ?";
+    private static final String OWNED_SQL =
+            "SELECT partition_no FROM alert_partition_lease WHERE owner_id = ? ORDER BY partition_no";
+    private static final String FREE_SQL =
+            "SELECT partition_no FROM alert_partition_lease " +
+                    "WHERE owner_id IS NULL OR lease_until < SYSTIMESTAMP ORDER BY partition_no";
+    private static final String CLAIM_SQL =
+            "UPDATE alert_partition_lease SET owner_id = ?, lease_until = SYSTIMESTAMP + NUMTODSINTERVAL(?, 'SECOND'), " +
+                    "epoch = epoch + 1 WHERE partition_no = ? AND (owner_id IS NULL OR lease_until < SYSTIMESTAMP)";
+    private static final String RELEASE_SQL =
+            "UPDATE alert_partition_lease SET owner_id = NULL, lease_until = SYSTIMESTAMP " +
+                    "WHERE partition_no = ? AND owner_id = ?";
+    private static final String RELEASE_ALL_SQL =
+            "UPDATE alert_partition_lease SET owner_id = NULL, lease_until = SYSTIMESTAMP WHERE owner_id = ?";
+    private static final String DELETE_NODE_SQL =
+            "DELETE FROM alert_partition_node WHERE node_id = ?";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final int partitionCount;
+    private final long leaseMs;
+    private final String nodeId;
+
+    private volatile BitSet owned = new BitSet();
+    private volatile long validUntilNanos;   // 마지막으로 연장에 성공한 임대의 로컬 만료 시각
+    private volatile int liveNodes = 1;
+    private volatile boolean started;        // 초기화 중 첫 획득은 이벤트 없이 (조건 로드가 뒤따른다)
+
+    public AlertPartitionManager(
+            JdbcTemplate jdbcTemplate,
+            ApplicationEventPublisher eventPublisher,
+            @Value("${alarm.partition.enabled:false}") boolean enabled,
+            @Value("${alarm.partition.count:64}") int partitionCount,
+            @Value("${alarm.partition.lease-ms:15000}") long leaseMs,
+            @Value("${alarm.partition.node-id:}") String nodeId
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.partitionCount = partitionCount;
+        this.leaseMs = leaseMs;
+        this.nodeId = nodeId.isBlank() ? defaultNodeId() : nodeId;
+    }
+
+    @PostConstruct
+    public void init() {
+        if (!enabled) {
+            log.info("알람 파티션 비활성화 – 이 노드가 모든 종목을 평가");
+            return;
+        }
+        ensurePartitionRows();
+        heartbeat();   // 조건 로드 전에 첫 몫을 잡는다
+        started = true;
+        log.info("알람 파티션 참여: nodeId={}, 파티션 {}/{}개", nodeId, owned.cardinality(), partitionCount);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (!enabled) return;
+        try {
+            // 만료를 기다리지 않고 바로 넘겨준다
+            jdbcTemplate.update(RELEASE_ALL_SQL, nodeId);
+            jdbcTemplate.update(DELETE_NODE_SQL, nodeId);
+        } catch (Exception e) {
+            log.warn("파티션 반납 실패 – 임대 만료 후 다른 노드가 가져감", e);
+        }
+    }
+
+    /**
+     * 이 노드가 평가할 종목인지
+     */
+    public boolean owns(String stockCode) {
+        return !enabled || owned.get(partitionOf(stockCode));
+    }
+
+    public int partitionOf(String stockCode) {
+        return Math.floorMod(stockCode.hashCode(), partitionCount);   // String.hashCode 는 JVM 간 동일
+    }
+
+    @Scheduled(fixedDelayString = "${alarm.partition.heartbeat-ms:5000}", initialDelayString = "${alarm.partition.heartbeat-ms:5000}")
+    public void heartbeat() {
+        if (!enabled) return;
+
+        long startedAt = System.nanoTime();
+        BitSet before = owned;
+        try {
+            if (jdbcTemplate.update(TOUCH_NODE_SQL, nodeId) == 0) {
+                jdbcTemplate.update(INSERT_NODE_SQL, nodeId);
+            }
+            Integer live = jdbcTemplate.queryForObject(LIVE_NODES_SQL, Integer.class, leaseSeconds());
+            liveNodes = Math.max(1, live == null ? 1 : live);
+            int share = (partitionCount + liveNodes - 1) / liveNodes;
+
+            jdbcTemplate.update(RENEW_SQL, leaseSeconds(), nodeId);
+            BitSet next = new BitSet(partitionCount);
+            jdbcTemplate.queryForList(OWNED_SQL, Integer.class, nodeId).forEach(next::set);
+
+            // 몫보다 많으면 뒤쪽부터 반납 – 평가를 먼저 내려놓고 DB 를 비운다
+            List<Integer> toRelease = new ArrayList<>();
+            int excess = next.cardinality() - share;
+            for (int p = next.length() - 1; excess > 0 && p >= 0; p = next.previousSetBit(p - 1), excess--) {
+                toRelease.add(p);
+            }
+            toRelease.forEach(next::clear);
+
+            // 모자라면 빈 파티션을 가져온다 (경합은 조건부 UPDATE 가 가른다)
+            if (next.cardinality() < share) {
+                for (Integer p : jdbcTemplate.queryForList(FREE_SQL, Integer.class)) {
+                    if (next.cardinality() >= share) break;
+                    if (jdbcTemplate.update(CLAIM_SQL, nodeId, leaseSeconds(), p) == 1) next.set(p);
+                }
+            }
+
+            validUntilNanos = startedAt + leaseMs * 1_000_000L;
+            publishIfChanged(before, next);
+
+            for (Integer p : toRelease) {
+                jdbcTemplate.update(RELEASE_SQL, p, nodeId);
+            }
+
+        } catch (Exception e) {
+            log.error("알람 파티션 하트비트 실패: nodeId={}", nodeId, e);
+            if (System.nanoTime() - validUntilNanos > 0 && !before.isEmpty()) {
+                // 임대가 이미 끝났을 수 있다 – 다른 노드와 겹치지 않도록 전부 내려놓는다
+                log.warn("알람 파티션 임대 만료 – 평가 중단: {}개", before.cardinality());
+                publishIfChanged(before, new BitSet());
+            }
+        }
+    }
+
+    public Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("enabled", enabled);
+        stats.put("nodeId", nodeId);
+        stats.put("partitions", partitionCount);
+        stats.put("liveNodes", liveNodes);
+        stats.put("owned", enabled ? owned.toString() : "all");
+        return stats;
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private void publishIfChanged(BitSet before, BitSet next) {
+        if (before.equals(next)) return;
+        owned = next;
+        if (!started) return;
+
+        Set<Integer> acquired = new HashSet<>();
+        Set<Integer> released = new HashSet<>();
+        for (int p = 0; p < partitionCount; p++) {
+            if (next.get(p) && !before.get(p)) acquired.add(p);
+            if (!next.get(p) && before.get(p)) released.add(p);
+        }
+        log.info("알람 파티션 변경: 획득={}, 반납={}, 보유 {}개", acquired, released, next.cardinality());
+        eventPublisher.publishEvent(new AlertPartitionChangedEvent(acquired, released));
+    }
+
+    private void ensurePartitionRows() {
+        for (int p = 0; p < partitionCount; p++) {
+            try {
+                jdbcTemplate.update(INSERT_PARTITION_SQL, p, p);
+            } catch (DuplicateKeyException e) {
+                // 다른 노드가 동시에 만들었음
+            }
+        }
+    }
+
+    private long leaseSeconds() {
+        return Math.max(1, leaseMs / 1_000);
+    }
+
+    private static String defaultNodeId() {
+        String host;
+        try {
+            host = InetAddress.getLocalHost().getHostName();
+        } catch (Exception e) {
+            host = "node";
+        }
+        return host + "-" + UUID.randomUUID().toString().substring(0, 8);
+    }
+}
@@ -0,0 +1,129 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockAlertSetting.model.AlertCondition;
+import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+import com.project.stock.investory.stockAlertSetting.model.PriceSource;
+import com.project.stock.investory.stockInfo.util.SymbolIndexedArray;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 유지 시간(debounce)이 있는 목표가 조건의 대기석
+ * <p>
+ * 목표가에 도달한 조건을 바로 발송하지 않고 목록에서 꺼내 여기에 둔다. 같은 종목 · 가격 기준의 다음 평가마다
+ * <ul>
+ *     <li>구간 내내 만족했으면(이상: 구간 저가 ≥ 목표가, 이하: 구간 고가 ≤ 목표가) 유지 시간이 지났는지 보고 발송</li>
+ *     <li>한 번이라도 벗어났으면 원래 목록으로 되돌린다 (호가가 목표가 근처에서 깜빡이는 경우)</li>
+ * </ul>
+ * 판정은 그 종목의 평가 때 하므로, 유지 시간이 지난 뒤 첫 틱에 발송된다.
+ * 쓰기는 종목을 맡은 평가 스레드가 하고, 설정 변경 · 재구성 때만 다른 스레드가 지운다.
+ */
+final class HoldIndex {
+
+    static final class Held {
+        final AlertCondition condition;
+        final long sinceNanos;
+
+        private Held(AlertCondition condition, long sinceNanos) {
+            this.condition = condition;
+            this.sinceNanos = sinceNanos;
+        }
+
+        boolean holds(int highPrice, int lowPrice) {
+            return condition.getCondition() == ConditionType.ABOVE
+                    ? lowPrice >= condition.getTargetPrice()
+                    : highPrice <= condition.getTargetPrice();
+        }
+    }
+
+    // 심볼 ID → 설정 ID → 대기 중인 조건
+    private final SymbolIndexedArray<Map<Long, Held>> bySymbol = new SymbolIndexedArray<>();
+    // 설정 ID → 심볼 ID (삭제용)
+    private final Map<Long, Integer> symbolOf = new ConcurrentHashMap<>();
+
+    void hold(int symbolId, AlertCondition condition, long nowNanos) {
+        bySymbol.computeIfAbsent(symbolId, id -> new ConcurrentHashMap<>())
+                .put(condition.getSettingId(), new Held(condition, nowNanos));
+        symbolOf.put(condition.getSettingId(), symbolId);
+    }
+
+    /**
+     * 이 종목 · 가격 기준으로 대기 중인 조건이 있는지 – 평가마다 부르므로 대부분은 null 확인으로 끝난다.
+     */
+    boolean watches(int symbolId, PriceSource source) {
+        Map<Long, Held> held = bySymbol.get(symbolId);
+        if (held == null || held.isEmpty()) return false;
+        for (Held h : held.values()) {
+            if (h.condition.getPriceSource() == source) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 구간 고가/저가로 판정 – 유지 시간을 채운 조건은 due, 벗어난 조건은 broken 으로 꺼낸다.
+     */
+    void settle(int symbolId, PriceSource source, int highPrice, int lowPrice, long nowNanos,
+                List<AlertCondition> due, List<AlertCondition> broken) {
+        Map<Long, Held> held = bySymbol.get(symbolId);
+        if (held == null) return;
+
+        for (Iterator<Held> it = held.values().iterator(); it.hasNext(); ) {
+            Held h = it.next();
+            if (h.condition.getPriceSource() != source) continue;
+
+            if (!h.holds(highPrice, lowPrice)) {
+                broken.add(h.condition);
+            } else if (nowNanos - h.sinceNanos >= h.condition.getHoldMillis() * 1_000_000L) {
+                due.add(h.condition);
+            } else {
+                continue;
+            }
+            it.remove();
+            symbolOf.remove(h.condition.getSettingId());
+        }
+    }
+
+    void forget(long settingId) {
+        Integer symbolId = symbolOf.remove(settingId);
+        if (symbolId == null) return;
+        Map<Long, Held> held = bySymbol.get(symbolId);
+        if (held != null) held.remove(settingId);
+    }
+
+    boolean hasAny(int symbolId) {
+        Map<Long, Held> held = bySymbol.get(symbolId);
+        return held != null && !held.isEmpty();
+    }
+
+    boolean needsTradeFeed(int symbolId) {
+        Map<Long, Held> held = bySymbol.get(symbolId);
+        if (held == null) return false;
+        for (Held h : held.values()) {
+            if (h.condition.needsTradeFeed()) return true;
+        }
+        return false;
+    }
+
+    /**
+     * 대기 중인 조건 (인덱스 스냅샷용 – 복원하면 다시 목록에서 도달을 기다린다)
+     */
+    void forEachHeld(Consumer<AlertCondition> action) {
+        bySymbol.forEach((symbolId, held) -> held.values().forEach(h -> action.accept(h.condition)));
+    }
+
+    /**
+     * 전체 재구성 때 – 새 목록에 모두 다시 들어가므로 대기석은 비운다.
+     */
+    void clear() {
+        bySymbol.forEach((symbolId, held) -> held.clear());
+        symbolOf.clear();
+    }
+
+    int size() {
+        return symbolOf.size();
+    }
+}
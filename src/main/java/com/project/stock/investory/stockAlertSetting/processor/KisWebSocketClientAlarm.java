@@ -1,182 +1,129 @@
 package com.project.stock.investory.stockAlertSetting.processor;
 
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.project.stock.investory.stockAlertSetting.event.StockPriceEvent;
-import com.project.stock.investory.stockInfo.repository.StockRepository;
+import com.project.stock.investory.mainData.service.StockPriceService;
 import com.project.stock.investory.stockAlertSetting.repository.StockAlertSettingRepository;
+import com.project.stock.investory.stockInfo.service.StockSymbolTable;
+import com.project.stock.investory.stockInfo.websocket.KisFeedGapEvent;
+import com.project.stock.investory.stockInfo.websocket.KisWebSocketClient;
+import com.project.stock.investory.stockInfo.websocket.RealTimeQuote;
+import com.project.stock.investory.stockInfo.websocket.RealTimeQuoteListener;
+import com.project.stock.investory.stockInfo.websocket.RealTimeTick;
+import com.project.stock.investory.stockInfo.websocket.RealTimeTickBatch;
+import com.project.stock.investory.stockInfo.websocket.RealTimeTickListener;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import jakarta.websocket.*;
 import lombok.RequiredArgsConstructor;
-import org.springframework.beans.factory.annotation.Value;
-import org.springframework.context.ApplicationEventPublisher;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.event.EventListener;
 import org.springframework.stereotype.Component;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
 
-import java.net.URI;
+import java.time.Duration;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.Executors;
-import java.util.concurrent.ScheduledExecutorService;
-import java.util.concurrent.TimeUnit;
 
-@ClientEndpoint
+/**
+ * 주가 알람용 호가(H0STASP0) 구독 관리
+ * <p>
+ * 자체 WebSocket 세션을 열지 않고 공유 게이트웨이({@link KisWebSocketClient})에 consumer 로 붙는다.
+ * 연결 · 재연결 · 등록 패킷은 게이트웨이가 처리하고, 여기서는 알람이 걸린 종목 목록만 맞춰 준다.
+ * 등락률 · 거래량 조건이 걸린 종목은 KRX 체결(H0STCNT0)도 함께 구독한다.
+ * 재연결로 호가 수신이 끊겼던 종목은 REST 현재가를 한 번 받아 평가 파이프라인에 넣어
+ * 공백 동안 목표가를 넘어간 알람도 놓치지 않게 한다.
+ */
+@Slf4j
 @Component
 @RequiredArgsConstructor
 public class KisWebSocketClientAlarm {
 
-    private final StockRepository stockRepository;
+    private final KisWebSocketClient kisClient;
     private final StockAlertSettingRepository stockAlertSettingRepository;
-    private final ApplicationEventPublisher eventPublisher; // 🔥 이벤트 발행자 추가
+    private final StockPriceDispatcher stockPriceDispatcher; // 링 버퍼 → 샤드별 평가 스레드
+    private final StockPriceService stockPriceService;       // 공백 보정용 REST 현재가
+    private final StockSymbolTable symbols;
+    private final StockPriceProcessor stockPriceProcessor;   // 체결 구독이 필요한 종목인지 판단
+    private final AlertPartitionManager partitions;          // 이 노드가 맡은 종목만 구독
     private volatile boolean isApplicationShuttingDown = false;
 
-
-    @Value("${koreainvest.approval-key}")
-    private String approvalKey;
-
-    private Session session;
-    private ScheduledExecutorService heartbeatExecutor;
-
     // 현재 구독 중인 종목들을 추적
     private final Set<String> subscribedStocks = ConcurrentHashMap.newKeySet();
+    // 체결도 구독 중인 종목들
+    private final Set<String> tradeStocks = ConcurrentHashMap.newKeySet();
 
-    // 구독 대기열 (연결 후 처리)
-    private final Queue<String> pendingSubscriptions = new LinkedList<>();
-    private final Queue<String> pendingUnsubscriptions = new LinkedList<>();
+    // 모든 종목이 같은 listener 인스턴스를 쓴다 (해제 시 동일 참조 필요)
+    private final RealTimeQuoteListener quoteListener = this::onQuote;
+    private final RealTimeTickListener tradeListener = this::onTrades;
 
     @PostConstruct
     public void connect() {
-        try {
-            WebSocketContainer container = ContainerProvider.getWebSocketContainer();
-            container.connectToServer(this, new URI("ws://ops.koreainvestment.com:21000/WebSocket"));
-        } catch (Exception e) {
-            e.printStackTrace();
-        }
-    }
-
-    @OnOpen
-    public void onOpen(Session session) {
-        this.session = session;
-        System.out.println("[ALARM-OPEN] 알람 WebSocket 연결됨");
-
-        // 승인 요청
-        session.getAsyncRemote().sendText(approvalJson());
-
-        // 1초 후 알람 설정된 종목들만 구독
-        Executors.newSingleThreadScheduledExecutor().schedule(() -> {
-            subscribeToAlertStocks();
-        }, 1, TimeUnit.SECONDS);
-
-        startHeartbeat();
+        // 알람 설정된 종목들만 구독
+        subscribeToAlertStocks();
     }
 
-    @OnMessage
-    public void onMessage(String message) {
-//        System.out.println("[ALARM-RECEIVED] " + message);
-
+    /**
+     * 게이트웨이 콜백 – 호가 1건마다 호출 (게이트웨이 수신 스레드)
+     */
+    void onQuote(RealTimeQuote quote) {
         if (isApplicationShuttingDown) {
             return; // 종료 중이면 처리 중단
         }
 
-
         try {
-            // JSON 메시지일 경우 pass
-            if (message.trim().startsWith("{")) {
-                System.out.println("[ALARM-INFO] JSON 메시지 수신 (승인 관련)");
-                return;
-            }
-
-            String[] parts = message.split("\\|");
-            if (parts.length < 4) {
-                System.out.println("[ALARM-WARN] 메시지 형식 오류 - 파트 수: " + parts.length);
-                return;
-            }
-
-            String trId = parts[1];
-            String seq = parts[2];
-            String payload = parts[3];
-
-//            System.out.println("[ALARM-DEBUG] tr_id: " + trId + ", seq: " + seq);
-
-            // 호가 데이터 처리
-            if (!"H0STASP0".equals(trId)) {
-                System.out.println("[ALARM-WARN] 예상하지 못한 tr_id: " + trId);
-                return;
-            }
-
-            String[] fields = payload.split("\\^");
-//            System.out.println("[ALARM-DEBUG] 파싱된 필드 수: " + fields.length);
-
-            // 필드 수 체크 (호가 데이터는 보통 50개 이상)
-            if (fields.length < 23) {
-//                System.out.println("[ALARM-WARN] 호가 데이터 필드 수 부족: " + fields.length);
-                return;
-            }
-
-            // 🔥 호가 데이터 구조에 맞게 파싱
-            String stockCode = fields[0];
-            String time = fields[1];
-
-            // 🔥 호가 정보 파싱
-            int askPrice1 = Integer.parseInt(fields[3]);  // 매도1호가
-            int askPrice2 = Integer.parseInt(fields[4]);  // 매도2호가
-            int bidPrice1 = Integer.parseInt(fields[13]); // 매수1호가
-            int bidPrice2 = Integer.parseInt(fields[14]); // 매수2호가
-
             // 🔥 현재가 추정 로직 (매수1호가 사용)
-            int estimatedCurrentPrice = bidPrice1;
-
-            // 데이터 구성
-            Map<String, Object> data = new LinkedHashMap<>();
-            data.put("stock_code", stockCode);
-            data.put("time", time);
-            data.put("ask_price_1", askPrice1);
-            data.put("ask_price_2", askPrice2);
-            data.put("bid_price_1", bidPrice1);
-            data.put("bid_price_2", bidPrice2);
-            data.put("current_price", estimatedCurrentPrice);
-            data.put("spread", askPrice1 - bidPrice1);
-
-            // 전체 메시지 JSON 구성
-            Map<String, Object> jsonMessage = new LinkedHashMap<>();
-            jsonMessage.put("tr_id", trId);
-            jsonMessage.put("seq", seq);
-            jsonMessage.put("data", data);
-
-            // JSON 출력
-            ObjectMapper objectMapper = new ObjectMapper();
-            String json = objectMapper.writerWithDefaultPrettyPrinter().writeValueAsString(jsonMessage);
-//            System.out.println("[ALARM-JSON] " + json);
-
-            // 🔥 알람 처리: 추정 현재가 사용 (이벤트 발행)
-//            System.out.println("[ALARM-PROCESS] 종목: " + stockCode + ", 매도1호가: " + askPrice1 + ", 매수1호가: " + bidPrice1 + ", 추정현재가: " + estimatedCurrentPrice);
-
-            // 🔥 이벤트 발행으로 StockPriceProcessor에 전달
-            if (!isApplicationShuttingDown) {
-                eventPublisher.publishEvent(new StockPriceEvent(stockCode, estimatedCurrentPrice));
-            }
+            int estimatedCurrentPrice = quote.getBidPrice1();
+
+            // 🔥 링 버퍼에 넣기만 하고 반환 – 평가는 종목별 샤드 스레드에서 StockPriceProcessor 가 수행
+            stockPriceDispatcher.publishQuote(quote.getSymbolId(), estimatedCurrentPrice, quote.getAskPrice1());
 
         } catch (Exception e) {
-            if (e.getMessage().contains("Singleton bean creation not allowed")) {
+            if (e.getMessage() != null && e.getMessage().contains("Singleton bean creation not allowed")) {
                 isApplicationShuttingDown = true;
                 return;
             }
-            System.err.println("[ALARM-ERROR] 메시지 처리 중 오류: " + e.getMessage());
-            e.printStackTrace();
+            log.error("[ALARM-ERROR] 메시지 처리 중 오류", e);
         }
     }
 
-    @OnClose
-    public void onClose(Session session, CloseReason reason) {
-        System.out.println("[ALARM-CLOSE] 알람 세션 종료: " + reason);
-        System.out.println("[ALARM-CLOSE CODE] " + reason.getCloseCode().getCode());
-        stopHeartbeat();
+    /**
+     * 게이트웨이 콜백 – 체결 묶음 (등락률 · 거래량 지표용)
+     */
+    void onTrades(RealTimeTickBatch batch) {
+        if (isApplicationShuttingDown) return;
+
+        for (int i = 0; i < batch.size(); i++) {
+            RealTimeTick tick = batch.get(i);
+            stockPriceDispatcher.publishTrade(tick.getSymbolId(), tick.getPrice(), tick.getChangeRate(), tick.getVolume());
+        }
     }
 
-    @OnError
-    public void onError(Session session, Throwable throwable) {
-        System.err.println("[ALARM-ERROR] 알람 WebSocket 에러 발생: " + throwable.getMessage());
-        throwable.printStackTrace();
-        stopHeartbeat();
+    // 🔥 재연결 후 공백 보정 – KIS REST 호출 제한을 넘지 않도록 종목마다 간격을 둔다
+    private static final Duration SNAPSHOT_INTERVAL = Duration.ofMillis(100);
+
+    @EventListener
+    public void onFeedGap(KisFeedGapEvent event) {
+        List<String> codes = event.gapsOf(KisWebSocketClient.TR_QUOTE).stream()
+                .map(gap -> gap.subscription().trKey())
+                .filter(subscribedStocks::contains)
+                .toList();
+        if (codes.isEmpty() || isApplicationShuttingDown) return;
+
+        log.info("[ALARM-GAP] 수신 공백 보정 대상 종목 수: {}", codes.size());
+
+        Flux.fromIterable(codes)
+                .delayElements(SNAPSHOT_INTERVAL)
+                .concatMap(code -> stockPriceService.getStockPrice(code)
+                        .doOnNext(dto -> publishSnapshot(code, dto.getOutput().getPrice()))
+                        .onErrorResume(e -> {
+                            log.warn("[ALARM-GAP] 공백 보정 현재가 조회 실패: {} - {}", code, e.toString());
+                            return Mono.empty();
+                        }))
+                .subscribe();
+    }
+
+    private void publishSnapshot(String stockCode, String price) {
+        if (price == null || price.isBlank()) return;
+        stockPriceDispatcher.publishSnapshot(symbols.idOf(stockCode), Integer.parseInt(price.trim()));
     }
 
     // 종료 시 호출
@@ -190,69 +137,68 @@ public class KisWebSocketClientAlarm {
     private void subscribeToAlertStocks() {
         try {
             // 활성화된 알람 설정에서 종목 코드 추출
-            List<String> alertStockCodes = stockAlertSettingRepository.findActiveStockCodes();
+            List<String> alertStockCodes = stockAlertSettingRepository.findActiveStockCodes().stream()
+                    .filter(partitions::owns)
+                    .toList();
 
-            System.out.println("[ALARM-SUBSCRIBE] 알람 설정된 종목 수: " + alertStockCodes.size());
+            log.info("[ALARM-SUBSCRIBE] 알람 설정된 종목 수: {}", alertStockCodes.size());
 
             for (String code : alertStockCodes) {
-                if (this.session != null && this.session.isOpen()) {
-                    String subscribeMsg = subscribeJson(code);
-                    this.session.getAsyncRemote().sendText(subscribeMsg);
-                    subscribedStocks.add(code);
-                    System.out.println("[ALARM-SUBSCRIBE] 구독 요청 전송: " + code);
-                } else {
-                    System.out.println("[ALARM-WARN] 세션이 닫혀 있어 subscribe 실패");
-                }
+                addSubscription(code);
             }
         } catch (Exception e) {
-            System.err.println("[ALARM-ERROR] 알람 종목 구독 중 오류: " + e.getMessage());
-            e.printStackTrace();
+            log.error("[ALARM-ERROR] 알람 종목 구독 중 오류", e);
         }
     }
 
     // 🔥 동적 구독 추가
     public void addSubscription(String stockCode) {
-        if (subscribedStocks.contains(stockCode)) {
-            System.out.println("[ALARM-INFO] 이미 구독 중인 종목: " + stockCode);
+        if (!subscribedStocks.add(stockCode)) {
+            syncTradeFeed(stockCode);   // 조건 종류가 바뀌었을 수 있다
+            log.debug("[ALARM-INFO] 이미 구독 중인 종목: {}", stockCode);
             return;
         }
 
-        if (this.session != null && this.session.isOpen()) {
-            String subscribeMsg = subscribeJson(stockCode);
-            this.session.getAsyncRemote().sendText(subscribeMsg);
-            subscribedStocks.add(stockCode);
-            System.out.println("[ALARM-ADD] 새 종목 구독: " + stockCode);
-        } else {
-            pendingSubscriptions.offer(stockCode);
-            System.out.println("[ALARM-PENDING] 구독 대기열에 추가: " + stockCode);
-        }
+        kisClient.queueSubscribe(stockCode, quoteListener);
+        syncTradeFeed(stockCode);
+        log.info("[ALARM-ADD] 새 종목 구독: {}", stockCode);
     }
 
     // 🔥 동적 구독 해제
     public void removeSubscription(String stockCode) {
-        if (!subscribedStocks.contains(stockCode)) {
-            System.out.println("[ALARM-INFO] 구독하지 않은 종목: " + stockCode);
+        if (!subscribedStocks.remove(stockCode)) {
+            log.debug("[ALARM-INFO] 구독하지 않은 종목: {}", stockCode);
             return;
         }
 
-        if (this.session != null && this.session.isOpen()) {
-            String unsubscribeMsg = unsubscribeJson(stockCode);
-            this.session.getAsyncRemote().sendText(unsubscribeMsg);
-            subscribedStocks.remove(stockCode);
-            System.out.println("[ALARM-REMOVE] 종목 구독 해제: " + stockCode);
-        } else {
-            pendingUnsubscriptions.offer(stockCode);
-            System.out.println("[ALARM-PENDING] 구독 해제 대기열에 추가: " + stockCode);
+        kisClient.queueUnsubscribe(stockCode, quoteListener);
+        if (tradeStocks.remove(stockCode)) {
+            kisClient.queueUnsubscribe(KisWebSocketClient.TR_TRADE_KRX, stockCode, tradeListener);
+        }
+        log.info("[ALARM-REMOVE] 종목 구독 해제: {}", stockCode);
+    }
+
+    // 🔥 등락률 · 거래량 조건 유무에 맞춰 체결 구독 추가/해제
+    private void syncTradeFeed(String stockCode) {
+        boolean needed = stockPriceProcessor.needsTradeFeed(stockCode);
+        if (needed && tradeStocks.add(stockCode)) {
+            kisClient.queueSubscribe(KisWebSocketClient.TR_TRADE_KRX, stockCode, tradeListener);
+            log.info("[ALARM-ADD] 체결 구독: {}", stockCode);
+        } else if (!needed && tradeStocks.remove(stockCode)) {
+            kisClient.queueUnsubscribe(KisWebSocketClient.TR_TRADE_KRX, stockCode, tradeListener);
+            log.info("[ALARM-REMOVE] 체결 구독 해제: {}", stockCode);
         }
     }
 
     // 🔥 전체 구독 새로고침
     public void refreshSubscriptions() {
         try {
-            System.out.println("[ALARM-REFRESH] 구독 목록 새로고침 시작");
+            log.info("[ALARM-REFRESH] 구독 목록 새로고침 시작");
 
             // 현재 활성화된 알람 종목들 조회
-            List<String> currentAlertStocks = stockAlertSettingRepository.findActiveStockCodes();
+            List<String> currentAlertStocks = stockAlertSettingRepository.findActiveStockCodes().stream()
+                    .filter(partitions::owns)
+                    .toList();
             Set<String> newStockSet = new HashSet<>(currentAlertStocks);
 
             // 구독 해제할 종목들 (기존 구독 중이지만 알람이 없는 종목들)
@@ -273,83 +219,15 @@ public class KisWebSocketClientAlarm {
                 addSubscription(stockCode);
             }
 
-            System.out.println("[ALARM-REFRESH] 구독 새로고침 완료 - 해제: " + toUnsubscribe.size() + ", 추가: " + toSubscribe.size());
-
-        } catch (Exception e) {
-            System.err.println("[ALARM-ERROR] 구독 새로고침 중 오류: " + e.getMessage());
-            e.printStackTrace();
-        }
-    }
+            // 유지되는 종목도 체결 구독 여부 재확인
+            for (String stockCode : subscribedStocks) {
+                syncTradeFeed(stockCode);
+            }
 
-    private void startHeartbeat() {
-        System.out.println("[ALARM-INFO] 알람 하트비트 비활성화 - 서버 자체 PINGPONG 사용");
-    }
+            log.info("[ALARM-REFRESH] 구독 새로고침 완료 - 해제: {}, 추가: {}", toUnsubscribe.size(), toSubscribe.size());
 
-    private void stopHeartbeat() {
-        if (heartbeatExecutor != null && !heartbeatExecutor.isShutdown()) {
-            heartbeatExecutor.shutdown();
+        } catch (Exception e) {
+            log.error("[ALARM-ERROR] 구독 새로고침 중 오류", e);
         }
     }
-
-    private String approvalJson() {
-        return """
-                  {
-                    "header": {
-                      "approval_key": "%s",
-                      "custtype": "P",
-                      "tr_type": "1",
-                      "content-type": "utf-8"
-                    },
-                    "body": {
-                      "input": {
-                          "tr_id": "H0STASP0",
-                          "tr_key": "005930"
-                      }
-                    }
-                  }
-                  """.formatted(approvalKey);
-    }
-
-    private String subscribeJson(String stockCode) {
-        return """
-                  {
-                    "header": {
-                      "approval_key": "%s",
-                      "custtype": "P",
-                      "tr_type": "1",
-                      "content-type": "utf-8",
-                      "tr_id": "H0STASP0",
-                      "tr_key": "%s"
-                    },
-                    "body": {
-                      "input": {
-                        "tr_id": "H0STASP0",
-                        "tr_key": "%s"
-                      }
-                    }
-                  }
-                  """.formatted(approvalKey, stockCode, stockCode);
-    }
-
-    // 🔥 구독 해제용 JSON
-    private String unsubscribeJson(String stockCode) {
-        return """
-                  {
-                    "header": {
-                      "approval_key": "%s",
-                      "custtype": "P",
-                      "tr_type": "2",
-                      "content-type": "utf-8",
-                      "tr_id": "H0STASP0",
-                      "tr_key": "%s"
-                    },
-                    "body": {
-                      "input": {
-                        "tr_id": "H0STASP0",
-                        "tr_key": "%s"
-                      }
-                    }
-                  }
-                  """.formatted(approvalKey, stockCode, stockCode);
-    }
-}
\ No newline at end of file
+}
@@ -0,0 +1,73 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 종목별 최신가 우편함 (conflation) – 샤드 평가 스레드 하나가 전용으로 쓴다.
+ * <p>
+ * 링에서 꺼낸 틱을 바로 평가하지 않고 종목별 슬롯에 합쳐 두었다가, 한 사이클에 종목당 한 번만 평가한다.
+ * 마지막 평가 이후의 고가/저가를 같이 들고 있으므로 ABOVE 는 고가, BELOW 는 저가로 비교하면
+ * 중간 틱을 건너뛰어도 목표가 돌파를 놓치지 않는다.
+ * 메모리는 종목 수만큼만 쓰고 틱 속도와는 무관하다. 슬롯은 심볼 ID 로 바로 인덱싱한다.
+ */
+final class PriceConflator {
+
+    @FunctionalInterface
+    interface UpdateHandler {
+        void onUpdate(int symbolId, int lastPrice, int highPrice, int lowPrice, long firstReceivedNanos);
+    }
+
+    private static final class Slot {
+        private final int symbolId;
+        private int last;
+        private int high;
+        private int low;
+        private long firstReceivedNanos;   // 이번 사이클에 합쳐진 틱 중 가장 먼저 받은 시각
+        private boolean dirty;
+
+        private Slot(int symbolId) {
+            this.symbolId = symbolId;
+        }
+    }
+
+    private Slot[] slots = new Slot[256];
+    private final List<Slot> dirty = new ArrayList<>();
+
+    void offer(int symbolId, int price, long receivedNanos) {
+        if (symbolId >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(slots.length * 2, symbolId + 1));
+        }
+        Slot slot = slots[symbolId];
+        if (slot == null) {
+            slot = new Slot(symbolId);
+            slots[symbolId] = slot;
+        }
+
+        if (slot.dirty) {
+            slot.last = price;
+            if (price > slot.high) slot.high = price;
+            if (price < slot.low) slot.low = price;
+        } else {
+            slot.last = slot.high = slot.low = price;
+            slot.firstReceivedNanos = receivedNanos;
+            slot.dirty = true;
+            dirty.add(slot);
+        }
+    }
+
+    /**
+     * 변경된 종목마다 합쳐진 업데이트를 한 번씩 넘기고 비운다.
+     */
+    int flush(UpdateHandler handler) {
+        int n = dirty.size();
+        for (int i = 0; i < n; i++) {
+            Slot slot = dirty.get(i);
+            slot.dirty = false;
+            handler.onUpdate(slot.symbolId, slot.last, slot.high, slot.low, slot.firstReceivedNanos);
+        }
+        dirty.clear();
+        return n;
+    }
+}
@@ -0,0 +1,134 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * 다중 생산자 / 단일 소비자 링 버퍼 (disruptor 스타일, 미리 할당된 슬롯)
+ * <p>
+ * 슬롯은 (심볼 ID, 종류, 가격, 보조값, 거래량, 수신 시각 nanoTime) primitive 병렬 배열이라 틱마다 객체를 만들지 않는다.
+ * 호가는 (매수1호가, 매도1호가), 체결은 (체결가, 등락률 bp, 체결량)을 담는다.
+ * KIS 세션마다 수신 스레드가 따로 있으므로, 생산자는 {@code claimed} 를 CAS 로 올려 시퀀스를 하나 확보하고
+ * 슬롯을 채운 뒤 그 슬롯의 {@code available} 칸에 시퀀스를 lazySet(release) 한다.
+ * 소비자는 시퀀스 순서대로 {@code available} 이 자기 시퀀스와 같은지 확인(acquire)하고 읽으므로,
+ * 먼저 확보했지만 아직 다 쓰지 않은 슬롯이 있으면 거기서 멈추고 다음 drain 에서 이어 간다.
+ * 가득 차면 기다리지 않고 false 를 돌려준다. (수신 스레드를 막지 않기 위해)
+ * <p>
+ * 비어 있으면 소비자는 {@link #park} 로 잠들고, 생산자는 소비자가 잠든 경우에만 {@link #offer} 끝에서 깨운다.
+ * (소비자가 깨어 있는 동안 생산자 비용은 volatile 읽기 한 번)
+ */
+final class PriceTickRing {
+
+    static final byte QUOTE = 0;   // price = 매수1호가, aux = 매도1호가
+    static final byte TRADE = 1;   // price = 체결가, aux = 등락률 bp, volume = 체결량
+
+    @FunctionalInterface
+    interface SlotHandler {
+        void onSlot(int symbolId, byte kind, int price, int aux, long volume, long receivedNanos);
+    }
+
+    private final int capacity;
+    private final int mask;
+    private final int[] symbolIds;
+    private final byte[] kinds;
+    private final int[] prices;
+    private final int[] auxes;
+    private final long[] volumes;
+    private final long[] receivedNanos;
+
+    private final AtomicLongArray available;                // 슬롯별 마지막으로 다 쓴 시퀀스 (-1 = 없음)
+
+    private final AtomicLong claimed = new AtomicLong();    // 다음에 확보할 시퀀스 (생산자들이 CAS 로 증가)
+    private final AtomicLong consumed = new AtomicLong();   // 다음에 읽을 시퀀스 (소비자만 증가)
+
+    private volatile Thread consumer;
+    private volatile boolean parked;   // 소비자가 잠들었거나 잠들려는 중
+
+    PriceTickRing(int capacity) {
+        if (Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity 는 2의 거듭제곱이어야 합니다: " + capacity);
+        }
+        this.capacity = capacity;
+        this.mask = capacity - 1;
+        this.symbolIds = new int[capacity];
+        this.kinds = new byte[capacity];
+        this.prices = new int[capacity];
+        this.auxes = new int[capacity];
+        this.volumes = new long[capacity];
+        this.receivedNanos = new long[capacity];
+        this.available = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) available.set(i, -1L);
+    }
+
+    /**
+     * 여러 생산자 스레드에서 동시에 호출 가능
+     */
+    boolean offer(int symbolId, byte kind, int price, int aux, long volume, long nanos) {
+        long seq;
+        do {
+            seq = claimed.get();
+            if (seq - consumed.get() >= capacity) return false;
+        } while (!claimed.compareAndSet(seq, seq + 1));
+
+        int i = (int) seq & mask;
+        symbolIds[i] = symbolId;
+        kinds[i] = kind;
+        prices[i] = price;
+        auxes[i] = aux;
+        volumes[i] = volume;
+        receivedNanos[i] = nanos;
+        available.lazySet(i, seq);
+        wakeConsumer();
+        return true;
+    }
+
+    /**
+     * 잠든 소비자를 깨운다. 링 밖의 일(보조 큐 등)을 넣은 스레드도 부른다.
+     */
+    void wakeConsumer() {
+        if (parked) LockSupport.unpark(consumer);
+    }
+
+    /**
+     * 소비자 스레드 전용 – 링과 {@code otherWork} 가 모두 비어 있으면 생산자가 깨울 때까지 (최대 {@code maxNanos}) 잠든다.
+     * <p>
+     * parked 를 먼저 세우고 비었는지 다시 본다. 생산자는 시퀀스 확보(CAS) 뒤 parked 를 읽으므로
+     * 둘 중 하나는 반드시 상대의 쓰기를 본다. (깨우기를 놓치지 않는다 – maxNanos 는 안전망)
+     */
+    void park(long maxNanos, BooleanSupplier otherWork) {
+        consumer = Thread.currentThread();
+        parked = true;
+        try {
+            if (depth() == 0 && !otherWork.getAsBoolean()) LockSupport.parkNanos(this, maxNanos);
+        } finally {
+            parked = false;
+        }
+    }
+
+    /**
+     * 소비자 스레드 전용 – 최대 {@code max} 건을 꺼내 처리하고 처리 건수를 돌려준다.
+     */
+    int drain(SlotHandler handler, int max) {
+        long seq = consumed.get();
+        int n = 0;
+        while (n < max) {
+            int i = (int) seq & mask;
+            if (available.get(i) != seq) break;   // 아직 확보 안 됐거나 쓰는 중
+            handler.onSlot(symbolIds[i], kinds[i], prices[i], auxes[i], volumes[i], receivedNanos[i]);
+            seq++;
+            n++;
+        }
+        if (n > 0) consumed.lazySet(seq);
+        return n;
+    }
+
+    long depth() {
+        return claimed.get() - consumed.get();
+    }
+
+    int capacity() {
+        return capacity;
+    }
+}
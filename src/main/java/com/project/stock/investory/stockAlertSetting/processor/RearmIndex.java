@@ -0,0 +1,273 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockAlertSetting.model.AlertCondition;
+import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+import com.project.stock.investory.stockAlertSetting.model.PriceSource;
+import com.project.stock.investory.stockInfo.util.SymbolIndexedArray;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+import java.util.function.Predicate;
+
+/**
+ * 반복 알람의 재무장 상태 – 발송된 조건은 DB 를 건드리지 않고 여기서 쉬었다가 다시 조건 목록으로 돌아간다.
+ * <p>
+ * 재무장 조건은 두 가지:
+ * <ol>
+ *     <li>되돌림 – 목표가 조건은 가격이 반대 방향으로 {@code rearmBp} 만큼 되돌아와야 한다.
+ *     되돌림 가격을 키로 한 {@link ThresholdBook} 에 넣어 두고 평가 스레드가 구간 고가/저가로 꺼낸다. (조건 수와 무관)
+ *     되돌림은 조건의 가격 기준({@link PriceSource})으로 본다.</li>
+ *     <li>쿨다운 – 마지막 발송 후 {@code cooldownMillis} 가 지나야 한다. 지표 조건은 쿨다운만 본다.</li>
+ * </ol>
+ * 둘 다 만족한 조건은 {@link #takeDue(long)} 로 꺼내 원래 목록에 다시 넣는다.
+ * <p>
+ * 상태 변화는 체크포인트 대기열에 쌓였다가 주기적으로 한 번에 기록된다. (is_armed, last_triggered_at)
+ * 재기동하면 체크포인트 기준으로 복원하고, 되돌림 여부는 알 수 없으므로 다시 되돌림부터 기다린다.
+ */
+final class RearmIndex {
+
+    static final class Disarmed {
+        final AlertCondition condition;
+        final int symbolId;
+        final long firedAtMillis;
+        volatile boolean bandCleared;   // 되돌림 완료 (또는 되돌림 조건 없음)
+
+        private Disarmed(AlertCondition condition, int symbolId, long firedAtMillis, boolean bandCleared) {
+            this.condition = condition;
+            this.symbolId = symbolId;
+            this.firedAtMillis = firedAtMillis;
+            this.bandCleared = bandCleared;
+        }
+
+        boolean isDue(long nowMillis) {
+            return bandCleared && nowMillis - firedAtMillis >= condition.getCooldownMillis();
+        }
+    }
+
+    /**
+     * 기록할 상태 1건
+     */
+    record Checkpoint(boolean armed, LocalDateTime lastTriggeredAt) {
+    }
+
+    // 설정 ID → 쉬고 있는 조건
+    private final Map<Long, Disarmed> disarmed = new ConcurrentHashMap<>();
+    // 가격 기준별 – 이상 조건의 되돌림 (저가가 되돌림 가격 이하) / 이하 조건의 되돌림 (고가가 되돌림 가격 이상)
+    private final SymbolIndexedArray<ThresholdBook>[] pullbackUnder = SymbolIndexedArray.arrayOf(PriceSource.values().length);
+    private final SymbolIndexedArray<ThresholdBook>[] pullbackOver = SymbolIndexedArray.arrayOf(PriceSource.values().length);
+    // 아직 기록하지 않은 상태 변화
+    private final Map<Long, Checkpoint> pending = new ConcurrentHashMap<>();
+    // 설정 ID → 지금 무장 회차를 연 발송 시각 (발송된 적 있는 무장 조건만) – 멱등 키의 회차
+    private final Map<Long, Long> armedAfter = new ConcurrentHashMap<>();
+
+    /* 메트릭 */
+    private final LongAdder disarms = new LongAdder();
+    private final LongAdder rearms = new LongAdder();
+
+    /* ------------------------------------------------------------------ */
+    /* 평가 스레드                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 발송한 반복 조건을 쉬게 한다.
+     */
+    void disarm(int symbolId, AlertCondition condition, long nowMillis) {
+        put(symbolId, condition, nowMillis);
+        pending.put(condition.getSettingId(), new Checkpoint(false, toDateTime(nowMillis)));
+        disarms.increment();
+    }
+
+    /**
+     * 구간 고가/저가로 되돌림을 확인 – 대부분은 비교 한 번으로 끝난다.
+     */
+    void checkPullback(int symbolId, PriceSource source, int highPrice, int lowPrice) {
+        ThresholdBook under = pullbackUnder[source.ordinal()].get(symbolId);
+        if (under != null) markCleared(under.takeReached(lowPrice));
+        ThresholdBook over = pullbackOver[source.ordinal()].get(symbolId);
+        if (over != null) markCleared(over.takeReached(highPrice));
+    }
+
+    /**
+     * 이 가격 기준으로 되돌림을 기다리는 조건이 있는지
+     */
+    boolean watches(int symbolId, PriceSource source) {
+        ThresholdBook under = pullbackUnder[source.ordinal()].get(symbolId);
+        ThresholdBook over = pullbackOver[source.ordinal()].get(symbolId);
+        return (under != null && !under.isEmpty()) || (over != null && !over.isEmpty());
+    }
+
+    boolean isDisarmed(long settingId) {
+        return disarmed.containsKey(settingId);
+    }
+
+    /**
+     * 무장 회차 – 이 회차를 연 직전 발송 시각 (체크포인트의 last_triggered_at), 발송된 적 없으면 -1.
+     * 시계가 아니라 기록된 발송 시각이라 같은 회차를 평가하는 두 노드가 같은 값을 얻는다.
+     */
+    long cycleOf(long settingId) {
+        return armedAfter.getOrDefault(settingId, -1L);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 재무장 · 복원 · 정리                                                  */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 되돌림과 쿨다운을 모두 채운 조건을 꺼낸다. (쉬는 조건 수만큼 돈다 – 발송된 반복 조건만 있으므로 작다)
+     */
+    List<Disarmed> takeDue(long nowMillis) {
+        List<Disarmed> due = new ArrayList<>();
+        for (Iterator<Disarmed> it = disarmed.values().iterator(); it.hasNext(); ) {
+            Disarmed d = it.next();
+            if (!d.isDue(nowMillis)) continue;
+            it.remove();
+            due.add(d);
+            armedAfter.put(d.condition.getSettingId(), d.firedAtMillis);
+            pending.put(d.condition.getSettingId(), new Checkpoint(true, toDateTime(d.firedAtMillis)));
+            rearms.increment();
+        }
+        return due;
+    }
+
+    /**
+     * 로드 시 – 쉬고 있어야 하는 조건이면 true (조건 목록에 넣지 않는다)
+     * 메모리 상태 → 아직 기록 안 된 체크포인트 → DB 체크포인트 순으로 본다.
+     */
+    boolean restore(int symbolId, AlertCondition condition, Integer isArmed, LocalDateTime lastTriggeredAt) {
+        long settingId = condition.getSettingId();
+        if (disarmed.containsKey(settingId)) return true;
+
+        Checkpoint unsaved = pending.get(settingId);
+        boolean armed = unsaved != null ? unsaved.armed() : isArmed == null || isArmed == 1;
+        LocalDateTime firedAt = unsaved != null ? unsaved.lastTriggeredAt() : lastTriggeredAt;
+        if (firedAt == null) return false;
+
+        long firedAtMillis = firedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
+        if (armed) {
+            armedAfter.put(settingId, firedAtMillis);
+            return false;
+        }
+        put(symbolId, condition, firedAtMillis);
+        return true;
+    }
+
+    /**
+     * 설정이 수정·삭제됐을 때 – 쉬던 상태와 기록 대기를 버린다. (수정은 서비스가 is_armed = 1 로 저장)
+     */
+    void forget(long settingId) {
+        Disarmed d = disarmed.remove(settingId);
+        pending.remove(settingId);
+        armedAfter.remove(settingId);
+        if (d == null) return;
+        int source = d.condition.getPriceSource().ordinal();
+        ThresholdBook under = pullbackUnder[source].get(d.symbolId);
+        if (under != null) under.remove(settingId);
+        ThresholdBook over = pullbackOver[source].get(d.symbolId);
+        if (over != null) over.remove(settingId);
+    }
+
+    /**
+     * 조건에 맞는 쉬는 조건을 모두 버린다 (다른 노드로 넘어간 종목 등)
+     */
+    void forgetIf(Predicate<AlertCondition> filter) {
+        for (Disarmed d : List.copyOf(disarmed.values())) {
+            if (filter.test(d.condition)) forget(d.condition.getSettingId());
+        }
+    }
+
+    /**
+     * 쉬고 있는 조건과 마지막 발송 시각 (인덱스 스냅샷용)
+     */
+    void forEachDisarmed(BiConsumer<AlertCondition, Long> action) {
+        disarmed.values().forEach(d -> action.accept(d.condition, d.firedAtMillis));
+    }
+
+    boolean hasAny(int symbolId) {
+        for (Disarmed d : disarmed.values()) {
+            if (d.symbolId == symbolId) return true;
+        }
+        return false;
+    }
+
+    boolean needsTradeFeed(int symbolId) {
+        for (Disarmed d : disarmed.values()) {
+            if (d.symbolId == symbolId && d.condition.needsTradeFeed()) return true;
+        }
+        return false;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 체크포인트                                                           */
+    /* ------------------------------------------------------------------ */
+
+    Map<Long, Checkpoint> pendingCheckpoints() {
+        return pending.isEmpty() ? Collections.emptyMap() : new HashMap<>(pending);
+    }
+
+    /**
+     * 기록이 끝난 상태만 지운다 – 그 사이 다시 바뀐 건 다음 주기에 기록
+     */
+    void confirmCheckpoints(Map<Long, Checkpoint> written) {
+        written.forEach(pending::remove);
+    }
+
+    int disarmedCount() {
+        return disarmed.size();
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("disarmed", disarmed.size());
+        stats.put("pendingCheckpoints", pending.size());
+        stats.put("disarms", disarms.sum());
+        stats.put("rearms", rearms.sum());
+        return stats;
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private void put(int symbolId, AlertCondition condition, long firedAtMillis) {
+        ConditionType type = condition.getCondition();
+        int band = condition.getRearmBp();
+        boolean needsPullback = type.isPriceTarget() && band > 0;
+
+        Disarmed d = new Disarmed(condition, symbolId, firedAtMillis, !needsPullback);
+        disarmed.put(condition.getSettingId(), d);
+        if (!needsPullback) return;
+
+        // 되돌림 가격을 키로 하는 대리 조건 (설정 ID 는 같다)
+        long target = condition.getTargetPrice();
+        int source = condition.getPriceSource().ordinal();
+        if (type == ConditionType.ABOVE) {
+            int pullback = (int) Math.max(1, target - target * band / 10_000);
+            pullbackUnder[source].computeIfAbsent(symbolId, id -> ThresholdBook.descending())
+                    .add(condition.toBuilder().targetPrice(pullback).build());
+        } else {
+            int pullback = (int) Math.min(Integer.MAX_VALUE, target + target * band / 10_000);
+            pullbackOver[source].computeIfAbsent(symbolId, id -> ThresholdBook.ascending())
+                    .add(condition.toBuilder().targetPrice(pullback).build());
+        }
+    }
+
+    private void markCleared(List<AlertCondition> reached) {
+        for (AlertCondition proxy : reached) {
+            Disarmed d = disarmed.get(proxy.getSettingId());
+            if (d != null) d.bandCleared = true;
+        }
+    }
+
+    private static LocalDateTime toDateTime(long epochMillis) {
+        return LocalDateTime.ofInstant(Instant.ofEpochMilli(epochMillis), ZoneId.systemDefault());
+    }
+}
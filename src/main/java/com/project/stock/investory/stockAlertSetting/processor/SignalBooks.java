@@ -0,0 +1,108 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockAlertSetting.model.AlertCondition;
+import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Consumer;
+
+/**
+ * 한 종목의 지표 조건 목록 – 지표마다 기준값 오름차순 {@link ThresholdBook} 하나씩
+ * <p>
+ * 지표값(등락률 bp, 거래량 비율 %, 스프레드 bp)이 다음 기준값 이상일 때만 조건을 꺼내므로 틱마다 조건 수만큼 돌지 않는다.
+ * 이동평균 돌파는 기간별 목록에 넣어 두고, 그 기간에 돌파가 일어난 사이클에 목록 전체를 꺼낸다.
+ * (목록 안의 기준값은 모두 같은 기간이라 기간 값으로 꺼내면 전부 나온다)
+ */
+final class SignalBooks {
+
+    final ThresholdBook percentUp = ThresholdBook.ascending();     // 등락률 bp
+    final ThresholdBook percentDown = ThresholdBook.ascending();   // 하락률 bp (부호 반전)
+    final ThresholdBook volumeSpike = ThresholdBook.ascending();   // 분당 거래량 비율 %
+    final ThresholdBook spread = ThresholdBook.ascending();        // 스프레드 bp
+    final ThresholdBook[] crossUp = newBooks();
+    final ThresholdBook[] crossDown = newBooks();
+
+    private static ThresholdBook[] newBooks() {
+        ThresholdBook[] books = new ThresholdBook[ConditionType.MA_PERIODS.length];
+        for (int i = 0; i < books.length; i++) books[i] = ThresholdBook.ascending();
+        return books;
+    }
+
+    void addAll(List<AlertCondition> conditions) {
+        Map<ConditionType, List<AlertCondition>> byType = new EnumMap<>(ConditionType.class);
+        List<List<AlertCondition>> up = new ArrayList<>();
+        List<List<AlertCondition>> down = new ArrayList<>();
+        for (int i = 0; i < crossUp.length; i++) {
+            up.add(new ArrayList<>());
+            down.add(new ArrayList<>());
+        }
+
+        for (AlertCondition c : conditions) {
+            switch (c.getCondition()) {
+                case MA_CROSS_ABOVE -> up.get(ConditionType.maPeriodIndex(c.getTargetPrice())).add(c);
+                case MA_CROSS_BELOW -> down.get(ConditionType.maPeriodIndex(c.getTargetPrice())).add(c);
+                default -> byType.computeIfAbsent(c.getCondition(), t -> new ArrayList<>()).add(c);
+            }
+        }
+
+        byType.forEach((type, list) -> {
+            ThresholdBook book = bookFor(type);
+            if (book != null) book.addAll(list);
+        });
+        for (int i = 0; i < crossUp.length; i++) {
+            crossUp[i].addAll(up.get(i));
+            crossDown[i].addAll(down.get(i));
+        }
+    }
+
+    private ThresholdBook bookFor(ConditionType type) {
+        return switch (type) {
+            case PERCENT_ABOVE -> percentUp;
+            case PERCENT_BELOW -> percentDown;
+            case VOLUME_SPIKE -> volumeSpike;
+            case SPREAD_ABOVE -> spread;
+            default -> null;
+        };
+    }
+
+    void remove(long settingId) {
+        if (percentUp.remove(settingId) || percentDown.remove(settingId)
+                || volumeSpike.remove(settingId) || spread.remove(settingId)) {
+            return;
+        }
+        for (int i = 0; i < crossUp.length; i++) {
+            if (crossUp[i].remove(settingId) || crossDown[i].remove(settingId)) return;
+        }
+    }
+
+    boolean isEmpty() {
+        if (!percentUp.isEmpty() || !percentDown.isEmpty() || !volumeSpike.isEmpty() || !spread.isEmpty()) {
+            return false;
+        }
+        for (int i = 0; i < crossUp.length; i++) {
+            if (!crossUp[i].isEmpty() || !crossDown[i].isEmpty()) return false;
+        }
+        return true;
+    }
+
+    void forEachPending(Consumer<AlertCondition> action) {
+        percentUp.forEachPending(action);
+        percentDown.forEachPending(action);
+        volumeSpike.forEachPending(action);
+        spread.forEachPending(action);
+        for (int i = 0; i < crossUp.length; i++) {
+            crossUp[i].forEachPending(action);
+            crossDown[i].forEachPending(action);
+        }
+    }
+
+    /**
+     * 체결 데이터(등락률·거래량)가 필요한 조건이 있는지
+     */
+    boolean needsTradeFeed() {
+        return !percentUp.isEmpty() || !percentDown.isEmpty() || !volumeSpike.isEmpty();
+    }
+}
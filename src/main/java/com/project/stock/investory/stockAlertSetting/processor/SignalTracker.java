@@ -0,0 +1,173 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 종목별 파생 지표 (등락률, 분당 거래량 비율, 이동평균 돌파, 호가 스프레드) – 샤드 평가 스레드 하나가 전용으로 쓴다.
+ * <p>
+ * {@link PriceConflator} 와 달리 링에서 꺼낸 틱을 하나도 빼지 않고 반영한다. 틱마다 하는 일은 종목 상태의
+ * 상수 개 필드 갱신(누적 합, EMA)뿐이고, 조건 수와는 무관하다. 갱신된 종목은 사이클 끝에 한 번씩 넘겨
+ * 지표값을 조건 목록({@link ThresholdBook})의 다음 기준값과 비교하게 한다.
+ * <p>
+ * 1분 구간은 수신 시각(nanoTime) 기준이다. 거래량 평균은 분당 거래량의 EMA(20분),
+ * 이동평균은 분봉 종가(매수1호가)의 EMA 로 {@link ConditionType#MA_PERIODS} 기간만 계산한다.
+ */
+final class SignalTracker {
+
+    static final long MINUTE_NANOS = 60_000_000_000L;
+    private static final int VOLUME_WARMUP_BARS = 5;                // 이만큼 분봉이 쌓이기 전엔 거래량 비율 0
+    private static final double VOLUME_ALPHA = 2.0 / (20 + 1);
+    private static final int[] PERIODS = ConditionType.MA_PERIODS;
+
+    @FunctionalInterface
+    interface SignalHandler {
+        void onSignals(Signals signals);
+    }
+
+    static final class Signals {
+        final int symbolId;
+
+        // 체결
+        boolean hasChangeRate;
+        int changeRateBp;          // 전일 대비 등락률 (+1.23% → 123)
+        int lastTradePrice;
+        private long volumeMinute = -1;
+        private long minuteVolume; // 이번 1분 누적 체결량
+        private double volumeEma;  // 지난 분봉들의 분당 거래량 EMA
+        private int volumeBars;
+
+        // 호가
+        int bid;
+        int ask;
+        private long priceMinute = -1;
+        private int priceBars;
+        private final double[] ema = new double[PERIODS.length];
+        private final byte[] side = new byte[PERIODS.length];   // 현재가가 EMA 위(1)/아래(-1), 0 = 모름
+        int crossedUp;             // 이번 사이클에 상향 돌파한 기간 (비트 = MA_PERIODS 인덱스)
+        int crossedDown;
+
+        private boolean dirty;
+
+        private Signals(int symbolId) {
+            this.symbolId = symbolId;
+        }
+
+        /**
+         * 이번 1분 거래량 / 분당 평균 × 100 – 평균이 아직 없으면 0
+         */
+        int volumeRatioPercent() {
+            if (volumeBars < VOLUME_WARMUP_BARS || volumeEma <= 0) return 0;
+            return (int) Math.min(Integer.MAX_VALUE, minuteVolume * 100 / volumeEma);
+        }
+
+        /**
+         * (매도1 - 매수1) / 중간가, bp
+         */
+        int spreadBp() {
+            if (bid <= 0 || ask <= bid) return 0;
+            return (int) ((ask - bid) * 20_000L / ((long) ask + bid));
+        }
+
+        /**
+         * 알림 문구용 현재가 – 호가(매수1)가 있으면 그것, 없으면 체결가
+         */
+        int currentPrice() {
+            return bid > 0 ? bid : lastTradePrice;
+        }
+    }
+
+    private Signals[] slots = new Signals[256];
+    private final List<Signals> dirty = new ArrayList<>();
+
+    void onTrade(int symbolId, int price, int changeRateBp, long volume, long receivedNanos) {
+        Signals s = slot(symbolId);
+        s.hasChangeRate = true;
+        s.changeRateBp = changeRateBp;
+        s.lastTradePrice = price;
+
+        long minute = receivedNanos / MINUTE_NANOS;
+        if (s.volumeMinute != minute) {
+            if (s.volumeMinute >= 0) {
+                // 지난 분봉 마감 – 평균에 반영
+                s.volumeEma = s.volumeBars == 0
+                        ? s.minuteVolume
+                        : s.volumeEma + VOLUME_ALPHA * (s.minuteVolume - s.volumeEma);
+                s.volumeBars++;
+            }
+            s.volumeMinute = minute;
+            s.minuteVolume = 0;
+        }
+        s.minuteVolume += volume;
+        markDirty(s);
+    }
+
+    void onQuote(int symbolId, int bid, int ask, long receivedNanos) {
+        Signals s = slot(symbolId);
+
+        long minute = receivedNanos / MINUTE_NANOS;
+        if (s.priceMinute != minute) {
+            if (s.priceMinute >= 0 && s.bid > 0) {
+                // 지난 분봉 마감 – 종가(마지막 매수1호가)로 기간별 EMA 갱신
+                s.priceBars++;
+                for (int k = 0; k < PERIODS.length; k++) {
+                    s.ema[k] = s.priceBars == 1
+                            ? s.bid
+                            : s.ema[k] + (2.0 / (PERIODS[k] + 1)) * (s.bid - s.ema[k]);
+                }
+            }
+            s.priceMinute = minute;
+        }
+        s.bid = bid;
+        s.ask = ask;
+
+        // 기간만큼 분봉이 쌓인 EMA 만 돌파 판정
+        for (int k = 0; k < PERIODS.length; k++) {
+            if (s.priceBars < PERIODS[k]) continue;
+            byte now = bid > s.ema[k] ? (byte) 1 : bid < s.ema[k] ? (byte) -1 : 0;
+            if (now == 0) continue;
+            if (s.side[k] == -1 && now == 1) s.crossedUp |= 1 << k;
+            else if (s.side[k] == 1 && now == -1) s.crossedDown |= 1 << k;
+            s.side[k] = now;
+        }
+        markDirty(s);
+    }
+
+    /**
+     * 이번 사이클에 갱신된 종목을 한 번씩 넘기고 돌파 표시를 비운다.
+     */
+    int flush(SignalHandler handler) {
+        int n = dirty.size();
+        for (int i = 0; i < n; i++) {
+            Signals s = dirty.get(i);
+            s.dirty = false;
+            handler.onSignals(s);
+            s.crossedUp = 0;
+            s.crossedDown = 0;
+        }
+        dirty.clear();
+        return n;
+    }
+
+    private Signals slot(int symbolId) {
+        if (symbolId >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(slots.length * 2, symbolId + 1));
+        }
+        Signals s = slots[symbolId];
+        if (s == null) {
+            s = new Signals(symbolId);
+            slots[symbolId] = s;
+        }
+        return s;
+    }
+
+    private void markDirty(Signals s) {
+        if (!s.dirty) {
+            s.dirty = true;
+            dirty.add(s);
+        }
+    }
+}
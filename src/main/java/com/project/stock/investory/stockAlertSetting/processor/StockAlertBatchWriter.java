@@ -0,0 +1,442 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.alarm.dto.AlarmResponseDTO;
+import com.project.stock.investory.alarm.entity.AlarmType;
+import com.project.stock.investory.alarm.entity.RelatedEntityType;
+import com.project.stock.investory.alarm.helper.AlarmHelper;
+import com.project.stock.investory.alarm.service.RxSubjectManager;
+import com.project.stock.investory.stockAlertSetting.model.AlertCondition;
+import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.Set;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * 주가 알람 발송 outbox – 평가 스레드는 도달한 조건을 큐에 넣기만 하고, 전용 writer 스레드가 모아서 저장한다.
+ * <p>
+ * 배치 하나는 트랜잭션 하나로:
+ * <ol>
+ *     <li>alarm_seq 를 배치 크기만큼 한 번에 받아</li>
+ *     <li>alarm 테이블에 JDBC batch insert</li>
+ *     <li>stock_alert_setting 을 {@code UPDATE ... WHERE stock_alert_setting_seq_id IN (...)} 한 번으로 비활성화</li>
+ * </ol>
+ * 커밋된 뒤에야 실시간 알림(Rx)을 보낸다.
+ * <p>
+ * 알람 문구에 들어갈 회원 이름 · 종목명도 여기서 배치 단위로 {@link AlertNameCache} 에서 채운다.
+ * (평가 스레드가 DB 조회로 멈추지 않도록 조건에는 ID 만 담아 온다)
+ * <p>
+ * 알람 행은 멱등 키(idempotency_key, unique)로 한 번만 저장된다. 이미 있는 키는 미리 걸러 알림도 보내지 않고,
+ * 다른 노드와 동시에 넣는 경우는 {@code IGNORE_ROW_ON_DUPKEY_INDEX} 힌트로 배치 전체가 실패하지 않게 한다.
+ * <p>
+ * 힌트로 건너뛴 행은 배치 결과 건수(0)로 가려 실시간 알림을 보내지 않는다.
+ * <p>
+ * outbox 는 크기 제한(outbox-capacity)이 있는 메모리 큐이고 영속되지 않는다. 그래서 보장은 "발송"이 아니라 "조건" 단위다. 설정 행은 배치가 커밋될 때까지 활성 상태로 남아 있으므로,
+ * 저장 전에 서버가 내려가도 재기동 시 1회성 조건이 다시 로드되어 가격이 조건을 만족하면 다시 발송된다.
+ * 큐에 있던 알람 자체와 반복 알람의 그 회차 발송은 사라질 수 있다. 정상 종료 때는 {@link #stop} 이 큐를 비울 때까지
+ * (drain-timeout-ms) 기다리고, 그래도 남은 건은 settingId 를 로그로 남긴다.
+ * 재시도까지 실패한 배치는 {@link #onGiveUp} 으로 평가 쪽에 돌려줘 조건을 다시 건다.
+ * (실행 중에는 설정 행이 활성이어도 평가 목록에서 빠져 있으므로)
+ * <p>
+ * 큐가 가득 차면(DB 장애 등으로 저장이 밀릴 때) 새 알람은 버리고 {@code alarm.engine.outbox.dropped} 로 센다.
+ * 버린 1회성 조건은 writer 스레드가 같은 경로로 평가 목록에 되돌려 다음 가격에 다시 발송되고,
+ * 반복 알람의 그 회차 발송은 사라진다.
+ */
+@Slf4j
+@Component
+public class StockAlertBatchWriter {
+
+    /**
+     * 도달한 조건 1건 – 평가 스레드에서 만들 수 있는 값만 담는다. (DB 조회 없음, 이름은 writer 가 채운다)
+     */
+    public record FiredAlert(
+            long settingId,
+            long userId,
+            String stockCode,
+            ConditionType condition,
+            int targetPrice,
+            int currentPrice,
+            String conditionText,  // 목표가 조건일 때만 ("이상"/"이하")
+            boolean recurring,     // 반복 알람 – 설정을 비활성화하지 않는다
+            String idempotencyKey, // 같은 발송을 두 노드가 하더라도 알람은 한 건만
+            AlertCondition source  // 저장을 포기하면 평가 목록으로 되돌릴 원본 조건
+    ) {
+        String content(String userName, String stockName) {
+            return condition.isPriceTarget()
+                    ? AlarmHelper.stockPriceContent(userName, stockName, targetPrice, currentPrice, conditionText)
+                    : AlarmHelper.stockSignalContent(userName, stockName, condition.describe(targetPrice), currentPrice);
+        }
+    }
+
+    private static final int IN_CLAUSE_LIMIT = 1000;   // Oracle IN 목록 상한
+
+    private static final String NEXT_IDS_SQL =
+            "SELECT alarm_seq.NEXTVAL FROM dual CONNECT BY LEVEL <= ?";
+    private static final String CHECKPOINT_SQL =
+            "UPDATE stock_alert_setting SET is_armed = ?, last_triggered_at = ? WHERE stock_alert_setting_seq_id = ?";
+    private static final String INSERT_ALARM_SQL =
+            "INSERT /*+ IGNORE_ROW_ON_DUPKEY_INDEX(alarm (idempotency_key)) */ INTO alarm " +
+                    "(alarm_id, user_id, type, content, is_read, target_url, " +
+                    "related_entity_id, related_entity_type, created_at, updated_at, idempotency_key) " +
+                    "VALUES (?, ?, ?, ?, 0, ?, ?, ?, ?, ?, ?)";
+
+    private final JdbcTemplate jdbcTemplate;
+    private final TransactionTemplate transactionTemplate;
+    private final RxSubjectManager rxSubjectManager;
+    private final AlertEngineMetrics metrics;
+    private final AlertNameCache names;
+    private final int batchSize;
+    private final int maxRetries;
+    private final long drainTimeoutMs;
+
+    private final BlockingQueue<FiredAlert> outbox;
+    // 큐가 가득 차 버린 1회성 알람 – 평가 목록으로 되돌릴 때까지 (조건당 한 건이라 설정 수를 넘지 않는다)
+    private final Queue<FiredAlert> rejected = new ConcurrentLinkedQueue<>();
+    private Thread writer;
+    private volatile boolean running;
+    private volatile Consumer<List<FiredAlert>> giveUpListener = alerts -> {
+    };
+
+    /* 메트릭 */
+    private final LongAdder enqueued = new LongAdder();
+    private final LongAdder written = new LongAdder();
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder failedBatches = new LongAdder();
+    private final LongAdder duplicates = new LongAdder();
+    private final LongAdder unresolved = new LongAdder();   // 회원 · 종목이 없어 건너뛴 알람
+    private final LongAdder dropped = new LongAdder();      // 큐가 가득 차 버린 알람
+    private final AtomicLong maxBatch = new AtomicLong();
+    private final LongAdder flushNanos = new LongAdder();
+
+    public StockAlertBatchWriter(
+            JdbcTemplate jdbcTemplate,
+            TransactionTemplate transactionTemplate,
+            RxSubjectManager rxSubjectManager,
+            AlertEngineMetrics metrics,
+            AlertNameCache names,
+            @Value("${alarm.writer.batch-size:500}") int batchSize,
+            @Value("${alarm.writer.max-retries:3}") int maxRetries,
+            @Value("${alarm.writer.drain-timeout-ms:10000}") long drainTimeoutMs,
+            @Value("${alarm.writer.outbox-capacity:10000}") int outboxCapacity
+    ) {
+        this.jdbcTemplate = jdbcTemplate;
+        this.transactionTemplate = transactionTemplate;
+        this.rxSubjectManager = rxSubjectManager;
+        this.metrics = metrics;
+        this.names = names;
+        this.batchSize = batchSize;
+        this.maxRetries = maxRetries;
+        this.drainTimeoutMs = drainTimeoutMs;
+        this.outbox = new LinkedBlockingQueue<>(outboxCapacity);
+    }
+
+    @PostConstruct
+    public void start() {
+        running = true;
+        writer = new Thread(this::run, "StockAlert-writer");
+        writer.setDaemon(true);
+        writer.start();
+
+        metrics.gauge("alarm.engine.outbox.queued", "저장 대기 중인 알람 수", outbox::size);
+        metrics.counter("alarm.engine.outbox.duplicates", duplicates, LongAdder::sum);
+        metrics.counter("alarm.engine.outbox.unresolved", unresolved, LongAdder::sum);
+        metrics.counter("alarm.engine.outbox.dropped", dropped, LongAdder::sum);
+        metrics.counter("alarm.engine.outbox.failed.batches", failedBatches, LongAdder::sum);
+    }
+
+    /**
+     * 정상 종료 – 새 배치 대기를 멈추고 큐에 남은 것을 다 쓸 때까지 기다린다.
+     * 제한 시간 안에 못 비우면 writer 를 끊고 남은 settingId 를 남긴다. (1회성은 재기동 시 조건이 다시 로드된다)
+     */
+    @PreDestroy
+    public void stop() {
+        running = false;   // writer 는 poll 타임아웃(1초) 안에 알아채고 남은 것만 비운다
+        try {
+            writer.join(drainTimeoutMs);
+            if (writer.isAlive()) {
+                writer.interrupt();
+                writer.join(1_000);
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+
+        List<FiredAlert> left = new ArrayList<>();
+        outbox.drainTo(left);
+        if (!left.isEmpty()) {
+            log.error("종료 시 저장하지 못한 알람 {}건 – 1회성은 재기동 후 조건이 다시 평가됨: settingIds={}",
+                    left.size(), left.stream().map(FiredAlert::settingId).toList());
+        } else {
+            log.info("알람 outbox 비움 완료 (종료)");
+        }
+    }
+
+    /**
+     * 평가 스레드에서 호출 – 큐에 넣고 바로 돌아간다. 큐가 가득 차면 기다리지 않고 버린다.
+     */
+    public void enqueue(FiredAlert alert) {
+        enqueued.increment();
+        if (outbox.offer(alert)) return;
+
+        dropped.increment();
+        if (!alert.recurring()) rejected.add(alert);   // 평가 스레드 밖(writer)에서 되돌린다
+    }
+
+    /**
+     * 재시도까지 실패해 저장을 포기한 배치를 받을 곳 – writer 스레드에서 호출된다.
+     */
+    public void onGiveUp(Consumer<List<FiredAlert>> listener) {
+        this.giveUpListener = listener;
+    }
+
+    /**
+     * 반복 알람 재무장 상태 기록 – updated_at 은 건드리지 않는다. (증분 동기화가 사용자 변경으로 오인하지 않도록)
+     */
+    void writeRearmCheckpoints(Map<Long, RearmIndex.Checkpoint> checkpoints) {
+        List<Object[]> args = new ArrayList<>(checkpoints.size());
+        checkpoints.forEach((settingId, cp) -> args.add(new Object[]{
+                cp.armed() ? 1 : 0,
+                cp.lastTriggeredAt() == null ? null : Timestamp.valueOf(cp.lastTriggeredAt()),
+                settingId}));
+        jdbcTemplate.batchUpdate(CHECKPOINT_SQL, args);
+    }
+
+    public Map<String, Object> getStats() {
+        long n = batches.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("queued", outbox.size());
+        stats.put("enqueued", enqueued.sum());
+        stats.put("written", written.sum());
+        stats.put("batches", n);
+        stats.put("failedBatches", failedBatches.sum());
+        stats.put("duplicates", duplicates.sum());
+        stats.put("unresolved", unresolved.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("maxBatch", maxBatch.get());
+        stats.put("avgFlushMicros", n == 0 ? 0 : flushNanos.sum() / n / 1_000);
+        return stats;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* writer 스레드                                                        */
+    /* ------------------------------------------------------------------ */
+
+    private void run() {
+        List<FiredAlert> batch = new ArrayList<>(batchSize);
+        while (running || !outbox.isEmpty()) {
+            try {
+                handBackRejected();
+
+                FiredAlert first = running ? outbox.poll(1, TimeUnit.SECONDS) : outbox.poll();
+                if (first == null) continue;
+
+                // 앞 배치를 쓰는 동안 쌓인 것까지 한 번에
+                batch.add(first);
+                outbox.drainTo(batch, batchSize - 1);
+                flushWithRetry(batch);
+            } catch (InterruptedException e) {
+                // 종료 – 남은 건 위 조건에서 마저 비운다
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 큐가 가득 차 버린 1회성 알람을 저장 포기와 같은 경로로 평가 목록에 되돌린다.
+     */
+    private void handBackRejected() {
+        if (rejected.isEmpty()) return;
+
+        List<FiredAlert> alerts = new ArrayList<>();
+        for (FiredAlert a; (a = rejected.poll()) != null; ) alerts.add(a);
+        log.warn("outbox 가득 참 – 버린 1회성 알람 {}건을 평가 목록으로 되돌림: settingIds={}",
+                alerts.size(), alerts.stream().map(FiredAlert::settingId).toList());
+        try {
+            giveUpListener.accept(List.copyOf(alerts));
+        } catch (Exception e) {
+            log.error("버린 알람 되돌리기 실패 ({}건)", alerts.size(), e);
+        }
+    }
+
+    private void flushWithRetry(List<FiredAlert> batch) {
+        for (int attempt = 1; ; attempt++) {
+            long start = System.nanoTime();
+            try {
+                List<Emission> saved = transactionTemplate.execute(status -> flush(batch));
+                long flushed = System.nanoTime() - start;
+                flushNanos.add(flushed);
+                metrics.recordPersist(flushed);
+                batches.increment();
+                written.add(batch.size());
+                maxBatch.accumulateAndGet(batch.size(), Math::max);
+
+                // 커밋된 것만 실시간 전송
+                long pushStart = System.nanoTime();
+                for (Emission e : saved) {
+                    rxSubjectManager.emit(e.userId(), e.alarm());
+                }
+                metrics.recordPush(System.nanoTime() - pushStart);
+                return;
+            } catch (Exception e) {
+                if (attempt > maxRetries) {
+                    failedBatches.increment();
+                    log.error("알람 배치 저장 실패 ({}건) – 평가 목록으로 되돌림: settingIds={}",
+                            batch.size(), batch.stream().map(FiredAlert::settingId).toList(), e);
+                    try {
+                        giveUpListener.accept(List.copyOf(batch));
+                    } catch (Exception ex) {
+                        log.error("저장 실패 알람 되돌리기 실패 ({}건)", batch.size(), ex);
+                    }
+                    return;
+                }
+                log.warn("알람 배치 저장 실패 ({}건), {}번째 재시도", batch.size(), attempt, e);
+                try {
+                    Thread.sleep(200L * attempt);
+                } catch (InterruptedException ie) {
+                    Thread.currentThread().interrupt();
+                    running = false;
+                }
+            }
+        }
+    }
+
+    private record Emission(long userId, AlarmResponseDTO alarm) {
+    }
+
+    private List<Emission> flush(List<FiredAlert> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        Timestamp ts = Timestamp.valueOf(now);
+
+        // 이미 저장된 키(다른 노드가 먼저 발송)와 배치 안의 중복은 건너뛴다
+        Set<String> existing = existingKeys(batch);
+        Set<String> seen = new HashSet<>();
+        List<FiredAlert> fresh = new ArrayList<>(batch.size());
+        for (FiredAlert a : batch) {
+            if (!existing.contains(a.idempotencyKey()) && seen.add(a.idempotencyKey())) fresh.add(a);
+        }
+        duplicates.add(batch.size() - fresh.size());
+
+        // 회원 이름 · 종목명 – 캐시에 없는 것만 묶음 단위 IN 조회 한 번
+        names.preload(fresh.stream().map(FiredAlert::userId).toList(), fresh.stream().map(FiredAlert::stockCode).toList());
+        List<FiredAlert> named = new ArrayList<>(fresh.size());
+        List<String> contents = new ArrayList<>(fresh.size());
+        for (FiredAlert a : fresh) {
+            String userName = names.userName(a.userId());
+            String stockName = names.stockName(a.stockCode());
+            if (userName == null || stockName == null) {
+                // 탈퇴한 회원 · 상장폐지 종목 – 받을 사람이 없으므로 알람 없이 설정만 정리한다
+                unresolved.increment();
+                log.warn("알람 대상 회원 또는 종목 없음, 건너뜀: settingId={}, userId={}, 종목={}",
+                        a.settingId(), a.userId(), a.stockCode());
+                continue;
+            }
+            named.add(a);
+            contents.add(a.content(userName, stockName));
+        }
+
+        List<Long> ids = named.isEmpty()
+                ? List.of()
+                : jdbcTemplate.queryForList(NEXT_IDS_SQL, Long.class, named.size());
+        List<AlarmResponseDTO> rows = new ArrayList<>(named.size());
+        for (int i = 0; i < named.size(); i++) {
+            FiredAlert a = named.get(i);
+            rows.add(AlarmResponseDTO.builder()
+                    .alarmId(ids.get(i))
+                    .type(AlarmType.STOCK_PRICE)
+                    .content(contents.get(i))
+                    .isRead(0)
+                    .targetUrl(AlarmHelper.stockPriceTargetUrl(a.stockCode()))
+                    .relatedEntityId(a.stockCode())
+                    .relatedEntityType(RelatedEntityType.STOCK.name())
+                    .createdAt(now)
+                    .build());
+        }
+
+        int[] inserted = new int[0];
+        if (!rows.isEmpty()) {
+            inserted = jdbcTemplate.batchUpdate(INSERT_ALARM_SQL, new BatchPreparedStatementSetter() {
+                @Override
+                public void setValues(PreparedStatement ps, int i) throws SQLException {
+                    AlarmResponseDTO row = rows.get(i);
+                    ps.setLong(1, row.getAlarmId());
+                    ps.setLong(2, named.get(i).userId());
+                    ps.setString(3, row.getType().name());
+                    ps.setString(4, row.getContent());
+                    ps.setString(5, row.getTargetUrl());
+                    ps.setString(6, row.getRelatedEntityId());
+                    ps.setString(7, row.getRelatedEntityType());
+                    ps.setTimestamp(8, ts);
+                    ps.setTimestamp(9, ts);
+                    ps.setString(10, named.get(i).idempotencyKey());
+                }
+
+                @Override
+                public int getBatchSize() {
+                    return rows.size();
+                }
+            });
+        }
+
+        // 설정 비활성화 (1회성만) – IN 목록 상한 단위로 UPDATE 한 번씩
+        List<FiredAlert> oneShot = batch.stream().filter(a -> !a.recurring()).toList();
+        for (int from = 0; from < oneShot.size(); from += IN_CLAUSE_LIMIT) {
+            List<FiredAlert> chunk = oneShot.subList(from, Math.min(oneShot.size(), from + IN_CLAUSE_LIMIT));
+            String sql = "UPDATE stock_alert_setting SET is_active = 0, updated_at = ? " +
+                    "WHERE stock_alert_setting_seq_id IN (" + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+
+            Object[] args = new Object[chunk.size() + 1];
+            args[0] = ts;
+            for (int i = 0; i < chunk.size(); i++) args[i + 1] = chunk.get(i).settingId();
+            jdbcTemplate.update(sql, args);
+        }
+
+        // 다른 노드가 그새 같은 키를 넣어 힌트로 건너뛴 행(0건)은 알림도 보내지 않는다
+        // (드라이버가 건수를 모르면(SUCCESS_NO_INFO) 넣은 것으로 본다)
+        List<Emission> emissions = new ArrayList<>(rows.size());
+        for (int i = 0; i < rows.size(); i++) {
+            if (inserted[i] == 0) {
+                duplicates.increment();
+                continue;
+            }
+            emissions.add(new Emission(named.get(i).userId(), rows.get(i)));
+        }
+        return emissions;
+    }
+
+    private Set<String> existingKeys(List<FiredAlert> batch) {
+        Set<String> keys = new HashSet<>();
+        for (int from = 0; from < batch.size(); from += IN_CLAUSE_LIMIT) {
+            List<FiredAlert> chunk = batch.subList(from, Math.min(batch.size(), from + IN_CLAUSE_LIMIT));
+            String sql = "SELECT idempotency_key FROM alarm WHERE idempotency_key IN (" +
+                    String.join(",", Collections.nCopies(chunk.size(), "?")) + ")";
+            keys.addAll(jdbcTemplate.queryForList(sql, String.class,
+                    chunk.stream().map(FiredAlert::idempotencyKey).toArray()));
+        }
+        return keys;
+    }
+}
@@ -0,0 +1,269 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockAlertSetting.model.PriceSource;
+import com.project.stock.investory.stockInfo.service.StockSymbolTable;
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+import java.util.function.BooleanSupplier;
+
+/**
+ * KIS 수신 스레드 → 알람 평가 사이의 전달 단계
+ * <p>
+ * 심볼 ID 로 샤드를 고르고, 샤드마다 링 버퍼({@link PriceTickRing})와 전용 평가 스레드를 둔다. (KIS 세션별 수신 스레드가 함께 쓰는 다중 생산자 링)
+ * 같은 종목은 항상 같은 스레드에서 순서대로 평가되고, 수신 스레드는 링에 쓰기만 하고 바로 돌아간다.
+ * 링이 가득 차면 해당 틱은 버리고 drop 카운터만 올린다.
+ * <p>
+ * 평가 스레드는 링에 쌓인 틱을 한 번에 모두 꺼내 {@link PriceConflator} 에 종목별로 합친 뒤,
+ * 종목당 한 번만 (최신가, 구간 고가, 구간 저가)로 평가한다. 평가가 틱 속도를 못 따라가도
+ * 밀린 틱 수가 아니라 종목 수만큼만 일한다.
+ * <p>
+ * 링은 KIS 수신 스레드들이 쓰고, 재연결 후 REST 스냅샷처럼 다른 스레드에서 들어오는 가격은
+ * 샤드별 보조 큐({@link #publishSnapshot})로 받아 같은 평가 스레드에서 합친다.
+ * <p>
+ * 목표가 조건의 가격 기준({@link PriceSource})마다 합치기 슬롯을 따로 둔다. 매수1호가는 항상,
+ * 매도1호가 · 중간가 · 체결가 · VWAP 은 그 기준의 조건이 걸린 종목만 계산해 평가한다.
+ */
+@Slf4j
+@Component
+public class StockPriceDispatcher {
+
+    private static final int SPIN_BEFORE_PARK = 100;
+    private static final long MAX_PARK_NANOS = 100_000_000L;   // 100ms – 깨우기는 생산자가 한다 (안전망)
+
+    private final StockPriceProcessor stockPriceProcessor;
+    private final StockSymbolTable symbols;
+    private final AlertEngineMetrics metrics;
+    private final int shardCount;
+    private final int ringCapacity;
+    private final int vwapSeconds;
+
+    private PriceTickRing[] rings;
+    private List<Queue<long[]>> snapshotQueues;   // {symbolId, price, receivedNanos}
+    private Thread[] workers;
+    private volatile boolean running;
+
+    /* 메트릭 */
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder snapshots = new LongAdder();
+    private final LongAdder drained = new LongAdder();     // 링 · 보조 큐에서 꺼낸 틱 수
+    private final LongAdder processed = new LongAdder();   // 실제 평가 횟수 (종목 · 가격 기준당 사이클 1회)
+    private final LongAdder latencySumNanos = new LongAdder();
+    private final AtomicLong latencyMaxNanos = new AtomicLong();
+
+    public StockPriceDispatcher(
+            StockPriceProcessor stockPriceProcessor,
+            StockSymbolTable symbols,
+            AlertEngineMetrics metrics,
+            @Value("${alarm.pipeline.shards:4}") int shardCount,
+            @Value("${alarm.pipeline.ring-capacity:4096}") int ringCapacity,
+            @Value("${alarm.price.vwap-seconds:60}") int vwapSeconds
+    ) {
+        this.stockPriceProcessor = stockPriceProcessor;
+        this.symbols = symbols;
+        this.metrics = metrics;
+        this.shardCount = shardCount;
+        this.ringCapacity = ringCapacity;
+        this.vwapSeconds = vwapSeconds;
+    }
+
+    @PostConstruct
+    public void start() {
+        rings = new PriceTickRing[shardCount];
+        List<Queue<long[]>> queues = new ArrayList<>(shardCount);
+        workers = new Thread[shardCount];
+        running = true;
+
+        for (int i = 0; i < shardCount; i++) {
+            rings[i] = new PriceTickRing(ringCapacity);
+            queues.add(new ConcurrentLinkedQueue<>());
+            PriceTickRing ring = rings[i];
+            Queue<long[]> snapshotQueue = queues.get(i);
+            workers[i] = new Thread(() -> runShard(ring, snapshotQueue), "StockAlert-shard-" + i);
+            workers[i].setDaemon(true);
+            workers[i].start();
+        }
+        snapshotQueues = List.copyOf(queues);
+        metrics.gauge("alarm.engine.ring.depth", "샤드 링에 쌓인 틱 수", this::queueDepth);
+        metrics.counter("alarm.engine.ring.dropped", dropped, LongAdder::sum);
+        log.info("알람 평가 파이프라인 시작: 샤드 {}개, 링 크기 {}", shardCount, ringCapacity);
+    }
+
+    @PreDestroy
+    public void stop() {
+        running = false;
+        for (Thread worker : workers) {
+            LockSupport.unpark(worker);
+            try {
+                worker.join(1_000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    /**
+     * 수신 스레드에서 호출 (호가) – 링에 쓰기만 하고 바로 돌아간다.
+     */
+    public void publishQuote(int symbolId, int bidPrice, int askPrice) {
+        offer(symbolId, PriceTickRing.QUOTE, bidPrice, askPrice, 0L);
+    }
+
+    /**
+     * 수신 스레드에서 호출 (체결) – 등락률·거래량 지표용
+     */
+    public void publishTrade(int symbolId, int price, int changeRateBp, long volume) {
+        offer(symbolId, PriceTickRing.TRADE, price, changeRateBp, volume);
+    }
+
+    private void offer(int symbolId, byte kind, int price, int aux, long volume) {
+        if (symbolId < 0) return;   // 심볼 테이블에 없는 종목 – 걸린 조건도 없다
+
+        PriceTickRing ring = rings[symbolId % shardCount];
+        if (ring.offer(symbolId, kind, price, aux, volume, System.nanoTime())) {
+            published.increment();
+        } else {
+            dropped.increment();
+        }
+    }
+
+    /**
+     * 수신 스레드 밖(REST 스냅샷 보정 등)에서 호출 – 아무 스레드에서나 불러도 된다.
+     */
+    public void publishSnapshot(int symbolId, int price) {
+        if (symbolId < 0) return;
+
+        snapshotQueues.get(symbolId % shardCount).offer(new long[]{symbolId, price, System.nanoTime()});
+        rings[symbolId % shardCount].wakeConsumer();
+        snapshots.increment();
+    }
+
+    private void runShard(PriceTickRing ring, Queue<long[]> snapshotQueue) {
+        PriceSource[] sources = PriceSource.values();
+        PriceConflator[] conflators = new PriceConflator[sources.length];
+        PriceConflator.UpdateHandler[] evaluators = new PriceConflator.UpdateHandler[sources.length];
+        for (PriceSource source : sources) {
+            conflators[source.ordinal()] = new PriceConflator();
+            evaluators[source.ordinal()] = (symbolId, last, high, low, receivedNanos) ->
+                    evaluate(source, symbolId, last, high, low, receivedNanos);
+        }
+        PriceConflator conflator = conflators[PriceSource.BID.ordinal()];
+        SignalTracker signals = new SignalTracker();
+        VwapTracker vwap = new VwapTracker(vwapSeconds);
+        // 가격은 기준별로 합쳐서 종목당 한 번 평가하고, 지표는 틱마다 상태만 갱신한다
+        PriceTickRing.SlotHandler collect = (symbolId, kind, price, aux, volume, receivedNanos) -> {
+            if (kind == PriceTickRing.QUOTE) {
+                conflator.offer(symbolId, price, receivedNanos);
+                if (aux > 0 && stockPriceProcessor.watches(symbolId, PriceSource.ASK)) {
+                    conflators[PriceSource.ASK.ordinal()].offer(symbolId, aux, receivedNanos);
+                }
+                if (price > 0 && aux > 0 && stockPriceProcessor.watches(symbolId, PriceSource.MID)) {
+                    conflators[PriceSource.MID.ordinal()].offer(symbolId, (int) (((long) price + aux) / 2), receivedNanos);
+                }
+                signals.onQuote(symbolId, price, aux, receivedNanos);
+            } else {
+                if (stockPriceProcessor.watches(symbolId, PriceSource.LAST)) {
+                    conflators[PriceSource.LAST.ordinal()].offer(symbolId, price, receivedNanos);
+                }
+                // VWAP 창은 조건이 없어도 채워 둔다 (조건이 새로 걸렸을 때 바로 쓸 수 있도록)
+                int average = vwap.onTrade(symbolId, price, volume, receivedNanos);
+                if (average > 0 && stockPriceProcessor.watches(symbolId, PriceSource.VWAP)) {
+                    conflators[PriceSource.VWAP.ordinal()].offer(symbolId, average, receivedNanos);
+                }
+                signals.onTrade(symbolId, price, aux, volume, receivedNanos);
+            }
+        };
+        SignalTracker.SignalHandler evaluateSignals = this::evaluateSignals;
+        BooleanSupplier hasSnapshots = () -> !snapshotQueue.isEmpty();
+
+        int idle = 0;
+        while (running) {
+            int n = ring.drain(collect, ring.capacity());
+            for (long[] s; (s = snapshotQueue.poll()) != null; n++) {
+                // REST 현재가는 체결가 – 체결가 기준 조건도 같이 보정한다
+                conflator.offer((int) s[0], (int) s[1], s[2]);
+                if (stockPriceProcessor.watches((int) s[0], PriceSource.LAST)) {
+                    conflators[PriceSource.LAST.ordinal()].offer((int) s[0], (int) s[1], s[2]);
+                }
+            }
+            if (n > 0) {
+                drained.add(n);
+                for (int s = 0; s < sources.length; s++) conflators[s].flush(evaluators[s]);
+                signals.flush(evaluateSignals);
+                idle = 0;
+            } else if (++idle > SPIN_BEFORE_PARK) {
+                // 장 외 시간 등 틱이 없으면 생산자가 깨울 때까지 잠든다 (주기적으로 깨지 않는다)
+                ring.park(MAX_PARK_NANOS, hasSnapshots);
+                idle = 0;
+            } else {
+                Thread.onSpinWait();
+            }
+        }
+    }
+
+    private void evaluate(PriceSource source, int symbolId, int lastPrice, int highPrice, int lowPrice, long receivedNanos) {
+        long start = System.nanoTime();
+        try {
+            stockPriceProcessor.process(symbolId, source, lastPrice, highPrice, lowPrice);
+        } catch (Exception e) {
+            log.error("알람 평가 실패: 종목={}", symbols.codeOf(symbolId), e);
+        } finally {
+            long end = System.nanoTime();
+            long latency = end - receivedNanos;
+            processed.increment();
+            latencySumNanos.add(latency);
+            latencyMaxNanos.accumulateAndGet(latency, Math::max);
+            metrics.recordPriceEvaluation(symbolId, receivedNanos, start, end);
+        }
+    }
+
+    private void evaluateSignals(SignalTracker.Signals s) {
+        long start = System.nanoTime();
+        try {
+            stockPriceProcessor.evaluateSignals(s);
+        } catch (Exception e) {
+            log.error("지표 알람 평가 실패: 종목={}", symbols.codeOf(s.symbolId), e);
+        } finally {
+            metrics.recordSignalEvaluation(s.symbolId, start, System.nanoTime());
+        }
+    }
+
+    /**
+     * 관리자용 파이프라인 상태 (큐 깊이, drop 수, 수신→평가 완료 지연)
+     */
+    public Map<String, Object> getStats() {
+        long depth = queueDepth();
+        long count = processed.sum();
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("shards", shardCount);
+        stats.put("ringCapacity", ringCapacity);
+        stats.put("queueDepth", depth);
+        stats.put("published", published.sum());
+        stats.put("dropped", dropped.sum());
+        stats.put("snapshots", snapshots.sum());
+        stats.put("processed", count);
+        stats.put("conflated", Math.max(0, drained.sum() - count));
+        stats.put("latencyAvgMicros", count == 0 ? 0 : latencySumNanos.sum() / count / 1_000);
+        stats.put("latencyMaxMicros", latencyMaxNanos.get() / 1_000);
+        return stats;
+    }
+
+    private long queueDepth() {
+        long depth = 0;
+        for (PriceTickRing ring : rings) depth += ring.depth();
+        return depth;
+    }
+}
@@ -1,26 +1,31 @@
 package com.project.stock.investory.stockAlertSetting.processor;
 
-import com.project.stock.investory.alarm.helper.AlarmHelper;
 import com.project.stock.investory.alarm.service.AlarmService;
+import com.project.stock.investory.stockAlertSetting.event.AlertPartitionChangedEvent;
 import com.project.stock.investory.stockAlertSetting.event.StockAlertEvent;
 import com.project.stock.investory.stockAlertSetting.model.AlertCondition;
 import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+import com.project.stock.investory.stockAlertSetting.model.PriceSource;
 import com.project.stock.investory.stockAlertSetting.model.StockAlertSetting;
 import com.project.stock.investory.stockAlertSetting.repository.StockAlertSettingRepository;
-import com.project.stock.investory.stockInfo.model.Stock;
-import com.project.stock.investory.stockInfo.repository.StockRepository;
+import com.project.stock.investory.stockInfo.service.StockSymbolTable;
+import com.project.stock.investory.stockInfo.util.SymbolIndexedArray;
 import com.project.stock.investory.user.entity.User;
-import com.project.stock.investory.user.repository.UserRepository;
 import jakarta.annotation.PostConstruct;
-import jakarta.persistence.EntityNotFoundException;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.context.event.EventListener;
 import org.springframework.scheduling.annotation.Scheduled;
 import org.springframework.stereotype.Component;
 
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
 import java.util.*;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
 
 @Slf4j
 @Component
@@ -28,220 +33,659 @@ import java.util.concurrent.ConcurrentHashMap;
 public class StockPriceProcessor {
 
     private final AlarmService alarmService;
-    private final UserRepository userRepository;
-    private final StockRepository stockRepository;
     private final StockAlertSettingRepository stockAlertSettingRepository;
-    private final AlarmHelper alarmHelper;
+    private final StockAlertBatchWriter alertWriter;   // 알람 저장·비활성화는 outbox 로 넘긴다
+    private final StockSymbolTable symbols;
+    private final AlertPartitionManager partitions;   // 여러 인스턴스일 때 이 노드가 맡은 종목만 평가
+    private final AlertIndexStore indexStore;         // 재기동용 조건 인덱스 스냅샷 + 저널
+    private final AlertEngineMetrics metrics;         // 발송 수 · 인덱스 크기 계측
+    private final AlertNameCache names;               // 발송용 회원 이름 · 종목명 (엔티티 대신 문자열만)
     private final ApplicationEventPublisher eventPublisher; // 🔥 WebSocket 대신 이벤트 사용
 
-    // 가격 이상 조건들 (목표가를 오름차순으로 정렬)
-    private final Map<String, NavigableMap<Integer, List<AlertCondition>>> overMap = new ConcurrentHashMap<>();
-    // 가격 이하 조건들 (목표가를 내림차순으로 정렬)
-    private final Map<String, NavigableMap<Integer, List<AlertCondition>>> underMap = new ConcurrentHashMap<>();
+    /**
+     * 이상/이하 조건 묶음 – 전체 재구성 때는 새 묶음을 옆에서 다 만든 뒤 한 번에 교체한다.
+     * 목표가 조건은 가격 기준({@link PriceSource})별로 따로 둔다. (인덱스 = ordinal)
+     */
+    private static final class ConditionBooks {
+        // 가격 이상 조건들 (가격 기준 → 심볼 ID → 목표가 오름차순 primitive 배열)
+        final SymbolIndexedArray<ThresholdBook>[] overMap = SymbolIndexedArray.arrayOf(PriceSource.values().length);
+        // 가격 이하 조건들 (가격 기준 → 심볼 ID → 목표가 내림차순 primitive 배열)
+        final SymbolIndexedArray<ThresholdBook>[] underMap = SymbolIndexedArray.arrayOf(PriceSource.values().length);
+        // 지표 조건들 (등락률, 거래량 급증, 이동평균 돌파, 스프레드)
+        final SymbolIndexedArray<SignalBooks> signalMap = new SymbolIndexedArray<>();
+    }
+
+    private volatile ConditionBooks books = new ConditionBooks();
+
+    // 증분 동기화 상태 – 설정 ID → 반영한 updated_at(epoch ms), 다음 조회 기준 시각
+    private final Map<Long, Long> appliedVersions = new ConcurrentHashMap<>();
+    private volatile LocalDateTime syncedUpTo;
+    // 전체 재구성 중에 삭제된 설정 – 교체 직후 새 묶음에서도 뺀다
+    private volatile Set<Long> removedDuringRebuild;
+
+    @Value("${alarm.sync.overlap-ms:5000}")
+    private long syncOverlapMs;   // 커밋이 늦게 보이는 행을 놓치지 않도록 기준 시각을 이만큼 당겨 조회
+
+    // 반복 알람 재무장 상태 – 발송 후 DB 쓰기 없이 여기서 쉬었다가 다시 걸린다
+    private final RearmIndex rearm = new RearmIndex();
+    // 재무장과 전체 재구성(묶음 교체)이 엇갈려 조건을 잃지 않도록
+    private final Object armLock = new Object();
+    // 유지 시간이 있는 목표가 조건 – 도달 후 유지 시간 동안 계속 만족하면 발송
+    private final HoldIndex holds = new HoldIndex();
+
+    @Value("${alarm.rearm.default-cooldown-seconds:300}")
+    private int defaultCooldownSeconds;   // 반복 알람에 쿨다운을 지정하지 않았을 때
 
     // 이미 알림을 보낸 조건들을 추적 (중복 방지)
     private final Set<Long> processedAlerts = ConcurrentHashMap.newKeySet();
 
-    // 사용자 및 주식 정보 캐시 (성능 최적화)
-    private final Map<Long, User> userCache = new ConcurrentHashMap<>();
-    private final Map<String, Stock> stockCache = new ConcurrentHashMap<>();
 
     @PostConstruct
     public void init() {
-        loadAllConditions();
-        loadCaches();
+        alertWriter.onGiveUp(this::restoreUnwritten);
+        if (restoreFromSnapshot()) {
+            // 스냅샷 이후 DB 와 달라진 부분은 뒤에서 전체 재구성으로 맞춘다 (평가는 복원된 목록으로 바로 시작)
+            Thread reconcile = new Thread(this::reconcileWithDatabase, "AlertIndex-reconcile");
+            reconcile.setDaemon(true);
+            reconcile.start();
+        } else {
+            rebuildConditions();
+        }
+        registerIndexGauges();
         log.info("StockPriceProcessor 초기화 완료");
     }
 
-    // 🔥 주기적으로 새로운 알람 설정을 로드 (30분마다 - 백업용 동기화) - 수정됨
-    @Scheduled(fixedRate = 1800000)
+    /**
+     * 스냅샷 + 저널로 조건 목록 복원 – 사용자·주식 캐시는 비워 두고 발송 시 필요한 것만 조회한다.
+     */
+    private boolean restoreFromSnapshot() {
+        Optional<AlertIndexStore.Loaded> loaded = indexStore.load();
+        if (loaded.isEmpty() || loaded.get().syncedUpTo() == null) return false;
+
+        List<AlertCondition> armed = new ArrayList<>();
+        for (AlertIndexStore.Entry entry : loaded.get().entries()) {
+            AlertCondition condition = entry.condition();
+            if (!partitions.owns(condition.getStockCode())) continue;   // 다른 노드 담당
+
+            appliedVersions.put(condition.getSettingId(), entry.version());
+            if (entry.firedAtMillis() >= 0) {
+                LocalDateTime firedAt = LocalDateTime.ofInstant(
+                        Instant.ofEpochMilli(entry.firedAtMillis()), ZoneId.systemDefault());
+                int isArmed = entry.armed() ? 1 : 0;
+                if (rearm.restore(symbols.register(condition.getStockCode()), condition, isArmed, firedAt)) continue;
+            }
+            armed.add(condition);
+        }
+
+        ConditionBooks restored = new ConditionBooks();
+        insertAll(restored, armed);
+        books = restored;
+        syncedUpTo = loaded.get().syncedUpTo();   // 이후 변경은 증분 동기화가 가져온다
+        log.info("스냅샷에서 {}개의 알람 조건 복원 (쉬는 반복 알람 제외)", armed.size());
+        return true;
+    }
+
+    private void reconcileWithDatabase() {
+        rebuildConditions();
+        eventPublisher.publishEvent(StockAlertEvent.createRefresh());
+    }
+
+    // 🔥 조건 인덱스 스냅샷 (기본 5분마다, 전체 재구성 직후에도) – 이후 변경은 저널에 쌓인다
+    @Scheduled(fixedDelayString = "${alarm.snapshot.interval-ms:300000}", initialDelayString = "${alarm.snapshot.interval-ms:300000}")
+    public void writeSnapshot() {
+        if (!indexStore.isEnabled()) return;
+        try {
+            // 세대를 먼저 넘긴다 – 아래에서 모으는 동안의 변경은 새 세대 저널에 남는다
+            long generation = indexStore.rotate();
+            LocalDateTime upTo = syncedUpTo;
+            if (upTo == null) return;
+
+            Map<Long, AlertIndexStore.Entry> entries = new LinkedHashMap<>();
+            Consumer<AlertCondition> armed =
+                    c -> entries.put(c.getSettingId(), entryOf(c, rearm.cycleOf(c.getSettingId()), true));
+            ConditionBooks b = books;
+            for (PriceSource source : PriceSource.values()) {
+                b.overMap[source.ordinal()].forEach((symbolId, book) -> book.forEachPending(armed));
+                b.underMap[source.ordinal()].forEach((symbolId, book) -> book.forEachPending(armed));
+            }
+            b.signalMap.forEach((symbolId, book) -> book.forEachPending(armed));
+            holds.forEachHeld(armed);
+            rearm.forEachDisarmed((c, firedAt) -> entries.put(c.getSettingId(), entryOf(c, firedAt, false)));
+
+            indexStore.writeSnapshot(generation, upTo, entries.values());
+            log.info("알람 인덱스 스냅샷 저장: {}건", entries.size());
+        } catch (Exception e) {
+            log.warn("알람 인덱스 스냅샷 저장 실패 – 다음 주기에 다시 시도", e);
+        }
+    }
+
+    // 조건 인덱스 크기 – 조회(scrape) 때마다 현재 묶음을 센다
+    private void registerIndexGauges() {
+        metrics.gauge("alarm.engine.index.conditions", "대기 중인 알람 조건 수",
+                () -> countPending(books.overMap), "book", "above");
+        metrics.gauge("alarm.engine.index.conditions", "대기 중인 알람 조건 수",
+                () -> countPending(books.underMap), "book", "below");
+        metrics.gauge("alarm.engine.index.conditions", "대기 중인 알람 조건 수", () -> {
+            long[] count = {0};
+            books.signalMap.forEach((symbolId, sb) -> sb.forEachPending(c -> count[0]++));
+            return count[0];
+        }, "book", "signal");
+        metrics.gauge("alarm.engine.index.disarmed", "재무장 대기 중인 반복 알람 수",
+                rearm::disarmedCount);
+        metrics.gauge("alarm.engine.index.held", "유지 시간 대기 중인 목표가 조건 수",
+                holds::size);
+    }
+
+    private static long countPending(SymbolIndexedArray<ThresholdBook>[] maps) {
+        long[] count = {0};
+        for (SymbolIndexedArray<ThresholdBook> map : maps) {
+            map.forEach((symbolId, book) -> count[0] += book.pendingCount());
+        }
+        return count[0];
+    }
+
+    public Map<String, Object> getIndexStoreStats() {
+        return indexStore.getStats();
+    }
+
+    private AlertIndexStore.Entry entryOf(AlertCondition condition, long firedAtMillis, boolean armed) {
+        return new AlertIndexStore.Entry(
+                condition, appliedVersions.getOrDefault(condition.getSettingId(), 0L), firedAtMillis, armed);
+    }
+
+    // 🔥 변경분만 동기화 (기본 10초마다) – updated_at 이 마지막 기준 시각 이후인 설정만 조회해 델타로 반영
+    @Scheduled(fixedDelayString = "${alarm.sync.incremental-ms:10000}", initialDelayString = "${alarm.sync.incremental-ms:10000}")
+    public void syncChanges() {
+        LocalDateTime since = syncedUpTo;
+        if (since == null) return;   // 아직 전체 로드 전
+
+        try {
+            List<StockAlertSetting> changed =
+                    stockAlertSettingRepository.findChangedSince(since.minusNanos(syncOverlapMs * 1_000_000L));
+
+            Set<String> touched = new HashSet<>();
+            LocalDateTime highWater = since;
+            for (StockAlertSetting setting : changed) {
+                if (applyDelta(setting)) touched.add(setting.getStock().getStockId());
+                if (setting.getUpdatedAt() != null && setting.getUpdatedAt().isAfter(highWater)) {
+                    highWater = setting.getUpdatedAt();
+                }
+            }
+            syncedUpTo = highWater;
+
+            // 🔥 조건이 바뀐 종목만 WebSocket 구독 갱신 (이벤트 발행)
+            for (String stockCode : touched) {
+                eventPublisher.publishEvent(hasAnyAlertForStock(stockCode)
+                        ? StockAlertEvent.createAdd(stockCode)
+                        : StockAlertEvent.createRemove(stockCode, null, null, null));
+            }
+            if (!touched.isEmpty()) log.info("증분 동기화: 변경 {}건 반영 (조회 {}건)", touched.size(), changed.size());
+
+        } catch (Exception e) {
+            log.error("알람 조건 증분 동기화 중 오류 발생", e);
+        }
+    }
+
+    // 🔥 전체 재구성 (기본 6시간마다 - 백업용, 다른 인스턴스의 삭제 등 증분으로 안 보이는 변경 정리)
+    @Scheduled(fixedDelayString = "${alarm.sync.full-rebuild-ms:21600000}", initialDelayString = "${alarm.sync.full-rebuild-ms:21600000}")
     public void refreshConditions() {
-        log.info("주기적 동기화 시작 (백업용)");
-        loadAllConditions();
-        refreshCaches();
+        log.info("주기적 전체 재구성 시작 (백업용)");
+        rebuildConditions();
 
         // 🔥 WebSocket 구독도 새로고침 (이벤트 발행)
         eventPublisher.publishEvent(StockAlertEvent.createRefresh());
     }
 
-    private void loadAllConditions() {
+    /**
+     * 활성 설정 전체를 새 묶음에 로드한 뒤 원자적으로 교체한다. 재구성 중에도 평가는 이전 묶음으로 계속된다.
+     */
+    private void rebuildConditions() {
+        Set<Long> removed = ConcurrentHashMap.newKeySet();
+        removedDuringRebuild = removed;
         try {
-            // 활성화된 알람 설정만 조회
-            List<StockAlertSetting> activeSettings = stockAlertSettingRepository.findByIsActiveTrue();
+            LocalDateTime startedAt = LocalDateTime.now();
+
+            // 활성화된 알람 설정만 조회 (user/stock fetch join)
+            List<StockAlertSetting> activeSettings = stockAlertSettingRepository.findActiveWithUserAndStock();
+
+            // 발송 대기 중(writer 가 아직 비활성화를 커밋하지 않은) 조건은 다시 걸지 않는다
+            List<StockAlertSetting> armed = new ArrayList<>(activeSettings.size());
+            List<StockAlertSetting> pending = new ArrayList<>();
+            Set<Long> activeIds = new HashSet<>();
+            for (StockAlertSetting setting : activeSettings) {
+                activeIds.add(setting.getSettingId());
+                if (processedAlerts.contains(setting.getSettingId())) pending.add(setting);
+                else armed.add(setting);
+            }
+
+            ConditionBooks fresh = new ConditionBooks();
+            synchronized (armLock) {
+                loadConditions(fresh, armed);
+                // 조회 뒤 writer 가 저장을 포기해 되돌려진 조건은 옛 묶음에만 들어갔으므로 새 묶음에도 넣는다
+                loadConditions(fresh, pending.stream()
+                        .filter(setting -> !processedAlerts.contains(setting.getSettingId()))
+                        .toList());
+                books = fresh;
+                holds.clear();   // 대기 중이던 조건도 새 묶음에 다시 들어갔다
+            }
+
+            // 교체 전에 들어온 삭제는 새 묶음에도 반영
+            removed.forEach(settingId -> removeFromBooks(fresh, settingId));
 
-            // 기존 맵 초기화
-            overMap.clear();
-            underMap.clear();
-            processedAlerts.clear();
+            appliedVersions.clear();
+            activeSettings.forEach(this::recordVersion);
+            processedAlerts.retainAll(activeIds);   // 비활성화까지 커밋된 것은 정리
+            syncedUpTo = startedAt;
 
-            log.info("총 {}개의 활성 알람 조건 로드됨", activeSettings.size());
-            loadConditions(activeSettings);
+            log.info("총 {}개의 활성 알람 조건 로드됨", armed.size());
+            writeSnapshot();
 
         } catch (Exception e) {
             log.error("알람 조건 로드 중 오류 발생", e);
+        } finally {
+            removedDuringRebuild = null;
+        }
+    }
+
+    /**
+     * 변경된 설정 1건 반영 – 이미 반영한 버전 이하면 무시. 반영했으면 true
+     */
+    private boolean applyDelta(StockAlertSetting setting) {
+        Long settingId = setting.getSettingId();
+        long version = versionOf(setting);
+        Long applied = appliedVersions.get(settingId);
+        if (applied != null && applied >= version) return false;
+
+        if (!partitions.owns(setting.getStock().getStockId())) {
+            appliedVersions.put(settingId, version);   // 다른 노드 담당
+            return false;
         }
+
+        int symbolId = symbols.register(setting.getStock().getStockId());
+        ConditionBooks b = books;
+        removeFromSymbol(b, symbolId, settingId);
+        processedAlerts.remove(settingId);
+
+        appliedVersions.put(settingId, version);
+        if (setting.getIsActive() == 1) {
+            loadConditions(b, Collections.singletonList(setting));
+            indexStore.journalAdd(new AlertIndexStore.Entry(toCondition(setting), version, -1, true));
+        } else {
+            indexStore.journalRemove(settingId);
+        }
+        return true;
+    }
+
+    private void recordVersion(StockAlertSetting setting) {
+        appliedVersions.merge(setting.getSettingId(), versionOf(setting), Math::max);
+    }
+
+    private static long versionOf(StockAlertSetting setting) {
+        LocalDateTime updatedAt = setting.getUpdatedAt();
+        return updatedAt == null ? 0L : updatedAt.atZone(ZoneId.systemDefault()).toInstant().toEpochMilli();
     }
 
     public void loadConditions(List<StockAlertSetting> settings) {
+        loadConditions(books, settings);
+    }
+
+    private void loadConditions(ConditionBooks b, List<StockAlertSetting> settings) {
+        List<AlertCondition> armed = new ArrayList<>(settings.size());
 
         for (StockAlertSetting setting : settings) {
             try {
-                AlertCondition condition = new AlertCondition(
-                        setting.getSettingId(),
-                        setting.getUser().getUserId(),
-                        setting.getStock().getStockId(),
-                        setting.getTargetPrice(),
-                        setting.getCondition());
-
-                if (condition.getCondition() == ConditionType.ABOVE) {
-
-                    overMap.computeIfAbsent(
-                            condition.getStockCode(),
-                            k -> new TreeMap<>() // 오름차순 정렬
-                    ).computeIfAbsent(
-                            condition.getTargetPrice(),
-                            k -> new ArrayList<>()
-                    ).add(condition);
-                } else {
-                    underMap.computeIfAbsent(
-                            condition.getStockCode(),
-                            k -> new TreeMap<>(Collections.reverseOrder()) // 내림차순 정렬
-                    ).computeIfAbsent(
-                            condition.getTargetPrice(),
-                            k -> new ArrayList<>()
-                    ).add(condition);
+                if (!partitions.owns(setting.getStock().getStockId())) continue;   // 다른 노드 담당
+                AlertCondition condition = toCondition(setting);
+
+                // 이름 캐시는 fetch join 으로 같이 온 값으로 갱신한다 (전체 findAll 재로드 없음)
+                names.putUser(setting.getUser().getUserId(), setting.getUser().getName());
+                names.putStock(setting.getStock().getStockId(), setting.getStock().getStockName());
+
+                int symbolId = symbols.register(condition.getStockCode());
+                // 쉬고 있는 반복 알람은 재무장될 때까지 목록에 넣지 않는다
+                if (condition.isRecurring()
+                        && rearm.restore(symbolId, condition, setting.getIsArmed(), setting.getLastTriggeredAt())) {
+                    continue;
                 }
+                armed.add(condition);
             } catch (Exception e) {
                 log.error("알람 조건 로드 실패: settingId={}", setting.getSettingId(), e);
             }
         }
+        insertAll(b, armed);
     }
 
-    private void loadCaches() {
-        try {
-            // 사용자 캐시 로드
-            userRepository.findAll().forEach(user -> userCache.put(user.getUserId(), user));
+    private void insertAll(ConditionBooks b, List<AlertCondition> conditions) {
+
+        // 종목·방향·가격 기준별로 모아서 한 번에 넣는다 (배열 재생성은 목록당 한 번)
+        int sources = PriceSource.values().length;
+        Map<Integer, List<AlertCondition>> overBatch = new HashMap<>();    // 키 = 심볼 ID × 가격 기준 수 + 기준
+        Map<Integer, List<AlertCondition>> underBatch = new HashMap<>();
+        Map<Integer, List<AlertCondition>> signalBatch = new HashMap<>();
+
+        for (AlertCondition condition : conditions) {
+            int symbolId = symbols.register(condition.getStockCode());
+            int priceKey = symbolId * sources + condition.getPriceSource().ordinal();
+            switch (condition.getCondition()) {
+                case ABOVE -> overBatch.computeIfAbsent(priceKey, k -> new ArrayList<>()).add(condition);
+                case BELOW -> underBatch.computeIfAbsent(priceKey, k -> new ArrayList<>()).add(condition);
+                default -> signalBatch.computeIfAbsent(symbolId, id -> new ArrayList<>()).add(condition);
+            }
+        }
 
-            // 주식 정보 캐시 로드
-            stockRepository.findAll().forEach(stock -> stockCache.put(stock.getStockId(), stock));
+        overBatch.forEach((key, batch) -> b.overMap[key % sources]
+                .computeIfAbsent(key / sources, id -> ThresholdBook.ascending()).addAll(batch));
+        underBatch.forEach((key, batch) -> b.underMap[key % sources]
+                .computeIfAbsent(key / sources, id -> ThresholdBook.descending()).addAll(batch));
+        signalBatch.forEach((symbolId, batch) ->
+                b.signalMap.computeIfAbsent(symbolId, id -> new SignalBooks()).addAll(batch));
+    }
 
-            log.info("캐시 로드 완료: 사용자 {}명, 주식 {}개", userCache.size(), stockCache.size());
-        } catch (Exception e) {
-            log.error("캐시 로드 중 오류 발생", e);
+    private AlertCondition toCondition(StockAlertSetting setting) {
+        boolean recurring = setting.isRecurringAlert();
+        int cooldownSeconds = setting.getCooldownSeconds() != null ? setting.getCooldownSeconds() : defaultCooldownSeconds;
+        return new AlertCondition(
+                setting.getSettingId(),
+                setting.getUser().getUserId(),
+                setting.getStock().getStockId(),
+                setting.getTargetPrice(),
+                setting.getCondition(),
+                recurring,
+                recurring ? cooldownSeconds * 1_000L : 0L,
+                recurring && setting.getRearmBp() != null ? setting.getRearmBp() : 0,
+                PriceSource.orDefault(setting.getPriceSource()),
+                setting.getHoldMs() != null ? setting.getHoldMs() : 0L);
+    }
+
+    // 조건 1건을 종류에 맞는 목록에 넣는다
+    private static void arm(ConditionBooks b, int symbolId, AlertCondition condition) {
+        switch (condition.getCondition()) {
+            case ABOVE -> overBook(b, symbolId, condition.getPriceSource()).add(condition);
+            case BELOW -> underBook(b, symbolId, condition.getPriceSource()).add(condition);
+            default -> b.signalMap.computeIfAbsent(symbolId, id -> new SignalBooks())
+                    .addAll(Collections.singletonList(condition));
         }
     }
 
-    private void refreshCaches() {
-        // 간단한 캐시 갱신 (실제로는 변경된 데이터만 갱신하는 것이 더 효율적)
-        userCache.clear();
-        stockCache.clear();
-        loadCaches();
+    private static ThresholdBook overBook(ConditionBooks b, int symbolId, PriceSource source) {
+        return b.overMap[source.ordinal()].computeIfAbsent(symbolId, id -> ThresholdBook.ascending());
+    }
+
+    private static ThresholdBook underBook(ConditionBooks b, int symbolId, PriceSource source) {
+        return b.underMap[source.ordinal()].computeIfAbsent(symbolId, id -> ThresholdBook.descending());
     }
 
     public void process(String stockCode, int currentPrice) {
+        int symbolId = symbols.idOf(stockCode);
+        if (symbolId == StockSymbolTable.UNKNOWN) return;   // 등록된 조건이 없는 종목
+        process(symbolId, PriceSource.BID, currentPrice, currentPrice, currentPrice);
+    }
+
+    /**
+     * 합쳐진(conflated) 업데이트 평가 – 마지막 평가 이후의 고가/저가를 같이 받아
+     * 중간 틱이 생략돼도 목표가 돌파를 놓치지 않는다. 가격 기준마다 따로 불린다.
+     */
+    public void process(int symbolId, PriceSource source, int lastPrice, int highPrice, int lowPrice) {
         try {
-//            log.debug("주식 가격 처리: 종목={}, 현재가={}", stockCode, currentPrice);
-            checkAndNotify(stockCode, currentPrice);
+//            log.debug("주식 가격 처리: 종목={}, 현재가={}", symbols.codeOf(symbolId), lastPrice);
+            checkAndNotify(symbolId, source, lastPrice, highPrice, lowPrice);
         } catch (Exception e) {
-            log.error("주식 가격 처리 중 오류 발생: 종목={}, 현재가={}", stockCode, currentPrice, e);
+            log.error("주식 가격 처리 중 오류 발생: 종목={}, 기준={}, 현재가={}", symbols.codeOf(symbolId), source, lastPrice, e);
         }
     }
 
-    private void checkAndNotify(String stockCode, int currentPrice) {
-        // ABOVE 조건 체크 (현재가가 목표가 이상인 경우)
-        NavigableMap<Integer, List<AlertCondition>> overConditions = overMap.get(stockCode);
-        if (overConditions != null) {
-            // 현재가 이하의 모든 목표가들을 가져옴 (즉, 조건을 만족하는 것들)
-            SortedMap<Integer, List<AlertCondition>> matched = overConditions.headMap(currentPrice, true);
+    /**
+     * 이 종목에 해당 가격 기준으로 평가할 게 있는지 – 매수1호가 외의 기준은 있을 때만 계산·평가한다.
+     */
+    boolean watches(int symbolId, PriceSource source) {
+        ConditionBooks b = books;
+        ThresholdBook over = b.overMap[source.ordinal()].get(symbolId);
+        ThresholdBook under = b.underMap[source.ordinal()].get(symbolId);
+        return (over != null && !over.isEmpty()) || (under != null && !under.isEmpty())
+                || rearm.watches(symbolId, source) || holds.watches(symbolId, source);
+    }
+
+    private void checkAndNotify(int symbolId, PriceSource source, int lastPrice, int highPrice, int lowPrice) {
+        ConditionBooks b = books;
+
+        // 쉬고 있는 반복 알람의 되돌림 확인 (발송보다 먼저 – 같은 구간에서 발송 직후 바로 풀리지 않도록)
+        rearm.checkPullback(symbolId, source, highPrice, lowPrice);
 
-            notifyAndRemove(matched, stockCode, currentPrice, "이상");
+        // 유지 시간 대기 중인 조건 판정 (이번 구간에 새로 도달한 것은 아래에서 대기를 시작한다)
+        if (holds.watches(symbolId, source)) settleHolds(b, symbolId, source, lastPrice, highPrice, lowPrice);
+
+        // ABOVE 조건 체크 (구간 고가가 목표가 이상인 경우)
+        ThresholdBook overConditions = b.overMap[source.ordinal()].get(symbolId);
+        if (overConditions != null) {
+            // 고가 이하의 모든 목표가들을 꺼냄 (즉, 조건을 만족하는 것들) – 대부분은 비교 한 번으로 빈 목록
+            List<AlertCondition> matched = overConditions.takeReached(highPrice);
+            if (!matched.isEmpty()) fireOrHold(overConditions, matched, symbolId, source, highPrice, "이상");
         }
 
-        // UNDER 조건 체크 (현재가가 목표가 이하인 경우)
-        NavigableMap<Integer, List<AlertCondition>> underConditions = underMap.get(stockCode);
+        // UNDER 조건 체크 (구간 저가가 목표가 이하인 경우)
+        ThresholdBook underConditions = b.underMap[source.ordinal()].get(symbolId);
         if (underConditions != null) {
-            // 현재가 이상의 모든 목표가들을 가져옴 (즉, 조건을 만족하는 것들)
-            SortedMap<Integer, List<AlertCondition>> matched = underConditions.headMap(currentPrice, true);
-            notifyAndRemove(matched, stockCode, currentPrice, "이하");
+            // 저가 이상의 모든 목표가들을 꺼냄 (즉, 조건을 만족하는 것들)
+            List<AlertCondition> matched = underConditions.takeReached(lowPrice);
+            if (!matched.isEmpty()) fireOrHold(underConditions, matched, symbolId, source, lowPrice, "이하");
+        }
+    }
+
+    // 유지 시간이 없는 조건은 바로 발송, 있는 조건은 대기석으로
+    private void fireOrHold(ThresholdBook book, List<AlertCondition> matched, int symbolId, PriceSource source,
+                            int price, String direction) {
+        List<AlertCondition> now = matched;
+        for (AlertCondition cond : matched) {
+            if (cond.getHoldMillis() > 0) {
+                now = new ArrayList<>(matched.size());
+                long nanos = System.nanoTime();
+                for (AlertCondition c : matched) {
+                    if (c.getHoldMillis() > 0) holds.hold(symbolId, c, nanos);
+                    else now.add(c);
+                }
+                break;
+            }
         }
+        if (!now.isEmpty()) notifyAndRemove(book, now, symbols.codeOf(symbolId), price, conditionText(direction, source));
+    }
+
+    private void settleHolds(ConditionBooks b, int symbolId, PriceSource source, int lastPrice, int highPrice, int lowPrice) {
+        List<AlertCondition> due = new ArrayList<>();
+        List<AlertCondition> broken = new ArrayList<>();
+        holds.settle(symbolId, source, highPrice, lowPrice, System.nanoTime(), due, broken);
+
+        // 벗어난 조건은 목록으로 되돌려 다시 도달을 기다린다
+        for (AlertCondition cond : broken) arm(b, symbolId, cond);
+
+        String stockCode = symbols.codeOf(symbolId);
+        for (AlertCondition cond : due) {
+            boolean above = cond.getCondition() == ConditionType.ABOVE;
+            ThresholdBook book = above ? overBook(b, symbolId, source) : underBook(b, symbolId, source);
+            notifyAndRemove(book, List.of(cond), stockCode, lastPrice, conditionText(above ? "이상" : "이하", source));
+        }
+    }
+
+    private static String conditionText(String direction, PriceSource source) {
+        return source == PriceSource.BID ? direction : direction + "(" + source.label() + " 기준)";
+    }
+
+    /**
+     * 지표 조건 평가 – 샤드 평가 스레드에서 갱신된 종목마다 사이클당 한 번.
+     * 지표값과 각 목록의 다음 기준값만 비교하므로 조건 수와 무관하게 상수 시간이다.
+     */
+    void evaluateSignals(SignalTracker.Signals s) {
+        SignalBooks sb = books.signalMap.get(s.symbolId);
+        if (sb == null) return;
+
+        String stockCode = symbols.codeOf(s.symbolId);
+        int price = s.currentPrice();
+
+        if (s.hasChangeRate) {
+            fireReached(sb.percentUp, s.changeRateBp, stockCode, price);
+            fireReached(sb.percentDown, -s.changeRateBp, stockCode, price);
+        }
+        int volumeRatio = s.volumeRatioPercent();
+        if (volumeRatio > 0) fireReached(sb.volumeSpike, volumeRatio, stockCode, price);
+        int spreadBp = s.spreadBp();
+        if (spreadBp > 0) fireReached(sb.spread, spreadBp, stockCode, price);
+
+        for (int k = 0; k < ConditionType.MA_PERIODS.length; k++) {
+            if ((s.crossedUp & (1 << k)) != 0) fireReached(sb.crossUp[k], ConditionType.MA_PERIODS[k], stockCode, price);
+            if ((s.crossedDown & (1 << k)) != 0) fireReached(sb.crossDown[k], ConditionType.MA_PERIODS[k], stockCode, price);
+        }
+    }
+
+    private void fireReached(ThresholdBook book, int value, String stockCode, int currentPrice) {
+        List<AlertCondition> matched = book.takeReached(value);
+        if (!matched.isEmpty()) notifyAndRemove(book, matched, stockCode, currentPrice, null);
     }
 
     private void notifyAndRemove(
-            SortedMap<Integer,
-                    List<AlertCondition>> matched,
+            ThresholdBook book,
+            List<AlertCondition> matched,
             String stockCode,
             int currentPrice,
             String conditionText
     ) {
-        List<AlertCondition> toRemove = new ArrayList<>();
-
-        for (Map.Entry<Integer, List<AlertCondition>> entry : matched.entrySet()) {
-            for (AlertCondition cond : entry.getValue()) {
-                try {
-                    // 중복 알림 방지
-                    if (processedAlerts.contains(cond.getSettingId())) {
-                        continue;
-                    }
-
-                    log.info("[ALERT] userId={}, 종목={}, 현재가={}, 목표가={}, 조건={}",
-                            cond.getUserId(), stockCode, currentPrice, cond.getTargetPrice(), cond.getCondition());
-
-                    // 캐시에서 사용자 정보 조회
-                    User user = userCache.get(cond.getUserId());
-                    if (user == null) {
-                        user = userRepository.findById(cond.getUserId()).orElseThrow(() -> new EntityNotFoundException("사용자를 찾을 수 없습니다: " + cond.getUserId()));
-                        userCache.put(cond.getUserId(), user); // 캐시 업데이트
-                    }
-
-                    // 캐시에서 주식 정보 조회
-                    Stock stock = stockCache.get(stockCode);
-                    if (stock == null) {
-                        stock = stockRepository.findById(stockCode).orElseThrow(() -> new EntityNotFoundException("주식을 찾을 수 없습니다: " + stockCode));
-                        stockCache.put(stockCode, stock); // 캐시 업데이트
-                    }
-
-                    // 알람 보내기 실행
-                    alarmHelper.createStockPriceAlarm(stockCode, user, cond.getTargetPrice(), currentPrice, stock.getStockName(), conditionText);
-
-                    // DB 업데이트 (영구적으로 비활성화)
-                    StockAlertSetting stockAlertSetting =
-                            stockAlertSettingRepository.findById(cond.getSettingId())
-                                    .orElseThrow(() -> new EntityNotFoundException());
-
-                    // is_active 0으로 처리 후 저장
-                    stockAlertSetting.updateIsActive();
-
-                    stockAlertSettingRepository.save(stockAlertSetting);
+        List<AlertCondition> failed = new ArrayList<>();
 
+        for (AlertCondition cond : matched) {
+            try {
+                // 중복 알림 방지 (재구성 직후 옛 묶음·새 묶음에 같은 조건이 겹친 경우 포함)
+                if (processedAlerts.contains(cond.getSettingId())
+                        || (cond.isRecurring() && rearm.isDisarmed(cond.getSettingId()))) {
+                    continue;
+                }
+
+                log.info("[ALERT] userId={}, 종목={}, 현재가={}, 기준값={}, 조건={}",
+                        cond.getUserId(), stockCode, currentPrice, cond.getTargetPrice(), cond.getCondition());
+
+                // 이름 조회 · 알람 저장 + 설정 비활성화(is_active 0)는 writer 스레드가 배치로 처리
+                // – 평가 스레드는 ID 만 담아 큐에 넣는다 (DB 조회 없음)
+                long now = System.currentTimeMillis();
+                alertWriter.enqueue(new StockAlertBatchWriter.FiredAlert(
+                        cond.getSettingId(), cond.getUserId(),
+                        stockCode, cond.getCondition(), cond.getTargetPrice(), currentPrice,
+                        conditionText, cond.isRecurring(), idempotencyKey(cond), cond));
+                metrics.recordFired(symbols.idOf(stockCode), cond.getCondition());
+
+                if (cond.isRecurring()) {
+                    // 반복 알람은 비활성화하지 않고 메모리에서만 쉬게 한다 (되돌림·쿨다운 후 재무장)
+                    rearm.disarm(symbols.idOf(stockCode), cond, now);
+                } else {
                     // 처리 완료 표시 (중복 방지)
                     processedAlerts.add(cond.getSettingId());
-                    toRemove.add(cond);
+                    indexStore.journalRemove(cond.getSettingId());
+                }
 
-                    log.info("알람 생성 완료: userId={}, 종목={}", cond.getUserId(), stockCode);
+                log.info("알람 발송 예약: userId={}, 종목={}", cond.getUserId(), stockCode);
 
-                } catch (Exception e) {
-                    log.error("개별 알람 처리 실패: settingId={}, userId={}, 종목={}", cond.getSettingId(), cond.getUserId(), stockCode, e);
-                    // 개별 실패가 전체를 막지 않도록 계속 진행
-                }
+            } catch (Exception e) {
+                log.error("개별 알람 처리 실패: settingId={}, userId={}, 종목={}", cond.getSettingId(), cond.getUserId(), stockCode, e);
+                // 개별 실패가 전체를 막지 않도록 계속 진행 (다음 틱에 다시 시도)
+                failed.add(cond);
             }
         }
 
-        // 처리된 조건들 제거
-        for (AlertCondition cond : toRemove) {
-            List<AlertCondition> conditions = matched.get(cond.getTargetPrice());
-            if (conditions != null) {
-                conditions.remove(cond);
-                if (conditions.isEmpty()) {
-                    matched.remove(cond.getTargetPrice());
+        // 처리 실패한 조건은 다시 넣는다 (성공한 조건은 이미 꺼내졌음)
+        book.addAll(failed);
+    }
+
+    /**
+     * writer 가 재시도까지 실패해 저장을 포기한 알람 – 1회성 조건을 발송 대기 표시에서 빼고 평가 목록 · 저널에 되돌린다.
+     * 설정 행은 비활성화되지 않았으므로 되돌리지 않으면 다음 전체 재구성에서도 발송 대기로 보고 건너뛴다.
+     * 반복 알람은 쿨다운이 지나면 재무장되므로 그대로 둔다.
+     */
+    private void restoreUnwritten(List<StockAlertBatchWriter.FiredAlert> alerts) {
+        int restored = 0;
+        // 전체 재구성의 묶음 교체와 엇갈리지 않도록 표시 해제 · 삽입을 한 번에
+        synchronized (armLock) {
+            ConditionBooks b = books;
+            for (StockAlertBatchWriter.FiredAlert alert : alerts) {
+                AlertCondition cond = alert.source();
+                if (cond.isRecurring() || !processedAlerts.remove(cond.getSettingId())) continue;   // 그새 삭제 · 변경됨
+                if (!partitions.owns(cond.getStockCode())) continue;   // 다른 노드로 넘어감
+
+                arm(b, symbols.register(cond.getStockCode()), cond);
+                indexStore.journalAdd(new AlertIndexStore.Entry(
+                        cond, appliedVersions.getOrDefault(cond.getSettingId(), 0L), -1, true));
+                restored++;
+            }
+        }
+        log.warn("저장 실패한 알람 조건 {}건을 평가 목록으로 되돌림", restored);
+    }
+
+    /**
+     * 알람 멱등 키 – 파티션을 넘겨받는 동안 두 노드가 같은 조건을 발송해도 알람은 한 건만 저장된다.
+     * 1회성은 설정 버전(updated_at)당 한 번, 반복 알람은 무장 회차당 한 번.
+     * 회차는 시각 구간이 아니라 그 회차를 연 직전 발송 시각({@link RearmIndex#cycleOf})이라,
+     * 같은 회차에서는 두 노드가 같은 키를 만들고 재무장 뒤의 정상 재발송은 새 키가 된다.
+     */
+    private String idempotencyKey(AlertCondition cond) {
+        String key = "SA:" + cond.getSettingId() + ":" + appliedVersions.getOrDefault(cond.getSettingId(), 0L);
+        if (!cond.isRecurring()) return key;
+        return key + ":" + rearm.cycleOf(cond.getSettingId());
+    }
+
+    // 🔥 맡은 파티션이 바뀌면 조건을 다시 로드하고 구독을 맞춘다
+    @EventListener
+    public void onPartitionChanged(AlertPartitionChangedEvent event) {
+        if (!event.released().isEmpty()) {
+            // 넘겨줄 종목의 재무장 상태를 먼저 기록해 새 담당 노드가 이어받게 한다
+            checkpointRearmState();
+            rearm.forgetIf(condition -> !partitions.owns(condition.getStockCode()));
+        }
+        rebuildConditions();
+        eventPublisher.publishEvent(StockAlertEvent.createRefresh());
+    }
+
+    // 🔥 쿨다운·되돌림을 채운 반복 알람을 다시 건다 (평가 스레드는 표시만 하고 목록 삽입은 여기서)
+    @Scheduled(fixedDelayString = "${alarm.rearm.sweep-ms:1000}")
+    public void rearmDue() {
+        try {
+            synchronized (armLock) {
+                ConditionBooks b = books;
+                for (RearmIndex.Disarmed d : rearm.takeDue(System.currentTimeMillis())) {
+                    arm(b, d.symbolId, d.condition);
                 }
             }
+        } catch (Exception e) {
+            log.error("반복 알람 재무장 중 오류 발생", e);
+        }
+    }
+
+    // 🔥 재무장 상태 체크포인트 (기본 30초마다 한 번에 기록) – 재기동 시 복원용
+    @Scheduled(fixedDelayString = "${alarm.rearm.checkpoint-ms:30000}")
+    public void checkpointRearmState() {
+        Map<Long, RearmIndex.Checkpoint> snapshot = rearm.pendingCheckpoints();
+        if (snapshot.isEmpty()) return;
+        try {
+            alertWriter.writeRearmCheckpoints(snapshot);
+            rearm.confirmCheckpoints(snapshot);
+        } catch (Exception e) {
+            log.warn("재무장 상태 체크포인트 실패 ({}건) – 다음 주기에 다시 기록", snapshot.size(), e);
         }
     }
 
+    public Map<String, Object> getRearmStats() {
+        return rearm.getStats();
+    }
+
+    public Map<String, Object> getNameCacheStats() {
+        return names.getStats();
+    }
+
     // 🔥 새로운 알람 설정이 추가될 때 호출 (수정됨)
     public void addCondition(StockAlertSetting setting) {
         try {
+            if (!partitions.owns(setting.getStock().getStockId())) {
+                // 담당 노드가 증분 동기화로 가져간다
+                log.info("다른 노드 담당 종목 – 증분 동기화로 반영: settingId={}", setting.getSettingId());
+                return;
+            }
             loadConditions(Collections.singletonList(setting));
+            recordVersion(setting);   // 증분 동기화에서 같은 변경을 다시 반영하지 않도록
+            indexStore.journalAdd(new AlertIndexStore.Entry(toCondition(setting), versionOf(setting), -1, true));
 
             // 🔥 WebSocket 구독 추가 (이벤트 발행)
             eventPublisher.publishEvent(StockAlertEvent.createAdd(setting.getStock().getStockId()));
@@ -256,21 +700,10 @@ public class StockPriceProcessor {
     // 🔥 알람 설정이 삭제될 때 호출 (수정됨)
     public void removeCondition(Long settingId, String stockCode, ConditionType conditionType, Integer targetPrice) {
         try {
-            Map<String, NavigableMap<Integer, List<AlertCondition>>> targetMap =
-                    (conditionType == ConditionType.ABOVE) ? overMap : underMap;
-
-            NavigableMap<Integer, List<AlertCondition>> stockConditions = targetMap.get(stockCode);
-            if (stockConditions != null) {
-                List<AlertCondition> conditions = stockConditions.get(targetPrice);
-                if (conditions != null) {
-                    conditions.removeIf(cond -> cond.getSettingId().equals(settingId));
-                    if (conditions.isEmpty()) {
-                        stockConditions.remove(targetPrice);
-                    }
-                    if (stockConditions.isEmpty()) {
-                        targetMap.remove(stockCode);
-                    }
-                }
+            // 빈 목록도 종목 칸에 그대로 둔다 (동시에 들어오는 추가와 엇갈려 조건을 잃지 않도록)
+            int symbolId = symbols.idOf(stockCode);
+            if (symbolId != StockSymbolTable.UNKNOWN) {
+                removeFromSymbol(books, symbolId, settingId);
             }
 
             // 🔥 수정: 조건 제거 후 해당 종목에 알람이 없는지 확인
@@ -280,6 +713,10 @@ public class StockPriceProcessor {
             }
 
             processedAlerts.remove(settingId);
+            appliedVersions.remove(settingId);
+            indexStore.journalRemove(settingId);
+            Set<Long> removed = removedDuringRebuild;
+            if (removed != null) removed.add(settingId);
             log.info("알람 조건 삭제됨: settingId={}, stockCode={}", settingId, stockCode);
         } catch (Exception e) {
             log.error("알람 조건 삭제 실패: settingId={}", settingId, e);
@@ -289,19 +726,41 @@ public class StockPriceProcessor {
 
     // 🔥 특정 종목에 알람이 있는지 확인
     private boolean hasAnyAlertForStock(String stockCode) {
-        return (overMap.containsKey(stockCode) && !overMap.get(stockCode).isEmpty()) ||
-                (underMap.containsKey(stockCode) && !underMap.get(stockCode).isEmpty());
+        int symbolId = symbols.idOf(stockCode);
+        ConditionBooks b = books;
+        for (PriceSource source : PriceSource.values()) {
+            ThresholdBook over = b.overMap[source.ordinal()].get(symbolId);
+            ThresholdBook under = b.underMap[source.ordinal()].get(symbolId);
+            if ((over != null && !over.isEmpty()) || (under != null && !under.isEmpty())) return true;
+        }
+        SignalBooks signal = b.signalMap.get(symbolId);
+        return (signal != null && !signal.isEmpty()) || rearm.hasAny(symbolId) || holds.hasAny(symbolId);
+    }
+
+    // 🔥 등락률·거래량 조건이나 체결가·VWAP 기준 목표가 조건이 있어 체결 구독도 필요한 종목인지
+    public boolean needsTradeFeed(String stockCode) {
+        int symbolId = symbols.idOf(stockCode);
+        ConditionBooks b = books;
+        for (PriceSource source : PriceSource.values()) {
+            if (!source.needsTradeFeed()) continue;
+            ThresholdBook over = b.overMap[source.ordinal()].get(symbolId);
+            ThresholdBook under = b.underMap[source.ordinal()].get(symbolId);
+            if ((over != null && !over.isEmpty()) || (under != null && !under.isEmpty())) return true;
+        }
+        SignalBooks signal = b.signalMap.get(symbolId);
+        return (signal != null && signal.needsTradeFeed()) || rearm.needsTradeFeed(symbolId)
+                || holds.needsTradeFeed(symbolId);
     }
 
     // 사용자 캐시 업데이트 (생성/수정 시 사용)
     public void updateUserCache(User user) {
-        userCache.put(user.getUserId(), user);
+        names.putUser(user.getUserId(), user.getName());
         log.info("사용자 캐시 업데이트: userId={}", user.getUserId());
     }
 
     // 사용자 캐시 삭제
     public void removeUserCache(Long userId) {
-        userCache.remove(userId);
+        names.removeUser(userId);
         log.info("사용자 캐시 삭제: userId={}", userId);
     }
 
@@ -312,6 +771,7 @@ public class StockPriceProcessor {
 
             // 먼저 기존 조건 제거 (settingId로 찾아서 제거)
             removeConditionBySettingId(setting.getSettingId());
+            recordVersion(setting);
 
             // 활성화된 설정이면 새로 추가
             if (setting.getIsActive() == 1) {
@@ -332,40 +792,41 @@ public class StockPriceProcessor {
     // settingId로 조건 제거 (내부 헬퍼 메서드)
     private void removeConditionBySettingId(Long settingId) {
         try {
-            // overMap에서 제거
-            removeFromMap(overMap, settingId);
-            // underMap에서 제거
-            removeFromMap(underMap, settingId);
+            // overMap / underMap 에서 제거
+            removeFromBooks(books, settingId);
             // processedAlerts에서도 제거
             processedAlerts.remove(settingId);
+            indexStore.journalRemove(settingId);
+            Set<Long> removed = removedDuringRebuild;
+            if (removed != null) removed.add(settingId);
         } catch (Exception e) {
             log.error("settingId로 조건 제거 실패: settingId={}", settingId, e);
         }
     }
 
-    // Map에서 settingId와 일치하는 조건 제거
-    private void removeFromMap(Map<String, NavigableMap<Integer, List<AlertCondition>>> targetMap, Long settingId) {
-        for (Iterator<Map.Entry<String, NavigableMap<Integer, List<AlertCondition>>>> stockIter = targetMap.entrySet().iterator(); stockIter.hasNext(); ) {
-            Map.Entry<String, NavigableMap<Integer, List<AlertCondition>>> stockEntry = stockIter.next();
-            NavigableMap<Integer, List<AlertCondition>> priceMap = stockEntry.getValue();
-
-            for (Iterator<Map.Entry<Integer, List<AlertCondition>>> priceIter = priceMap.entrySet().iterator(); priceIter.hasNext(); ) {
-                Map.Entry<Integer, List<AlertCondition>> priceEntry = priceIter.next();
-                List<AlertCondition> conditions = priceEntry.getValue();
-
-                // settingId와 일치하는 조건 제거
-                conditions.removeIf(cond -> cond.getSettingId().equals(settingId));
-
-                // 조건 리스트가 비어있으면 가격 엔트리 제거
-                if (conditions.isEmpty()) {
-                    priceIter.remove();
-                }
-            }
+    // 모든 종목 목록에서 settingId와 일치하는 조건 제거
+    private void removeFromBooks(ConditionBooks b, Long settingId) {
+        for (PriceSource source : PriceSource.values()) {
+            b.overMap[source.ordinal()].forEach((symbolId, book) -> book.remove(settingId));
+            b.underMap[source.ordinal()].forEach((symbolId, book) -> book.remove(settingId));
+        }
+        b.signalMap.forEach((symbolId, book) -> book.remove(settingId));
+        rearm.forget(settingId);
+        holds.forget(settingId);
+    }
 
-            // 가격 맵이 비어있으면 주식 엔트리 제거
-            if (priceMap.isEmpty()) {
-                stockIter.remove();
-            }
+    // 종목을 알 때 – 해당 종목의 목록에서만 제거 (조건 종류가 바뀌었을 수 있으므로 전부)
+    private void removeFromSymbol(ConditionBooks b, int symbolId, Long settingId) {
+        // 가격 기준이 바뀌었을 수 있으므로 기준별 목록 전부
+        for (PriceSource source : PriceSource.values()) {
+            ThresholdBook over = b.overMap[source.ordinal()].get(symbolId);
+            if (over != null) over.remove(settingId);
+            ThresholdBook under = b.underMap[source.ordinal()].get(symbolId);
+            if (under != null) under.remove(settingId);
         }
+        SignalBooks signal = b.signalMap.get(symbolId);
+        if (signal != null) signal.remove(settingId);
+        rearm.forget(settingId);
+        holds.forget(settingId);
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,180 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockAlertSetting.model.AlertCondition;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.function.Consumer;
+
+/**
+ * 한 종목·한 방향(이상/이하)의 목표가 목록 – primitive 정렬 배열 + 커서
+ * <p>
+ * 목표가는 {@code int[] keys} 에 오름차순으로, 같은 위치의 설정 ID·조건은 {@code long[] settingIds} /
+ * {@code AlertCondition[] conditions} 에 둔다. 이하(UNDER) 방향은 목표가의 부호를 뒤집어 저장해 같은 규칙으로 비교한다.
+ * 도달한 조건은 배열을 건드리지 않고 커서만 앞으로 옮기므로, 대부분의 틱은
+ * "다음 목표가 &lt;= 가격" 비교 한 번으로 끝난다. (박싱/트리 탐색 없음)
+ * <p>
+ * 배열 묶음은 불변 스냅샷이고 volatile 로 교체한다. 평가 스레드는 락 없이 스냅샷만 읽고,
+ * 조건 추가/삭제와 도달한 조건 꺼내기는 인스턴스 락으로 직렬화해 새 스냅샷을 만든다. (추가/삭제 때 커서 앞은 버린다)
+ */
+final class ThresholdBook {
+
+    private static final class Snapshot {
+        final int[] keys;
+        final long[] settingIds;
+        final AlertCondition[] conditions;
+        final int cursor;   // 아직 도달하지 않은 첫 위치
+        final int size;
+
+        Snapshot(int[] keys, long[] settingIds, AlertCondition[] conditions, int cursor, int size) {
+            this.keys = keys;
+            this.settingIds = settingIds;
+            this.conditions = conditions;
+            this.cursor = cursor;
+            this.size = size;
+        }
+    }
+
+    private static final Snapshot EMPTY = new Snapshot(new int[0], new long[0], new AlertCondition[0], 0, 0);
+
+    private final boolean descending;
+    private volatile Snapshot snapshot = EMPTY;
+
+    private ThresholdBook(boolean descending) {
+        this.descending = descending;
+    }
+
+    /**
+     * 가격 이상 조건 – 구간 고가가 목표가 이상이면 도달
+     */
+    static ThresholdBook ascending() {
+        return new ThresholdBook(false);
+    }
+
+    /**
+     * 가격 이하 조건 – 구간 저가가 목표가 이하이면 도달
+     */
+    static ThresholdBook descending() {
+        return new ThresholdBook(true);
+    }
+
+    private int keyOf(int price) {
+        return descending ? -price : price;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 평가 (hot path)                                                     */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 가격이 닿은 조건을 모두 꺼낸다. 닿은 게 없으면 락 없이 빈 목록.
+     */
+    List<AlertCondition> takeReached(int price) {
+        int probe = keyOf(price);
+        Snapshot s = snapshot;
+        if (s.cursor >= s.size || s.keys[s.cursor] > probe) return Collections.emptyList();
+
+        synchronized (this) {
+            s = snapshot;
+            int from = s.cursor;
+            int to = from;
+            while (to < s.size && s.keys[to] <= probe) to++;
+            if (to == from) return Collections.emptyList();
+
+            snapshot = new Snapshot(s.keys, s.settingIds, s.conditions, to, s.size);
+            return Arrays.asList(Arrays.copyOfRange(s.conditions, from, to));
+        }
+    }
+
+    int pendingCount() {
+        Snapshot s = snapshot;
+        return s.size - s.cursor;
+    }
+
+    boolean isEmpty() {
+        return pendingCount() == 0;
+    }
+
+    /**
+     * 아직 도달하지 않은 조건을 순서대로 넘긴다 (인덱스 스냅샷용 – 호출 시점의 스냅샷 기준)
+     */
+    void forEachPending(Consumer<AlertCondition> action) {
+        Snapshot s = snapshot;
+        for (int i = s.cursor; i < s.size; i++) action.accept(s.conditions[i]);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 변경 (cold path)                                                    */
+    /* ------------------------------------------------------------------ */
+
+    synchronized void add(AlertCondition condition) {
+        addAll(Collections.singletonList(condition));
+    }
+
+    /**
+     * 여러 건을 한 번에 추가 – 스냅샷은 한 번만 새로 만든다. (초기 로드, 처리 실패한 조건 되돌리기)
+     */
+    synchronized void addAll(List<AlertCondition> added) {
+        if (added.isEmpty()) return;
+
+        List<AlertCondition> sorted = new ArrayList<>(added);
+        sorted.sort(Comparator.comparingInt(c -> keyOf(c.getTargetPrice())));   // stable – 같은 목표가는 들어온 순서대로
+
+        // 기존(커서 이후)과 추가분 병합 – 같은 목표가면 기존 것이 앞
+        Snapshot s = snapshot;
+        int n = s.size - s.cursor + sorted.size();
+        int[] keys = new int[n];
+        long[] ids = new long[n];
+        AlertCondition[] conds = new AlertCondition[n];
+
+        int i = s.cursor;
+        int j = 0;
+        for (int k = 0; k < n; k++) {
+            AlertCondition next = j < sorted.size() ? sorted.get(j) : null;
+            if (i < s.size && (next == null || s.keys[i] <= keyOf(next.getTargetPrice()))) {
+                keys[k] = s.keys[i];
+                ids[k] = s.settingIds[i];
+                conds[k] = s.conditions[i];
+                i++;
+            } else {
+                keys[k] = keyOf(next.getTargetPrice());
+                ids[k] = next.getSettingId();
+                conds[k] = next;
+                j++;
+            }
+        }
+        snapshot = new Snapshot(keys, ids, conds, 0, n);
+    }
+
+    /**
+     * 설정 ID 로 아직 도달하지 않은 조건을 뺀다. 있었으면 true
+     */
+    synchronized boolean remove(long settingId) {
+        Snapshot s = snapshot;
+        int hit = -1;
+        for (int i = s.cursor; i < s.size; i++) {
+            if (s.settingIds[i] == settingId) {
+                hit = i;
+                break;
+            }
+        }
+        if (hit < 0) return false;
+
+        int live = s.size - s.cursor - 1;
+        int[] keys = new int[live];
+        long[] ids = new long[live];
+        AlertCondition[] conds = new AlertCondition[live];
+        int head = hit - s.cursor;
+        System.arraycopy(s.keys, s.cursor, keys, 0, head);
+        System.arraycopy(s.settingIds, s.cursor, ids, 0, head);
+        System.arraycopy(s.conditions, s.cursor, conds, 0, head);
+        System.arraycopy(s.keys, hit + 1, keys, head, live - head);
+        System.arraycopy(s.settingIds, hit + 1, ids, head, live - head);
+        System.arraycopy(s.conditions, hit + 1, conds, head, live - head);
+        snapshot = new Snapshot(keys, ids, conds, 0, live);
+        return true;
+    }
+}
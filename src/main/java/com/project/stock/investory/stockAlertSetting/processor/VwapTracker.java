@@ -0,0 +1,87 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import java.util.Arrays;
+
+/**
+ * 종목별 최근 N초 VWAP – 샤드 평가 스레드 하나가 전용으로 쓴다.
+ * <p>
+ * 1초 단위 칸(가격×수량 합, 수량 합)을 N칸 원형 배열로 두고 합계를 같이 들고 있다.
+ * 체결마다 현재 칸에 더하고, 초가 넘어가면 창 밖으로 밀려난 칸만 합계에서 뺀다. (체결당 상수 시간)
+ * 시간은 수신 시각(nanoTime) 기준이다.
+ */
+final class VwapTracker {
+
+    private static final long SECOND_NANOS = 1_000_000_000L;
+
+    private static final class Window {
+        private final long[] notional;   // 칸별 가격×수량
+        private final long[] volume;     // 칸별 수량
+        private long second = Long.MIN_VALUE;   // 현재 칸의 초 (MIN = 아직 없음)
+        private long notionalSum;
+        private long volumeSum;
+
+        private Window(int seconds) {
+            this.notional = new long[seconds];
+            this.volume = new long[seconds];
+        }
+    }
+
+    private final int seconds;
+    private Window[] slots = new Window[256];
+
+    VwapTracker(int seconds) {
+        this.seconds = Math.max(1, seconds);
+    }
+
+    /**
+     * 체결 1건 반영 후 현재 VWAP (원, 반올림). 창 안에 체결량이 없으면 0
+     */
+    int onTrade(int symbolId, int price, long qty, long receivedNanos) {
+        Window w = slot(symbolId);
+        long now = receivedNanos / SECOND_NANOS;
+        advance(w, now);
+
+        if (qty > 0 && price > 0) {
+            int i = (int) Math.floorMod(now, (long) seconds);
+            w.notional[i] += price * qty;
+            w.volume[i] += qty;
+            w.notionalSum += price * qty;
+            w.volumeSum += qty;
+        }
+        return w.volumeSum == 0 ? 0 : (int) ((w.notionalSum + w.volumeSum / 2) / w.volumeSum);
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private void advance(Window w, long now) {
+        if (w.second == now) return;
+        if (w.second == Long.MIN_VALUE || now - w.second >= seconds) {
+            // 창 전체가 지났다
+            Arrays.fill(w.notional, 0);
+            Arrays.fill(w.volume, 0);
+            w.notionalSum = 0;
+            w.volumeSum = 0;
+        } else {
+            for (long s = w.second + 1; s <= now; s++) {
+                int i = (int) Math.floorMod(s, (long) seconds);
+                w.notionalSum -= w.notional[i];
+                w.volumeSum -= w.volume[i];
+                w.notional[i] = 0;
+                w.volume[i] = 0;
+            }
+        }
+        w.second = now;
+    }
+
+    private Window slot(int symbolId) {
+        if (symbolId >= slots.length) {
+            slots = Arrays.copyOf(slots, Math.max(slots.length * 2, symbolId + 1));
+        }
+        Window w = slots[symbolId];
+        if (w == null) {
+            w = new Window(seconds);
+            slots[symbolId] = w;
+        }
+        return w;
+    }
+}
@@ -7,6 +7,7 @@ import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.query.Param;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Optional;
 
@@ -18,6 +19,15 @@ public interface StockAlertSettingRepository extends JpaRepository<StockAlertSet
 
     List<StockAlertSetting> findByIsActiveTrue();
 
+    // 🔥 알람 조건 전체 재구성용 – user/stock 을 한 번에 (N+1 방지)
+    @Query("SELECT s FROM StockAlertSetting s JOIN FETCH s.user JOIN FETCH s.stock WHERE s.isActive = 1")
+    List<StockAlertSetting> findActiveWithUserAndStock();
+
+    // 🔥 증분 동기화용 – updated_at 이 기준 시각 이후인 설정 (활성/비활성 모두)
+    @Query("SELECT s FROM StockAlertSetting s JOIN FETCH s.user JOIN FETCH s.stock " +
+            "WHERE s.updatedAt > :since ORDER BY s.updatedAt")
+    List<StockAlertSetting> findChangedSince(@Param("since") LocalDateTime since);
+
     // 🔥 활성化된 알람 설정의 종목 코드들을 조회
     @Query("SELECT DISTINCT s.stock.stockId FROM StockAlertSetting s WHERE s.isActive = 1")
     List<String> findActiveStockCodes();
@@ -65,6 +65,10 @@ public class StockAlertSettingService {
                         .createdAt(LocalDateTime.now())
                         .updatedAt(LocalDateTime.now())
                         .build();
+        stockAlertSetting.updateRecurrence(
+                Boolean.TRUE.equals(request.getRecurring()), request.getCooldownSeconds(), request.getRearmBp());
+        stockAlertSetting.updateTrigger(request.getPriceSource(), request.getHoldMs());
+        stockAlertSetting.validateTarget();
 
         StockAlertSetting savedStockAlertSetting = stockAlertSettingRepository.save(stockAlertSetting);
 
@@ -77,6 +81,11 @@ public class StockAlertSettingService {
                 .stockId(savedStockAlertSetting.getStock().getStockId())
                 .targetPrice(savedStockAlertSetting.getTargetPrice())
                 .condition(savedStockAlertSetting.getCondition())
+                .recurring(savedStockAlertSetting.isRecurringAlert())
+                .cooldownSeconds(savedStockAlertSetting.getCooldownSeconds())
+                .rearmBp(savedStockAlertSetting.getRearmBp())
+                .priceSource(savedStockAlertSetting.getPriceSource())
+                .holdMs(savedStockAlertSetting.getHoldMs())
                 .build();
 
     }
@@ -104,6 +113,11 @@ public class StockAlertSettingService {
                         .stockId(setting.getStock().getStockId())
                         .targetPrice(setting.getTargetPrice())
                         .condition(setting.getCondition())
+                        .recurring(setting.isRecurringAlert())
+                        .cooldownSeconds(setting.getCooldownSeconds())
+                        .rearmBp(setting.getRearmBp())
+                        .priceSource(setting.getPriceSource())
+                        .holdMs(setting.getHoldMs())
                         .createdAt(setting.getCreatedAt())
                         .build())
                 .collect(Collectors.toList());
@@ -128,6 +142,11 @@ public class StockAlertSettingService {
                 .stockId(setting.getStock().getStockId())
                 .targetPrice(setting.getTargetPrice())
                 .condition(setting.getCondition())
+                .recurring(setting.isRecurringAlert())
+                .cooldownSeconds(setting.getCooldownSeconds())
+                .rearmBp(setting.getRearmBp())
+                .priceSource(setting.getPriceSource())
+                .holdMs(setting.getHoldMs())
                 .createdAt(setting.getCreatedAt())
                 .build();
     }
@@ -157,6 +176,17 @@ public class StockAlertSettingService {
         if (request.getCondition() != null) {
             setting.updateCondition(request.getCondition());
         }
+        if (request.getRecurring() != null) {
+            setting.updateRecurrence(request.getRecurring(), request.getCooldownSeconds(), request.getRearmBp());
+        }
+        if (request.getPriceSource() != null || request.getHoldMs() != null) {
+            // 보낸 항목만 바꾼다
+            setting.updateTrigger(
+                    request.getPriceSource() != null ? request.getPriceSource() : setting.getPriceSource(),
+                    request.getHoldMs() != null ? request.getHoldMs() : setting.getHoldMs());
+        }
+        setting.validateTarget();
+        setting.rearm();   // 수정된 조건은 쿨다운 없이 바로 다시 건다
 
         // 저장
         StockAlertSetting updatedSetting = stockAlertSettingRepository.save(setting);
@@ -169,6 +199,11 @@ public class StockAlertSettingService {
                 .stockId(updatedSetting.getStock().getStockId())
                 .targetPrice(updatedSetting.getTargetPrice())
                 .condition(updatedSetting.getCondition())
+                .recurring(updatedSetting.isRecurringAlert())
+                .cooldownSeconds(updatedSetting.getCooldownSeconds())
+                .rearmBp(updatedSetting.getRearmBp())
+                .priceSource(updatedSetting.getPriceSource())
+                .holdMs(updatedSetting.getHoldMs())
                 .build();
     }
 
@@ -192,6 +227,11 @@ public class StockAlertSettingService {
                         .stockId(setting.getStock().getStockId())
                         .targetPrice(setting.getTargetPrice())
                         .condition(setting.getCondition())
+                        .recurring(setting.isRecurringAlert())
+                        .cooldownSeconds(setting.getCooldownSeconds())
+                        .rearmBp(setting.getRearmBp())
+                        .priceSource(setting.getPriceSource())
+                        .holdMs(setting.getHoldMs())
                         .build();
 
         // 🔥 실시간 알람 조건 제거 (삭제 전에 호출)
@@ -0,0 +1,20 @@
+package com.project.stock.investory.stockInfo.capture;
+
+/**
+ * KIS 원본 프레임 캡처 파일 형식 (ByteBuffer 기본 big-endian)
+ * <pre>
+ * header : magic(8) "KISCAP01" | startEpochMillis(8)
+ * record : offsetNanos(8) | length(4) | UTF-8 bytes(length)
+ * </pre>
+ * offsetNanos 는 캡처 시작 시점(System.nanoTime) 기준 경과 시간이다.
+ * 비정상 종료로 뒤쪽이 0 으로 채워진 경우 length 0 인 레코드에서 끝난 것으로 본다.
+ */
+final class KisCaptureFormat {
+
+    static final long MAGIC = 0x4B49534341503031L;   // "KISCAP01"
+    static final int HEADER_BYTES = 16;
+    static final int RECORD_HEADER_BYTES = 12;
+
+    private KisCaptureFormat() {
+    }
+}
@@ -0,0 +1,61 @@
+package com.project.stock.investory.stockInfo.capture;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+/**
+ * 캡처 파일({@link KisCaptureFormat})을 처음부터 순서대로 읽는다.
+ */
+public final class KisCaptureReader {
+
+    @FunctionalInterface
+    public interface FrameHandler {
+        /**
+         * false 를 돌려주면 읽기를 멈춘다.
+         */
+        boolean onFrame(long offsetNanos, String frame) throws Exception;
+    }
+
+    private KisCaptureReader() {
+    }
+
+    /**
+     * @return 읽은 프레임 수
+     */
+    public static long read(Path file, FrameHandler handler) throws Exception {
+        try (InputStream raw = Files.newInputStream(file);
+             DataInputStream in = new DataInputStream(new BufferedInputStream(raw, 1 << 16))) {
+
+            if (in.readLong() != KisCaptureFormat.MAGIC) {
+                throw new IOException("KIS 캡처 파일이 아닙니다: " + file);
+            }
+            in.readLong();   // startEpochMillis
+
+            long count = 0;
+            byte[] bytes = new byte[4096];
+            while (true) {
+                long offset;
+                int length;
+                try {
+                    offset = in.readLong();
+                    length = in.readInt();
+                } catch (EOFException e) {
+                    break;
+                }
+                if (length <= 0) break;   // 잘리지 않은 빈 구간 (비정상 종료)
+
+                if (length > bytes.length) bytes = new byte[Integer.highestOneBit(length) << 1];
+                in.readFully(bytes, 0, length);
+                count++;
+                if (!handler.onFrame(offset, new String(bytes, 0, length, StandardCharsets.UTF_8))) break;
+            }
+            return count;
+        }
+    }
+}
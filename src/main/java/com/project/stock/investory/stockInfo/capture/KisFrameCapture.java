@@ -0,0 +1,128 @@
+package com.project.stock.investory.stockInfo.capture;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDateTime;
+import java.time.format.DateTimeFormatter;
+
+/**
+ * KIS 실시간 원본 프레임 캡처 (kis.capture.enabled=true 일 때만 등록)
+ * <p>
+ * 게이트웨이가 받은 문자열 프레임을 수신 시각(nanoTime)과 함께 메모리 맵 파일에 그대로 덧붙인다.
+ * 파일은 {@code kis.capture.segment-mb} 단위로 늘려 가며 매핑하고, 종료 시 실제 쓴 길이로 잘라 낸다.
+ * 형식은 {@link KisCaptureFormat}, 재생은 {@link KisReplayWebSocketHandler} 참고.
+ */
+@Slf4j
+@Component
+@ConditionalOnProperty(name = "kis.capture.enabled", havingValue = "true")
+public class KisFrameCapture {
+
+    @Value("${kis.capture.dir:capture}")
+    private String dir;
+
+    @Value("${kis.capture.segment-mb:64}")
+    private int segmentMb;
+
+    private FileChannel channel;
+    private MappedByteBuffer buffer;
+    private long segmentBase;      // 현재 매핑 구간의 파일 내 시작 위치
+    private long startNanos;
+    private Path file;
+    private long frames;
+
+    @PostConstruct
+    public void open() throws IOException {
+        Path directory = Path.of(dir);
+        Files.createDirectories(directory);
+        file = directory.resolve("kis-" + LocalDateTime.now().format(DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss")) + ".cap");
+
+        channel = FileChannel.open(file, StandardOpenOption.CREATE_NEW, StandardOpenOption.READ, StandardOpenOption.WRITE);
+        map(0, 0);
+        startNanos = System.nanoTime();
+        buffer.putLong(KisCaptureFormat.MAGIC);
+        buffer.putLong(System.currentTimeMillis());
+        log.info("KIS 프레임 캡처 시작: {}", file.toAbsolutePath());
+    }
+
+    /**
+     * 수신 스레드에서 호출 – ASCII 프레임은 String → byte[] 변환 없이 바로 쓴다.
+     */
+    public synchronized void append(String frame) {
+        if (buffer == null) return;
+
+        long offset = System.nanoTime() - startNanos;
+        int n = frame.length();
+        try {
+            ensureRemaining(KisCaptureFormat.RECORD_HEADER_BYTES + n * 3);   // UTF-8 최악의 경우
+
+            buffer.putLong(offset);
+            int lengthAt = buffer.position();
+            buffer.putInt(0);
+
+            int start = buffer.position();
+            boolean ascii = true;
+            for (int i = 0; i < n; i++) {
+                char c = frame.charAt(i);
+                if (c >= 0x80) {
+                    ascii = false;
+                    break;
+                }
+                buffer.put((byte) c);
+            }
+            if (!ascii) {
+                buffer.position(start);
+                buffer.put(frame.getBytes(StandardCharsets.UTF_8));
+            }
+            buffer.putInt(lengthAt, buffer.position() - start);
+            frames++;
+        } catch (IOException e) {
+            log.error("KIS 프레임 캡처 실패 – 캡처를 중단합니다", e);
+            close();
+        }
+    }
+
+    public Path getFile() {
+        return file;
+    }
+
+    @PreDestroy
+    public synchronized void close() {
+        if (buffer == null) return;
+        try {
+            long written = segmentBase + buffer.position();
+            buffer.force();
+            buffer = null;
+            channel.truncate(written);
+            channel.close();
+            log.info("KIS 프레임 캡처 종료: {} ({}건, {} bytes)", file, frames, written);
+        } catch (IOException e) {
+            log.warn("캡처 파일 닫기 실패: {}", file, e);
+        }
+    }
+
+    private void ensureRemaining(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) return;
+        map(segmentBase + buffer.position(), bytes);
+    }
+
+    /**
+     * position 부터 한 구간 매핑 – 구간보다 큰 프레임이면 그 프레임이 들어갈 만큼
+     */
+    private void map(long position, long minBytes) throws IOException {
+        if (buffer != null) buffer.force();
+        segmentBase = position;
+        buffer = channel.map(FileChannel.MapMode.READ_WRITE, position, Math.max((long) segmentMb << 20, minBytes));
+    }
+}
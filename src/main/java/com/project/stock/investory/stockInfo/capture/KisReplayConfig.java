@@ -0,0 +1,36 @@
+package com.project.stock.investory.stockInfo.capture;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.web.socket.config.annotation.EnableWebSocket;
+import org.springframework.web.socket.config.annotation.WebSocketConfigurer;
+import org.springframework.web.socket.config.annotation.WebSocketHandlerRegistry;
+
+import java.nio.file.Path;
+
+/**
+ * replay 프로필에서만 로컬 KIS 재생 서버(/kis-replay)를 띄운다.
+ * <p>
+ * 예) --spring.profiles.active=replay --kis.replay.file=capture/kis-20250701-090000.cap
+ * --kis.replay.speed=10 --kis.ws.url=ws://localhost:8080/kis-replay
+ */
+@Configuration
+@EnableWebSocket
+@Profile("replay")
+public class KisReplayConfig implements WebSocketConfigurer {
+
+    @Value("${kis.replay.file}")
+    private String file;
+
+    @Value("${kis.replay.speed:1.0}")
+    private double speed;   // 1 = 실시간, N = N배속, 0 = 최대 속도
+
+    @Value("${kis.replay.loop:false}")
+    private boolean loop;
+
+    @Override
+    public void registerWebSocketHandlers(WebSocketHandlerRegistry registry) {
+        registry.addHandler(new KisReplayWebSocketHandler(Path.of(file), speed, loop), "/kis-replay");
+    }
+}
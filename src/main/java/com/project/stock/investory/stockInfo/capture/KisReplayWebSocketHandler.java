@@ -0,0 +1,100 @@
+package com.project.stock.investory.stockInfo.capture;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.web.socket.CloseStatus;
+import org.springframework.web.socket.TextMessage;
+import org.springframework.web.socket.WebSocketSession;
+import org.springframework.web.socket.handler.TextWebSocketHandler;
+
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 로컬 KIS 재생 서버 – 캡처 파일을 실제 KIS WebSocket 처럼 흘려 보낸다. (replay 프로필 전용)
+ * <p>
+ * 게이트웨이를 {@code kis.ws.url=ws://localhost:8080/kis-replay} 로 붙이면, 첫 등록 패킷을 받는 순간부터
+ * 캡처된 실시간 프레임(0|/1| 로 시작)을 기록된 간격 ÷ {@code speed} 로 재생한다. speed 가 0 이하면 최대 속도.
+ * 등록/해제 패킷에는 KIS 와 같은 형식의 성공 응답을 돌려주고, 재생이 끝나면 처리량을 로그로 남긴다.
+ */
+@Slf4j
+public class KisReplayWebSocketHandler extends TextWebSocketHandler {
+
+    private final Path captureFile;
+    private final double speed;
+    private final boolean loop;
+    private final ObjectMapper om = new ObjectMapper();
+    // 세션 ID → 재생 스레드 – 재생이 끝나도 연결이 닫힐 때까지(afterConnectionClosed) 남겨 세션당 한 번만 재생한다
+    private final Map<String, Thread> players = new ConcurrentHashMap<>();
+
+    public KisReplayWebSocketHandler(Path captureFile, double speed, boolean loop) {
+        this.captureFile = captureFile;
+        this.speed = speed;
+        this.loop = loop;
+    }
+
+    @Override
+    protected void handleTextMessage(WebSocketSession session, TextMessage message) throws Exception {
+        JsonNode header = om.readTree(message.getPayload()).path("header");
+        String trId = header.path("tr_id").asText("");
+        String trKey = header.path("tr_key").asText("");
+        boolean subscribe = "1".equals(header.path("tr_type").asText("1"));
+
+        send(session, """
+                {"header":{"tr_id":"%s","tr_key":"%s","encrypt":"N"},"body":{"rt_cd":"0","msg_cd":"%s","msg1":"%s"}}"""
+                .formatted(trId, trKey, subscribe ? "OPSP0000" : "OPSP0001",
+                        subscribe ? "SUBSCRIBE SUCCESS" : "UNSUBSCRIBE SUCCESS"));
+
+        players.computeIfAbsent(session.getId(), id -> {
+            Thread player = new Thread(() -> play(session), "kis-replay-" + id);
+            player.setDaemon(true);
+            player.start();
+            return player;
+        });
+    }
+
+    @Override
+    public void afterConnectionClosed(WebSocketSession session, CloseStatus status) {
+        Thread player = players.remove(session.getId());
+        if (player != null) player.interrupt();
+    }
+
+    private void play(WebSocketSession session) {
+        try {
+            do {
+                long[] sent = {0};
+                long begin = System.nanoTime();
+
+                KisCaptureReader.read(captureFile, (offsetNanos, frame) -> {
+                    if (Thread.currentThread().isInterrupted() || !session.isOpen()) return false;
+                    if (!frame.startsWith("0|") && !frame.startsWith("1|")) return true;   // 응답 · PINGPONG 은 건너뜀
+
+                    if (speed > 0) {
+                        long due = begin + (long) (offsetNanos / speed);
+                        for (long wait; (wait = due - System.nanoTime()) > 0; ) LockSupport.parkNanos(wait);
+                    }
+                    send(session, frame);
+                    sent[0]++;
+                    return true;
+                });
+
+                long elapsedMs = Math.max(1, (System.nanoTime() - begin) / 1_000_000);
+                log.info("KIS 재생 완료: {}건, {}ms ({}건/초)", sent[0], elapsedMs, sent[0] * 1_000 / elapsedMs);
+            } while (loop && session.isOpen() && !Thread.currentThread().isInterrupted());
+        } catch (Exception e) {
+            log.warn("KIS 재생 중단: {}", captureFile, e);
+        }
+    }
+
+    /**
+     * 응답(웹소켓 스레드)과 재생(재생 스레드)이 같은 세션에 쓰므로 세션 단위로 직렬화
+     */
+    private void send(WebSocketSession session, String text) throws Exception {
+        synchronized (session) {
+            session.sendMessage(new TextMessage(text));
+        }
+    }
+}
@@ -2,6 +2,7 @@ package com.project.stock.investory.stockInfo.controller;
 
 
 import com.project.stock.investory.stockInfo.service.StockWebSocketService;
+import com.project.stock.investory.stockInfo.service.StreamSpec;
 import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.http.HttpHeaders;
@@ -10,6 +11,8 @@ import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.util.List;
+
 
 @RestController
 @RequestMapping("/stock")
@@ -24,18 +27,64 @@ public class StockStreamController {
      * 실시간 주식 가격 스트리밍
      * 사용법: GET /stock/{stockId}/price
      * 예: GET /stock/005930/price (삼성전자)
+     * 방식: ?mode=raw (기본, 체결마다) | ?mode=throttled&intervalMs=250 (N ms 마다 마지막 체결) | ?mode=bar&bar=1s|5s|1m (OHLCV 봉)
      */
     @GetMapping(value = "/{stockId}/realTimeprice",produces = MediaType.TEXT_EVENT_STREAM_VALUE )
-    public ResponseEntity<SseEmitter> getStockPrice(@PathVariable String stockId) {
+    public ResponseEntity<SseEmitter> getStockPrice(
+            @PathVariable String stockId,
+            @RequestParam(required = false) String mode,
+            @RequestParam(required = false) Long intervalMs,
+            @RequestParam(required = false) String bar
+    ) {
 
-        log.info("실시간 주식 가격 요청: {}", stockId);
-        SseEmitter emitter = service.getStockPriceStream(stockId);
+        StreamSpec spec = StreamSpec.parse(mode, intervalMs, bar);
+        log.info("실시간 주식 가격 요청: {} ({})", stockId, spec);
+        SseEmitter emitter = service.getStockPriceStream(stockId, spec);
 
         return ResponseEntity.ok()
                 .header(HttpHeaders.CONTENT_TYPE, "text/event-stream;charset=UTF-8") // ← 강제
                 .body(emitter);
     }
 
+    /**
+     * 관심종목 실시간 스트리밍 – 연결 하나로 여러 종목을 받는다. (이벤트의 stockId 로 구분)
+     * 사용법: GET /stock/watchlist/stream?symbols=005930,000660&mode=throttled&intervalMs=500
+     * 첫 "watchlist" 이벤트의 id 로 도중에 종목을 더하고 뺀다.
+     * <p>
+     * 스트림과 종목 추가/제거 모두 로그인 없이 쓸 수 있다. 시세는 공개 데이터이고, 종목을 바꾸는 권한은
+     * 그 연결에만 전달되는 watch id(임의 UUID)를 아는 것으로 본다. (id 를 공유하면 그 스트림을 바꿀 수 있다)
+     */
+    @GetMapping(value = "/watchlist/stream", produces = MediaType.TEXT_EVENT_STREAM_VALUE)
+    public ResponseEntity<SseEmitter> getWatchlistStream(
+            @RequestParam List<String> symbols,
+            @RequestParam(required = false) String mode,
+            @RequestParam(required = false) Long intervalMs,
+            @RequestParam(required = false) String bar
+    ) {
+
+        StreamSpec spec = StreamSpec.parse(mode, intervalMs, bar);
+        log.info("관심종목 실시간 요청: {} ({})", symbols, spec);
+        SseEmitter emitter = service.getWatchlistStream(symbols, spec);
+
+        return ResponseEntity.ok()
+                .header(HttpHeaders.CONTENT_TYPE, "text/event-stream;charset=UTF-8")
+                .body(emitter);
+    }
+
+    // 관심종목 스트림에 종목 추가
+    @PostMapping("/watchlist/{watchId}/symbols/{stockId}")
+    public ResponseEntity<Void> addWatchSymbol(@PathVariable String watchId, @PathVariable String stockId) {
+        service.addWatchSymbol(watchId, stockId);
+        return ResponseEntity.noContent().build();
+    }
+
+    // 관심종목 스트림에서 종목 제거
+    @DeleteMapping("/watchlist/{watchId}/symbols/{stockId}")
+    public ResponseEntity<Void> removeWatchSymbol(@PathVariable String watchId, @PathVariable String stockId) {
+        service.removeWatchSymbol(watchId, stockId);
+        return ResponseEntity.noContent().build();
+    }
+
     /**
      * 웹페이지에서 사용할 HTML (테스트용)
      */
@@ -1,6 +1,7 @@
 package com.project.stock.investory.stockInfo.dto;
 
 import com.fasterxml.jackson.databind.JsonNode;
+import com.project.stock.investory.stockInfo.websocket.RealTimeTick;
 import lombok.*;
 
 @Getter
@@ -43,6 +44,26 @@ public class RealTimeTradeDTO {
         );
     }
 
+    /**
+     * 디코더가 재사용하는 primitive 틱을 SSE 전송용 DTO 로 복사. (콜백 안에서만 호출)
+     * 문자열 형식은 {@link #from(String[])} 과 동일하게 맞춘다. (등락률은 KIS 원문 + "%", 체결시간 "093015")
+     */
+    public static RealTimeTradeDTO from(RealTimeTick t) {
+        return new RealTimeTradeDTO(
+                t.getStockCode(),
+                Integer.toString(t.getPrice()),
+                Long.toString(t.getVolume()),
+                t.getChangeRateText() + "%",
+                Long.toString(t.getAccumulateVolume()),
+                formatTime(t.getTradeTime())
+        );
+    }
+
+    private static String formatTime(int hhmmss) {
+        String s = Integer.toString(hhmmss);
+        return s.length() >= 6 ? s : "000000".substring(s.length()) + s;
+    }
+
     // ✅ 정적 팩토리 메서드 추가
     public static RealTimeTradeDTO from(String stockId, JsonNode body) {
         RealTimeTradeDTO dto = new RealTimeTradeDTO();
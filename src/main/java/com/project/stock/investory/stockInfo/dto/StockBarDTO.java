@@ -0,0 +1,22 @@
+package com.project.stock.investory.stockInfo.dto;
+
+import lombok.*;
+
+/**
+ * 서버에서 모은 OHLCV 봉 1개 (SSE "bar" 이벤트)
+ */
+@Getter
+@NoArgsConstructor
+@AllArgsConstructor
+@ToString
+public class StockBarDTO {
+    private String stockId;     // 종목코드
+    private String period;      // 1s, 5s, 1m
+    private long startTime;     // 봉 시작 시각 (epoch ms)
+    private int open;           // 시가
+    private int high;           // 고가
+    private int low;            // 저가
+    private int close;          // 종가
+    private long volume;        // 거래량 (체결량 합)
+    private int trades;         // 체결 건수
+}
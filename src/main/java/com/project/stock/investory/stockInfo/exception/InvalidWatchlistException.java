@@ -0,0 +1,11 @@
+package com.project.stock.investory.stockInfo.exception;
+
+import com.project.stock.investory.exception.BusinessException;
+import org.springframework.http.HttpStatus;
+
+public class InvalidWatchlistException extends BusinessException {
+
+    public InvalidWatchlistException(String message) {
+        super(message, HttpStatus.BAD_REQUEST);
+    }
+}
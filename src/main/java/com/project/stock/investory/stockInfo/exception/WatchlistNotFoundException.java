@@ -0,0 +1,11 @@
+package com.project.stock.investory.stockInfo.exception;
+
+import com.project.stock.investory.exception.BusinessException;
+import org.springframework.http.HttpStatus;
+
+public class WatchlistNotFoundException extends BusinessException {
+
+    public WatchlistNotFoundException(String watchId) {
+        super("관심종목 스트림(" + watchId + ")이 없거나 이미 종료되었습니다.", HttpStatus.NOT_FOUND);
+    }
+}
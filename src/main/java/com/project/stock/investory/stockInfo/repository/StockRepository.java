@@ -3,8 +3,10 @@ package com.project.stock.investory.stockInfo.repository;
 import com.project.stock.investory.stockInfo.model.Stock;
 import org.springframework.data.jpa.repository.Query;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import java.util.Collection;
 import java.util.List;
 
 @Repository
@@ -13,6 +15,10 @@ public interface StockRepository  extends CrudRepository<Stock, String> {
     @Query("SELECT s.stockId FROM Stock s")
     List<String> findAllStockCodes();
 
+    // 종목코드 → 종목명만 조회 (알람용)
+    @Query("SELECT s.stockId, s.stockName FROM Stock s WHERE s.stockId IN :stockIds")
+    List<Object[]> findNamesByStockIdIn(@Param("stockIds") Collection<String> stockIds);
+
     // 종목코드(stockId) 또는 종목명(stockName)으로 검색 (대소문자 무시)
     List<Stock> findByStockIdContainingIgnoreCaseOrStockNameContainingIgnoreCase(
             String stockIdKeyword,
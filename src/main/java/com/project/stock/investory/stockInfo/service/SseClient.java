@@ -0,0 +1,203 @@
+package com.project.stock.investory.stockInfo.service;
+
+import com.project.stock.investory.stockInfo.util.SseFrame;
+import lombok.Getter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.util.ArrayDeque;
+import java.util.HashSet;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 실시간 체결 SSE 연결 하나 – 보낼 프레임 큐와 지연 · 버림 지표
+ * <p>
+ * 게이트웨이 콜백 스레드는 {@link #offer} 로 큐에 넣기만 하고, 실제 쓰기는 writer 풀의 스레드 하나가
+ * {@link #next}/{@link #delivered} 로 순서대로 한다. (한 연결은 동시에 한 스레드만 쓴다)
+ * <ul>
+ *     <li>큐가 가득 차면 종목마다 최신 틱 하나만 남긴다 (느린 클라이언트 합치기).
+ *         종목 키가 없는 프레임(연결 · 관심종목 제어 이벤트, OHLCV 봉)은 버리지 않는다</li>
+ *     <li>합쳐도 자리가 나지 않거나, 아직 못 받은 가장 오래된 틱이 지연 한도를 넘으면
+ *         {@link Offer#EVICT} – 연결을 끊는다</li>
+ * </ul>
+ * 관심종목 스트림은 연결 하나가 여러 종목 목록에 동시에 들어간다. ({@link #getSymbols()})
+ */
+final class SseClient {
+
+    private static final AtomicLong SEQ = new AtomicLong();
+
+    enum Offer {
+        QUEUED,     // 이미 writer 가 돌고 있다
+        SCHEDULE,   // writer 를 새로 띄워야 한다
+        EVICT       // 지연 한도 초과
+    }
+
+    /**
+     * @param symbol 합칠 때 쓰는 종목코드, null 이면 합치거나 버리지 않는 프레임
+     */
+    record Pending(SseFrame frame, String symbol, long enqueuedNanos) {
+    }
+
+    @Getter
+    private final long id = SEQ.incrementAndGet();
+    @Getter
+    private final String stockId;     // 단일 종목 스트림이면 종목코드, 관심종목 스트림이면 "watchlist:{ID}"
+    @Getter
+    private final Set<String> symbols = ConcurrentHashMap.newKeySet();   // 받는 종목 (종목 락 안에서 바꾼다)
+    @Getter
+    private final SseEmitter emitter;
+    @Getter
+    private final StreamSpec spec;
+    private final int capacity;
+    private final long lagBudgetNanos;
+    private final LongAdder conflatedTotal;   // 서비스 전체 합계 (메트릭)
+    private final long connectedAtMillis = System.currentTimeMillis();
+
+    /* 아래는 모두 this 로 보호 */
+    private final ArrayDeque<Pending> queue = new ArrayDeque<>();
+    private boolean draining;
+    private boolean closed;
+    private long oldestUnsentNanos;     // 아직 전달 못 한 가장 오래된 틱의 수신 시각 (0 = 밀린 것 없음)
+    private long sent;
+    private long conflated;
+    private long maxLagNanos;
+
+    SseClient(String stockId, SseEmitter emitter, StreamSpec spec, int capacity, long maxLagMillis, LongAdder conflatedTotal) {
+        this.stockId = stockId;
+        this.emitter = emitter;
+        this.spec = spec;
+        this.capacity = Math.max(1, capacity);
+        this.lagBudgetNanos = TimeUnit.MILLISECONDS.toNanos(maxLagMillis);
+        this.conflatedTotal = conflatedTotal;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 콜백 스레드                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 큐에 넣고 writer 를 새로 띄워야 하는지, 연결을 끊어야 하는지 알린다.
+     *
+     * @param symbol 종목별 최신 값만 있으면 되는 프레임의 종목코드, 반드시 보내야 하는 프레임이면 null
+     */
+    synchronized Offer offer(SseFrame frame, String symbol, long nowNanos) {
+        if (closed) return Offer.QUEUED;
+        if (oldestUnsentNanos != 0 && nowNanos - oldestUnsentNanos > lagBudgetNanos) return Offer.EVICT;
+
+        if (oldestUnsentNanos == 0) oldestUnsentNanos = nowNanos;
+        queue.addLast(new Pending(frame, symbol, nowNanos));
+        if (queue.size() > capacity) {
+            // 못 받은 시각(oldestUnsentNanos)은 그대로 둔다
+            conflate();
+            if (queue.size() > capacity) return Offer.EVICT;   // 버릴 수 있는 프레임이 없다
+        }
+
+        if (draining) return Offer.QUEUED;
+        draining = true;
+        return Offer.SCHEDULE;
+    }
+
+    /**
+     * 종목마다 가장 최근 프레임 하나만 남기고 앞의 것을 버린다. 종목 키가 없는 프레임은 그대로 둔다.
+     */
+    private void conflate() {
+        Set<String> latest = new HashSet<>();
+        int dropped = 0;
+        for (Iterator<Pending> it = queue.descendingIterator(); it.hasNext(); ) {
+            String symbol = it.next().symbol();
+            if (symbol != null && !latest.add(symbol)) {
+                it.remove();
+                dropped++;
+            }
+        }
+        conflated += dropped;
+        conflatedTotal.add(dropped);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* writer 스레드                                                        */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 다음 보낼 프레임. 비었으면 null 이고 writer 를 내려놓는다.
+     */
+    synchronized Pending next() {
+        Pending p = queue.pollFirst();
+        if (p == null) draining = false;
+        return p;
+    }
+
+    /**
+     * 한 건 쓰기 완료 – 수신부터 전달까지 걸린 시간을 돌려준다.
+     */
+    synchronized long delivered(Pending p, long nowNanos) {
+        sent++;
+        Pending head = queue.peekFirst();
+        oldestUnsentNanos = head == null ? 0 : head.enqueuedNanos();
+        long lag = nowNanos - p.enqueuedNanos();
+        if (lag > maxLagNanos) maxLagNanos = lag;
+        return lag;
+    }
+
+    /**
+     * 한 차례 몫을 다 쓴 뒤 – 남은 게 있으면 writer 를 유지(재제출), 없으면 내려놓는다.
+     */
+    synchronized boolean hasMore() {
+        if (queue.isEmpty()) {
+            draining = false;
+            return false;
+        }
+        return true;
+    }
+
+    /**
+     * 더 받지 않는다. 처음 닫을 때만 true
+     */
+    synchronized boolean close() {
+        if (closed) return false;
+        closed = true;
+        queue.clear();
+        return true;
+    }
+
+    synchronized boolean isClosed() {
+        return closed;
+    }
+
+    /**
+     * writer 가 돌고 있으면 true – 닫힌 연결이면 그 writer 가 쓰던 것을 마치고 emitter 를 닫는다.
+     * (쓰기 중인 emitter 의 락을 다른 스레드가 기다리지 않도록)
+     */
+    synchronized boolean isDraining() {
+        return draining;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 조회                                                               */
+    /* ------------------------------------------------------------------ */
+
+    synchronized long lagNanos(long nowNanos) {
+        return oldestUnsentNanos == 0 ? 0 : nowNanos - oldestUnsentNanos;
+    }
+
+    synchronized Map<String, Object> getStats(long nowNanos) {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("id", id);
+        stats.put("stockId", stockId);
+        stats.put("mode", spec.toString());
+        stats.put("symbols", symbols.size());
+        stats.put("connectedAt", connectedAtMillis);
+        stats.put("queued", queue.size());
+        stats.put("sent", sent);
+        stats.put("conflated", conflated);
+        stats.put("lagMs", TimeUnit.NANOSECONDS.toMillis(lagNanos(nowNanos)));
+        stats.put("maxLagMs", TimeUnit.NANOSECONDS.toMillis(maxLagNanos));
+        return stats;
+    }
+}
@@ -0,0 +1,176 @@
+package com.project.stock.investory.stockInfo.service;
+
+import com.project.stock.investory.stockInfo.repository.StockRepository;
+import jakarta.annotation.PostConstruct;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.stereotype.Component;
+
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.regex.Pattern;
+
+/**
+ * 종목코드 ↔ 연속 int ID 심볼 테이블 (프로세스 전역)
+ * <p>
+ * 기동 시 {@link StockRepository#findAllStockCodes()} 로 전 종목을 등록하고, 실시간 경로에서는
+ * 문자열 키 대신 이 ID 로 배열을 바로 인덱싱한다. 조회는 락 없이 불변 스냅샷을 읽고,
+ * 프레임 문자 범위에서 String 을 만들지 않고 바로 ID 를 찾을 수 있다.
+ * 처음 보는 코드 등록은 드물기 때문에 스냅샷을 통째로 복사해 교체한다.
+ * 외부 요청으로 들어온 코드는 {@link #registerListed} 로 종목 마스터에 있는 것만 등록한다. (테이블이 무한정 자라지 않도록)
+ */
+@Slf4j
+@Component
+@RequiredArgsConstructor
+public class StockSymbolTable {
+
+    public static final int UNKNOWN = -1;
+
+    private static final Pattern CODE_FORMAT = Pattern.compile("[0-9A-Z]{6}");   // KRX 단축코드
+
+    private final StockRepository stockRepository;
+
+    private volatile Snapshot snapshot = Snapshot.EMPTY;
+
+    @PostConstruct
+    public void load() {
+        try {
+            List<String> codes = stockRepository.findAllStockCodes();
+            synchronized (this) {
+                snapshot = snapshot.with(codes);
+            }
+            log.info("심볼 테이블 로드 완료: {}개 종목", snapshot.size);
+        } catch (Exception e) {
+            log.error("심볼 테이블 로드 실패 – 구독 시점에 개별 등록됩니다", e);
+        }
+    }
+
+    /**
+     * 등록된 ID, 없으면 {@link #UNKNOWN}
+     */
+    public int idOf(String code) {
+        return snapshot.find(code, 0, code.length(), code.hashCode());
+    }
+
+    /**
+     * 프레임 문자 범위 [from, to) 로 조회 – String 을 만들지 않는다.
+     */
+    public int idOf(CharSequence s, int from, int to) {
+        int h = 0;
+        for (int i = from; i < to; i++) h = 31 * h + s.charAt(i);   // String.hashCode 와 같은 해시
+        return snapshot.find(s, from, to, h);
+    }
+
+    /**
+     * 없으면 새 ID 를 발급해서 돌려준다. (구독 · 조건 등록 등 cold path 용)
+     */
+    public int register(String code) {
+        int id = idOf(code);
+        if (id != UNKNOWN) return id;
+
+        synchronized (this) {
+            Snapshot s = snapshot;
+            id = s.find(code, 0, code.length(), code.hashCode());
+            if (id == UNKNOWN) {
+                s = s.with(List.of(code));
+                snapshot = s;
+                id = s.size - 1;
+            }
+            return id;
+        }
+    }
+
+    /**
+     * 종목 마스터에 있는 코드만 등록해서 ID 를 돌려준다. 형식이 틀리거나 없는 종목이면 {@link #UNKNOWN}
+     * (SSE 구독 등 사용자가 준 코드용 – 기동 시 전 종목을 올려 두므로 보통은 조회만으로 끝난다)
+     */
+    public int registerListed(String code) {
+        int id = idOf(code);
+        if (id != UNKNOWN) return id;
+        if (!CODE_FORMAT.matcher(code).matches() || !stockRepository.existsById(code)) return UNKNOWN;
+        return register(code);
+    }
+
+    /**
+     * ID 에 해당하는 (공유) 종목코드 String
+     */
+    public String codeOf(int id) {
+        Snapshot s = snapshot;
+        return id >= 0 && id < s.size ? s.codes[id] : null;
+    }
+
+    public int size() {
+        return snapshot.size;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 불변 스냅샷 – id→code 배열 + open addressing 해시 인덱스              */
+    /* ------------------------------------------------------------------ */
+
+    private static final class Snapshot {
+
+        static final Snapshot EMPTY = new Snapshot(new String[0], new int[16], 0);
+
+        final String[] codes;   // id → code
+        final int[] index;      // 해시 슬롯 → id + 1 (0 은 빈 칸)
+        final int size;
+
+        Snapshot(String[] codes, int[] index, int size) {
+            this.codes = codes;
+            this.index = index;
+            this.size = size;
+        }
+
+        int find(CharSequence s, int from, int to, int hash) {
+            int mask = index.length - 1;
+            int n = to - from;
+            for (int slot = mix(hash) & mask; ; slot = (slot + 1) & mask) {
+                int entry = index[slot];
+                if (entry == 0) return UNKNOWN;
+
+                String code = codes[entry - 1];
+                if (code.length() == n && regionEquals(code, s, from, n)) return entry - 1;
+            }
+        }
+
+        /**
+         * 아직 없는 코드만 뒤에 붙이고 인덱스를 한 번에 다시 만든다.
+         */
+        Snapshot with(List<String> added) {
+            String[] newCodes = Arrays.copyOf(codes, size + added.size());
+            int newSize = size;
+            Set<String> seen = new HashSet<>();
+            for (String code : added) {
+                if (find(code, 0, code.length(), code.hashCode()) != UNKNOWN || !seen.add(code)) continue;
+                newCodes[newSize++] = code;
+            }
+            if (newSize == size) return this;
+            newCodes = Arrays.copyOf(newCodes, newSize);
+
+            int capacity = index.length;
+            while (capacity < newSize * 2) capacity <<= 1;   // 적재율 50% 이하
+
+            int[] newIndex = new int[capacity];
+            int mask = capacity - 1;
+            for (int id = 0; id < newSize; id++) {
+                int slot = mix(newCodes[id].hashCode()) & mask;
+                while (newIndex[slot] != 0) slot = (slot + 1) & mask;
+                newIndex[slot] = id + 1;
+            }
+            return new Snapshot(newCodes, newIndex, newSize);
+        }
+
+        private static boolean regionEquals(String code, CharSequence s, int from, int n) {
+            for (int i = 0; i < n; i++) {
+                if (code.charAt(i) != s.charAt(from + i)) return false;
+            }
+            return true;
+        }
+
+        private static int mix(int h) {
+            return h ^ (h >>> 16);
+        }
+    }
+}
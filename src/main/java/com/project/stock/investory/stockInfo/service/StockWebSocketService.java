@@ -2,19 +2,48 @@ package com.project.stock.investory.stockInfo.service;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.project.stock.investory.stockInfo.dto.RealTimeTradeDTO;
+import com.project.stock.investory.stockInfo.dto.StockBarDTO;
+import com.project.stock.investory.stockInfo.exception.InvalidWatchlistException;
+import com.project.stock.investory.stockInfo.exception.StockNotFoundException;
+import com.project.stock.investory.stockInfo.exception.WatchlistNotFoundException;
+import com.project.stock.investory.stockInfo.util.SseFrame;
 import com.project.stock.investory.stockInfo.util.StockMarketUtils;
+import com.project.stock.investory.stockInfo.util.SymbolIndexedArray;
 import com.project.stock.investory.stockInfo.websocket.KisWebSocketClient;
+import com.project.stock.investory.stockInfo.websocket.RealTimeTickBatch;
+import com.project.stock.investory.stockInfo.websocket.RealTimeTickListener;
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import jakarta.annotation.PreDestroy;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.MediaType;
 import org.springframework.stereotype.Service;
 import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
 
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Set;
+import java.util.UUID;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
 import java.util.concurrent.locks.ReentrantLock;
 
 /**
@@ -24,68 +53,497 @@ import java.util.concurrent.locks.ReentrantLock;
  *
  *   1. KIS 구독/해지 관리
  *   2. SSE 연결(Emitter) 생성·보존·해제
- *   3. 실시간 체결 데이터 fan‑out(전달)
+ *   3. 실시간 체결 데이터 fan‑out(전달) – 틱당 한 번 {@link SseFrame} 으로 인코딩해 모든 연결에 같은 바이트를 쓴다
  *   4. 다중 스레드 환경에서 안전한 동시성 제어
+ *
+ * 게이트웨이 콜백 스레드는 연결별 큐({@link SseClient})에 넣기만 하고, 소켓 쓰기는 writer 풀이 한다.
+ * 느린 연결 하나가 같은 종목의 다른 구독자나 KIS 수신을 막지 않도록 –
+ * 큐가 차면 종목마다 최신 틱만 남기고(합치기), 지연 한도를 넘기면 연결을 끊는다.
+ * 봉은 한 건이 한 구간이라 합치지 않는다 – 봉이 밀려 자리가 없으면 버리지 않고 연결을 끊는다.
+ *
+ * 구독마다 {@link StreamSpec} 으로 원본 · 스로틀 · OHLCV 봉을 고른다. 스로틀 · 봉은 종목 · 방식별
+ * {@link StreamGroup} 하나가 계산하고, 주기 스레드가 결과 프레임 하나를 그룹의 모든 연결에 넣는다.
+ *
+ * 관심종목 스트림은 연결 하나({@link SseClient})를 여러 종목 목록에 같이 넣어 같은 종목별 fan-out 을 그대로 쓴다.
+ * 이벤트마다 stockId 가 들어 있어 클라이언트가 종목을 구분하고, 스트림 도중 종목을 더하고 뺄 수 있다.
  */
 @Slf4j
 @Service
 public class StockWebSocketService {
 
     private final KisWebSocketClient kisClient;
+    private final StockSymbolTable symbols;
     private final ObjectMapper om = new ObjectMapper();
 
-    //여러 스레드가 동시에 읽고 쓸 수 있게 하여 동시성 문제를 방지 : ConcurrentHashMap<>()
-    private final Map<String, CopyOnWriteArrayList<SseEmitter>> emitters = new ConcurrentHashMap<>();
+    /**
+     * 종목 하나의 구독자 – 원본 체결을 받는 연결과 방식별 그룹
+     */
+    private static final class SymbolStreams {
+        final CopyOnWriteArrayList<SseClient> raw = new CopyOnWriteArrayList<>();
+        final Map<StreamSpec, StreamGroup> groups = new ConcurrentHashMap<>();
+
+        boolean isEmpty() {
+            return raw.isEmpty() && groups.isEmpty();
+        }
+    }
+
+    // 종목코드 대신 심볼 ID 로 바로 인덱싱 (실시간 경로에서 해시 조회 없음)
+    private final SymbolIndexedArray<SymbolStreams> emitters = new SymbolIndexedArray<>();
     private final Set<String> subscribed = ConcurrentHashMap.newKeySet(); // DTO 객체나 Map을 JSON 문자열로 변환해 SSE로 전송
     private final Map<String, ReentrantLock> locks = new ConcurrentHashMap<>(); // 종목 코드(stockId)별로 구독 중인 SSE 연결들을 저장
 
-    public StockWebSocketService(KisWebSocketClient kisClient) {
+    // 게이트웨이에 붙는 체결 listener – 모든 종목이 같은 인스턴스를 쓰므로 해제할 때도 이걸 넘긴다
+    private final RealTimeTickListener tradeListener = this::onTicks;
+
+    // 틱 1건 fan-out 시간 (인코딩 + 전체 연결 큐 넣기) – 구독자 수 구간별로 나눠 본다
+    private static final int[] FANOUT_BUCKETS = {10, 100, 1_000, 10_000};
+    private static final String[] FANOUT_LABELS = {"1-9", "10-99", "100-999", "1000-9999", "10000+"};
+    private final Timer[] fanOutTimers = new Timer[FANOUT_LABELS.length];
+
+    private static final SseFrame CONNECTED = SseFrame.of("message", "connected".getBytes(StandardCharsets.UTF_8));
+    private static final int DRAIN_BATCH = 32;   // writer 한 차례에 한 연결에서 쓰는 최대 프레임 수 (공정성)
+
+    /* writer 풀 · 느린 클라이언트 */
+    private final ExecutorService writers;
+    private final ScheduledExecutorService ticker;   // 스로틀 · 봉 그룹 주기 flush
+    private final int queueCapacity;
+    private final long maxLagMs;
+    private final Timer lagTimer;
+    private final Counter evicted;
+    private final LongAdder conflated = new LongAdder();
+    private final AtomicInteger clientCount = new AtomicInteger();
+
+    /* 관심종목 스트림 – 발급한 ID → 연결 */
+    private static final String WATCHLIST = "watchlist:";   // 관심종목 연결의 이름 접두사 (뒤는 ID)
+    private final Map<String, SseClient> watchlists = new ConcurrentHashMap<>();
+    private final int watchlistMaxSymbols;
+
+    public StockWebSocketService(
+            KisWebSocketClient kisClient,
+            StockSymbolTable symbols,
+            MeterRegistry meterRegistry,
+            @Value("${stock.sse.writer-threads:8}") int writerThreads,
+            @Value("${stock.sse.queue-capacity:32}") int queueCapacity,
+            @Value("${stock.sse.max-lag-ms:5000}") long maxLagMs,
+            @Value("${stock.sse.watchlist-max-symbols:50}") int watchlistMaxSymbols
+    ) {
         this.kisClient = kisClient;
+        this.symbols = symbols;
+        this.queueCapacity = queueCapacity;
+        this.maxLagMs = maxLagMs;
+        this.watchlistMaxSymbols = watchlistMaxSymbols;
+
+        // 쓰기는 SseEmitter 의 synchronized 안에서 블로킹 I/O 를 하므로 (Java 21 가상 스레드는 캐리어를 잡아 둔다)
+        // 고정 크기 플랫폼 스레드 풀을 쓴다. 느린 연결이 스레드를 오래 잡으면 지연 한도로 정리된다.
+        AtomicInteger seq = new AtomicInteger();
+        this.writers = Executors.newFixedThreadPool(Math.max(1, writerThreads), r -> {
+            Thread t = new Thread(r, "stock-sse-writer-" + seq.getAndIncrement());
+            t.setDaemon(true);
+            return t;
+        });
+        this.ticker = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "stock-sse-ticker");
+            t.setDaemon(true);
+            return t;
+        });
+
+        for (int i = 0; i < FANOUT_LABELS.length; i++) {
+            fanOutTimers[i] = Timer.builder("stock.sse.fanout")
+                    .description("실시간 체결 틱 1건 SSE fan-out")
+                    .tag("subscribers", FANOUT_LABELS[i])
+                    .publishPercentiles(0.5, 0.99)
+                    .register(meterRegistry);
+        }
+        this.lagTimer = Timer.builder("stock.sse.lag")
+                .description("체결 수신 → 클라이언트 소켓 쓰기 완료")
+                .publishPercentiles(0.5, 0.99)
+                .register(meterRegistry);
+        this.evicted = Counter.builder("stock.sse.evicted")
+                .description("지연 한도 초과로 끊은 연결")
+                .register(meterRegistry);
+        FunctionCounter.builder("stock.sse.conflated", conflated, LongAdder::sum)
+                .description("느린 연결에서 최신 틱으로 합치며 버린 프레임")
+                .register(meterRegistry);
+        Gauge.builder("stock.sse.clients", clientCount, AtomicInteger::get)
+                .description("실시간 체결 SSE 연결 수")
+                .register(meterRegistry);
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        ticker.shutdownNow();
+        writers.shutdownNow();
     }
 
     public SseEmitter getStockPriceStream(String stockId) {
+        return getStockPriceStream(stockId, StreamSpec.RAW);
+    }
+
+    public SseEmitter getStockPriceStream(String stockId, StreamSpec spec) {
 
         // ① 장 외 시간이면 종료
         if (!StockMarketUtils.isTradingHours()) {
             return closedEmitter("marketClosed", "장 외 시간입니다.");
         }
 
-        // ② 새 emitter 생성 (30분 timeout)
+        // ② 종목 마스터에 있는 종목만
+        requireListed(stockId);
+
+        // ③ 새 emitter 생성 (30분 timeout)
         SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(30));
-        emitters.computeIfAbsent(stockId, k -> new CopyOnWriteArrayList<>()).add(emitter);
-        log.info("[{}] SSE 연결 +1 (총 {}개)", stockId, emitters.get(stockId).size());
+        SseClient client = new SseClient(stockId, emitter, spec, queueCapacity, maxLagMs, conflated);
+        clientCount.incrementAndGet();
 
-        // ③ 최초 구독 여부 판단
-        if (subscribed.add(stockId)) {
-            log.info("[{}] ▶️  KIS subscribe", stockId);
-            kisClient.queueSubscribe(stockId, dto -> fanOut(stockId, dto));
-        } else {
-            log.debug("[{}] 이미 subscribe 중", stockId);
+        // ④ 종목 목록에 넣기 (최초 구독이면 KIS subscribe)
+        attach(stockId, client);
+        log.info("[{}] SSE 연결 +1 ({}, 총 {}개)", stockId, spec, clientCount.get());
+
+        // ⑤ 종료 콜백 등록
+        registerCallbacks(client);
+
+        enqueue(client, CONNECTED, null, System.nanoTime()); // 첫 이벤트도 같은 writer 순서로
+
+        return emitter;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 관심종목 스트림 (연결 하나에 여러 종목)                                  */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 관심종목 스트림 – 첫 이벤트 "watchlist" 로 ID 와 종목 목록을 알려 준다.
+     * 이후 {@link #addWatchSymbol}/{@link #removeWatchSymbol} 에 그 ID 로 종목을 더하고 뺀다.
+     */
+    public SseEmitter getWatchlistStream(Collection<String> stockIds, StreamSpec spec) {
+        if (!StockMarketUtils.isTradingHours()) {
+            return closedEmitter("marketClosed", "장 외 시간입니다.");
         }
+        Set<String> codes = normalize(stockIds);
+        if (codes.size() > watchlistMaxSymbols) {
+            throw new InvalidWatchlistException("관심종목은 최대 " + watchlistMaxSymbols + "개까지 받을 수 있습니다.");
+        }
+        codes.forEach(this::requireListed);
+
+        SseEmitter emitter = new SseEmitter(TimeUnit.MINUTES.toMillis(30));
+        String watchId = UUID.randomUUID().toString();
+        // 모든 종목의 최신 틱이 합친 뒤에도 들어가도록 종목 수만큼 더 잡는다
+        SseClient client = new SseClient(WATCHLIST + watchId, emitter, spec, queueCapacity + watchlistMaxSymbols,
+                maxLagMs, conflated);
+        watchlists.put(watchId, client);
+        clientCount.incrementAndGet();
 
-        // ④ 종료 콜백 등록
-        emitter.onTimeout(() -> handleDisconnect(stockId, emitter));
-        emitter.onCompletion(() -> handleDisconnect(stockId, emitter));
-        emitter.onError(e -> removeEmitterOnly(stockId, emitter));
+        for (String code : codes) {
+            attach(code, client);
+        }
+        log.info("[watchlist {}] SSE 연결 +1 ({}종목, {}, 총 {}개)", watchId, codes.size(), spec, clientCount.get());
 
-        sendEvent(emitter, "message", "connected"); // ✅ 추가
+        registerCallbacks(client);
 
+        enqueue(client, CONNECTED, null, System.nanoTime());
+        enqueue(client, watchEvent("watchlist", Map.of("id", watchId, "symbols", List.copyOf(client.getSymbols()))),
+                null, System.nanoTime());
         return emitter;
     }
 
+    public void addWatchSymbol(String watchId, String stockId) {
+        SseClient client = watchlist(watchId);
+        String code = stockId.trim();
+        if (client.getSymbols().contains(code)) return;
+        if (client.getSymbols().size() >= watchlistMaxSymbols) {
+            throw new InvalidWatchlistException("관심종목은 최대 " + watchlistMaxSymbols + "개까지 받을 수 있습니다.");
+        }
+        requireListed(code);
+        attach(code, client);
+        if (client.isClosed()) {
+            detach(code, client);   // 붙이는 사이 끊긴 연결
+            throw new WatchlistNotFoundException(watchId);
+        }
+        enqueue(client, watchEvent("watchAdded", Map.of("stockId", code)), null, System.nanoTime());
+    }
+
+    public void removeWatchSymbol(String watchId, String stockId) {
+        SseClient client = watchlist(watchId);
+        String code = stockId.trim();
+        if (!client.getSymbols().contains(code)) return;
+        detach(code, client);
+        enqueue(client, watchEvent("watchRemoved", Map.of("stockId", code)), null, System.nanoTime());
+    }
+
+    private SseClient watchlist(String watchId) {
+        SseClient client = watchlists.get(watchId);
+        if (client == null || client.isClosed()) throw new WatchlistNotFoundException(watchId);
+        return client;
+    }
+
+    private SseFrame watchEvent(String event, Map<String, Object> payload) {
+        try {
+            return SseFrame.json(om, event, payload);
+        } catch (Exception e) {
+            throw new IllegalStateException("관심종목 이벤트 직렬화 실패", e);
+        }
+    }
+
+    /**
+     * 없는 종목코드로 심볼 ID · 종목 목록이 쌓이지 않도록 구독 전에 거른다.
+     */
+    private void requireListed(String stockId) {
+        if (symbols.registerListed(stockId) == StockSymbolTable.UNKNOWN) throw new StockNotFoundException(stockId);
+    }
+
+    private static Set<String> normalize(Collection<String> stockIds) {
+        Set<String> codes = new LinkedHashSet<>();
+        if (stockIds != null) {
+            for (String id : stockIds) {
+                if (id != null && !id.isBlank()) codes.add(id.trim());
+            }
+        }
+        if (codes.isEmpty()) throw new InvalidWatchlistException("관심종목을 하나 이상 지정해야 합니다.");
+        return codes;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 종목 목록 붙이기 · 떼기                                               */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 연결을 종목 목록(원본 또는 방식별 그룹)에 넣는다. 그 종목의 첫 구독이면 KIS subscribe
+     */
+    private void attach(String stockId, SseClient client) {
+        int symbolId = symbols.register(stockId);
+        ReentrantLock lock = locks.computeIfAbsent(stockId, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            SymbolStreams streams = emitters.computeIfAbsent(symbolId, id -> new SymbolStreams());
+            StreamSpec spec = client.getSpec();
+            if (spec.mode() == StreamSpec.Mode.RAW) {
+                streams.raw.addIfAbsent(client);
+            } else {
+                streams.groups.computeIfAbsent(spec, k -> startGroup(stockId, spec)).clients.addIfAbsent(client);
+            }
+            client.getSymbols().add(stockId);
+
+            if (subscribed.add(stockId)) {
+                log.info("[{}] ▶️  KIS subscribe", stockId);
+                kisClient.queueSubscribe(KisWebSocketClient.TR_TRADE, stockId, tradeListener);
+            } else {
+                log.debug("[{}] 이미 subscribe 중", stockId);
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * 연결을 종목 목록에서 뺀다. 그 종목의 마지막 구독이었으면 자원 정리 & KIS unsubscribe
+     */
+    private void detach(String stockId, SseClient client) {
+        ReentrantLock lock = locks.computeIfAbsent(stockId, k -> new ReentrantLock());
+        lock.lock();
+        try {
+            client.getSymbols().remove(stockId);
+            int symbolId = symbols.idOf(stockId);
+            SymbolStreams streams = emitters.get(symbolId);
+            if (streams != null) {
+                removeClient(streams, client);
+
+                // 해당 종목을 구독 중인 Emitter 가 더 이상 없으면 자원 정리 & KIS 구독 해지
+                if (streams.isEmpty()) {
+                    emitters.remove(symbolId);
+                    if (subscribed.remove(stockId)) {
+                        log.info("[{}] ⏹️  마지막 구독자 종료 → KIS unsubscribe", stockId);
+                        kisClient.queueUnsubscribe(KisWebSocketClient.TR_TRADE, stockId, tradeListener);
+                    }
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    private void registerCallbacks(SseClient client) {
+        SseEmitter emitter = client.getEmitter();
+        emitter.onTimeout(() -> handleDisconnect(client));
+        emitter.onCompletion(() -> handleDisconnect(client));
+        emitter.onError(e -> removeEmitterOnly(client));
+    }
+
+    /**
+     * 게이트웨이 콜백 – 받을 emitter 가 있을 때만 DTO 로 복사한다.
+     */
+    private void onTicks(RealTimeTickBatch batch) {
+        SymbolStreams streams = emitters.get(batch.getSymbolId());
+        if (streams == null || batch.size() == 0) return;
+
+        if (!streams.raw.isEmpty()) {
+            for (int i = 0; i < batch.size(); i++) {
+                fanOut(batch.getStockCode(), streams.raw, RealTimeTradeDTO.from(batch.get(i)));
+            }
+        }
+        if (streams.groups.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        for (StreamGroup group : streams.groups.values()) {
+            if (group.spec.mode() == StreamSpec.Mode.THROTTLED) {
+                group.offerLatest(RealTimeTradeDTO.from(batch.get(batch.size() - 1)));   // 묶음의 마지막만
+            } else {
+                for (int i = 0; i < batch.size(); i++) {
+                    StockBarDTO closed = group.onTrade(batch.get(i), now);
+                    if (closed != null) publish(group, closed);
+                }
+            }
+        }
+    }
+
     public void fanOut(String stockId, RealTimeTradeDTO dto) {
-        List<SseEmitter> list = emitters.getOrDefault(stockId, new CopyOnWriteArrayList<>());
+        SymbolStreams streams = emitters.get(symbols.idOf(stockId));
+        if (streams != null) fanOut(stockId, streams.raw, dto);
+    }
+
+    private void fanOut(String stockId, List<SseClient> list, RealTimeTradeDTO dto) {
+        long start = System.nanoTime();
+
+        // 직렬화 · 이벤트 조립은 틱당 한 번
+        SseFrame frame;
+        try {
+            frame = SseFrame.json(om, "trade", dto);
+        } catch (Exception e) {
+            log.warn("[{}] 체결 이벤트 직렬화 실패 : {}", stockId, e.toString());
+            return;
+        }
+
+        // 큐에 넣기만 한다 – 소켓 쓰기는 writer 풀
+        for (SseClient client : list) {
+            enqueue(client, frame, stockId, start);
+        }
+        fanOutTimer(list.size()).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 스로틀 · 봉 그룹                                                      */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 종목 락 안에서 – 그룹을 만들고 주기 flush 를 건다. 봉은 벽시계 구간 경계에 맞춰 시작한다.
+     */
+    private StreamGroup startGroup(String stockId, StreamSpec spec) {
+        StreamGroup group = new StreamGroup(stockId, spec);
+        long period = spec.periodMs();
+        long delay = spec.mode() == StreamSpec.Mode.BAR ? period - Math.floorMod(System.currentTimeMillis(), period) : period;
+        group.task = ticker.scheduleAtFixedRate(() -> flush(group), delay, period, TimeUnit.MILLISECONDS);
+        log.debug("[{}] 구독 그룹 시작 {}", stockId, spec);
+        return group;
+    }
+
+    private void flush(StreamGroup group) {
+        try {
+            Object out = group.flush(System.currentTimeMillis());
+            if (out != null) publish(group, out);
+        } catch (Exception e) {
+            log.warn("[{}] {} flush 실패 : {}", group.stockId, group.spec, e.toString());   // 주기 작업이 멈추지 않도록
+        }
+    }
+
+    /**
+     * 그룹 결과를 한 번 인코딩해 그룹의 모든 연결 큐에 넣는다. 봉은 합치지 않는다.
+     */
+    private void publish(StreamGroup group, Object payload) {
+        boolean bar = payload instanceof StockBarDTO;
+        SseFrame frame;
+        try {
+            frame = SseFrame.json(om, bar ? "bar" : "trade", payload);
+        } catch (Exception e) {
+            log.warn("[{}] {} 이벤트 직렬화 실패 : {}", group.stockId, group.spec, e.toString());
+            return;
+        }
+        long now = System.nanoTime();
+        for (SseClient client : group.clients) {
+            enqueue(client, frame, bar ? null : group.stockId, now);
+        }
+    }
+
+    private void enqueue(SseClient client, SseFrame frame, String symbol, long nowNanos) {
+        switch (client.offer(frame, symbol, nowNanos)) {
+            case SCHEDULE -> {
+                try {
+                    writers.execute(() -> drain(client));
+                } catch (RejectedExecutionException e) {
+                    closeNow(client);   // 종료 중
+                }
+            }
+            case EVICT -> {
+                evicted.increment();
+                log.info("[{}] SSE 연결 #{} 지연 한도({}ms) 또는 큐 한도 초과, 끊음", client.getStockId(), client.getId(), maxLagMs);
+                handleDisconnect(client);
+            }
+            case QUEUED -> {
+            }
+        }
+    }
 
-        for (SseEmitter emitter : list) {
+    /**
+     * writer 스레드 – 연결 하나의 큐를 순서대로 쓴다. 한 차례에 {@link #DRAIN_BATCH} 건까지 쓰고 남으면 다시 제출한다.
+     */
+    private void drain(SseClient client) {
+        for (int i = 0; i < DRAIN_BATCH; i++) {
+            SseClient.Pending p = client.next();
+            if (p == null) {
+                if (client.isClosed()) safeComplete(client.getEmitter());   // 쓰는 동안 끊긴 연결
+                return;
+            }
             try {
-                sendEvent(emitter, "trade", dto);
+                p.frame().writeTo(client.getEmitter());
             } catch (Exception e) {
-                log.debug("[{}] emitter 전송 실패, 제거", stockId);
-                handleDisconnect(stockId, emitter);
+                log.debug("[{}] emitter 전송 실패, 제거", client.getStockId());
+                closeNow(client);
+                return;
+            }
+            lagTimer.record(client.delivered(p, System.nanoTime()), TimeUnit.NANOSECONDS);
+        }
+        if (client.hasMore()) {
+            try {
+                writers.execute(() -> drain(client));
+            } catch (RejectedExecutionException e) {
+                closeNow(client);
             }
+        } else if (client.isClosed()) {
+            safeComplete(client.getEmitter());
         }
     }
 
+    /**
+     * 관리자용 – 연결 수 · 합계와 지연이 큰 연결 순 목록
+     */
+    public Map<String, Object> getClientStats(int limit) {
+        long now = System.nanoTime();
+        Set<SseClient> distinct = new HashSet<>();   // 관심종목 연결은 여러 종목 목록에 들어 있다
+        int[] groups = {0};
+        emitters.forEach((symbolId, streams) -> {
+            distinct.addAll(streams.raw);
+            streams.groups.values().forEach(g -> distinct.addAll(g.clients));
+            groups[0] += streams.groups.size();
+        });
+        List<SseClient> all = new ArrayList<>(distinct);
+        all.sort(Comparator.comparingLong((SseClient c) -> c.lagNanos(now)).reversed());
+
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("clients", all.size());
+        stats.put("symbols", subscribed.size());
+        stats.put("groups", groups[0]);
+        stats.put("watchlists", watchlists.size());
+        stats.put("queueCapacity", queueCapacity);
+        stats.put("maxLagMs", maxLagMs);
+        stats.put("conflated", conflated.sum());
+        stats.put("evicted", (long) evicted.count());
+        stats.put("laggiest", all.stream().limit(Math.max(0, limit)).map(c -> c.getStats(now)).toList());
+        return stats;
+    }
+
+    private Timer fanOutTimer(int subscribers) {
+        int i = 0;
+        while (i < FANOUT_BUCKETS.length && subscribers >= FANOUT_BUCKETS[i]) i++;
+        return fanOutTimers[i];
+    }
+
     private void sendEvent(SseEmitter emitter, String name, Object payload) {
         try {
             Object body = payload;
@@ -114,36 +572,54 @@ public class StockWebSocketService {
 
     /**
      * onError 상황에서 emitter.complete() 는 호출하지 않고 목록 정리만 수행.
+     * writer 가 이 연결을 쓰는 중이면 true
      */
-    private void removeEmitterOnly(String stockId, SseEmitter emitter) {
-        ReentrantLock lock = locks.computeIfAbsent(stockId, k -> new ReentrantLock());
-        lock.lock();
-        try {
-            List<SseEmitter> list = emitters.get(stockId);
-            if (list != null) {
-                list.remove(emitter);
-
-                // 해당 종목을 구독 중인 Emitter 가 더 이상 없으면 자원 정리 & KIS 구독 해지
-                if (list.isEmpty()) {
-                    emitters.remove(stockId);
-                    if (subscribed.remove(stockId)) {
-                        log.info("[{}] ⏹️  마지막 구독자 종료 → KIS unsubscribe", stockId);
-                        kisClient.queueUnsubscribe(stockId);
-                    }
-                }
-            }
-        } finally {
-            lock.unlock();
+    private boolean removeEmitterOnly(SseClient client) {
+        if (client.close()) clientCount.decrementAndGet();
+        if (client.getStockId().startsWith(WATCHLIST)) {
+            watchlists.remove(client.getStockId().substring(WATCHLIST.length()), client);
+        }
+        for (String stockId : List.copyOf(client.getSymbols())) {
+            detach(stockId, client);
         }
         // emitter.complete() 호출 없음 → AsyncRequestNotUsableException 방지
+        return client.isDraining();
+    }
+
+    /**
+     * 종목 락 안에서 – 연결을 목록에서 빼고, 빈 그룹은 주기 작업까지 정리한다.
+     */
+    private void removeClient(SymbolStreams streams, SseClient client) {
+        StreamSpec spec = client.getSpec();
+        if (spec.mode() == StreamSpec.Mode.RAW) {
+            streams.raw.remove(client);
+            return;
+        }
+        StreamGroup group = streams.groups.get(spec);
+        if (group == null || !group.clients.remove(client)) return;
+        if (group.clients.isEmpty()) {
+            streams.groups.remove(spec);
+            group.task.cancel(false);
+            log.debug("[{}] 구독 그룹 종료 {}", group.stockId, spec);
+        }
+    }
+
+    /**
+     * timeout 또는 completion 이벤트, 지연 한도 초과에서 호출되어 emitter.complete() 까지 수행.
+     * writer 가 쓰는 중이면 (느린 소켓에 막혀 있을 수 있다) 기다리지 않고 그 writer 에게 맡긴다.
+     */
+    private void handleDisconnect(SseClient client) {
+        if (!removeEmitterOnly(client)) {   // 목록 정리 재사용
+            safeComplete(client.getEmitter());
+        }
     }
 
     /**
-     * timeout 또는 completion 이벤트에서 호출되어 emitter.complete() 까지 수행.
+     * writer 스레드에서 – 바로 정리하고 닫는다.
      */
-    private void handleDisconnect(String stockId, SseEmitter emitter) {
-        removeEmitterOnly(stockId, emitter); // 목록 정리 재사용
-        safeComplete(emitter);              // complete() 호출은 여기서만
+    private void closeNow(SseClient client) {
+        removeEmitterOnly(client);
+        safeComplete(client.getEmitter());
     }
 
     /**
@@ -0,0 +1,99 @@
+package com.project.stock.investory.stockInfo.service;
+
+import com.project.stock.investory.stockInfo.dto.RealTimeTradeDTO;
+import com.project.stock.investory.stockInfo.dto.StockBarDTO;
+import com.project.stock.investory.stockInfo.websocket.RealTimeTick;
+
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ScheduledFuture;
+
+/**
+ * 한 종목을 같은 방식(스로틀 N ms, N초 봉)으로 받는 연결들 – 계산은 그룹당 한 번, 결과 프레임은 공유한다.
+ * <p>
+ * 게이트웨이 콜백 스레드가 체결을 넣고({@link #offerLatest}, {@link #onTrade}),
+ * 주기 스레드가 {@link #flush} 로 꺼낸다. 둘 사이는 인스턴스 락으로 보호한다.
+ * 봉 경계는 벽시계(epoch ms)를 주기로 나눈 구간이다.
+ */
+final class StreamGroup {
+
+    final StreamSpec spec;
+    final String stockId;
+    final CopyOnWriteArrayList<SseClient> clients = new CopyOnWriteArrayList<>();
+    ScheduledFuture<?> task;   // 종목 락 안에서만 바꾼다
+
+    /* 스로틀 – 이번 주기의 마지막 체결 */
+    private RealTimeTradeDTO latest;
+
+    /* 봉 – 진행 중인 구간 (barStart < 0 = 체결 없음) */
+    private long barStart = -1;
+    private int open;
+    private int high;
+    private int low;
+    private int close;
+    private long volume;
+    private int trades;
+
+    StreamGroup(String stockId, StreamSpec spec) {
+        this.stockId = stockId;
+        this.spec = spec;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 콜백 스레드                                                          */
+    /* ------------------------------------------------------------------ */
+
+    synchronized void offerLatest(RealTimeTradeDTO dto) {
+        latest = dto;
+    }
+
+    /**
+     * 체결 1건을 봉에 반영. 체결이 다음 구간이면 끝난 봉을 돌려준다. (주기 스레드보다 먼저 닫힌 경우)
+     */
+    synchronized StockBarDTO onTrade(RealTimeTick tick, long nowMillis) {
+        long start = nowMillis - Math.floorMod(nowMillis, spec.periodMs());
+        StockBarDTO closed = null;
+        if (barStart >= 0 && barStart != start) {
+            closed = closeBar();
+        }
+        int price = tick.getPrice();
+        if (barStart < 0) {
+            barStart = start;
+            open = high = low = price;
+        }
+        high = Math.max(high, price);
+        low = Math.min(low, price);
+        close = price;
+        volume += tick.getVolume();
+        trades++;
+        return closed;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 주기 스레드                                                          */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 이번 주기에 보낼 것 – 스로틀이면 마지막 체결, 봉이면 구간이 끝난 봉. 없으면 null
+     */
+    synchronized Object flush(long nowMillis) {
+        if (spec.mode() == StreamSpec.Mode.THROTTLED) {
+            RealTimeTradeDTO out = latest;
+            latest = null;
+            return out;
+        }
+        if (barStart >= 0 && nowMillis >= barStart + spec.periodMs()) {
+            return closeBar();
+        }
+        return null;
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private StockBarDTO closeBar() {
+        StockBarDTO bar = new StockBarDTO(stockId, spec.barLabel(), barStart, open, high, low, close, volume, trades);
+        barStart = -1;
+        volume = 0;
+        trades = 0;
+        return bar;
+    }
+}
@@ -0,0 +1,68 @@
+package com.project.stock.investory.stockInfo.service;
+
+import com.project.stock.investory.stockInfo.exception.InvalidStreamModeException;
+
+/**
+ * 실시간 체결 SSE 구독 방식 – 쿼리 파라미터로 고른다.
+ * <ul>
+ *     <li>{@code mode=raw} (기본) – 체결마다 "trade" 이벤트</li>
+ *     <li>{@code mode=throttled&intervalMs=250} – N ms 마다 그 사이 마지막 체결만 "trade" 이벤트 (100 ~ 5000, 50 단위로 맞춤)</li>
+ *     <li>{@code mode=bar&bar=1s|5s|1m} – 서버에서 모은 OHLCV 봉을 봉이 끝날 때 "bar" 이벤트</li>
+ * </ul>
+ * 같은 종목 · 같은 방식의 구독자는 스로틀 · 봉 계산을 한 번만 하고 결과를 공유한다. (equals 가 그룹 키)
+ */
+public record StreamSpec(Mode mode, long periodMs) {
+
+    public enum Mode {
+        RAW, THROTTLED, BAR
+    }
+
+    public static final StreamSpec RAW = new StreamSpec(Mode.RAW, 0);
+
+    private static final long MIN_THROTTLE_MS = 100;
+    private static final long MAX_THROTTLE_MS = 5_000;
+    private static final long THROTTLE_STEP_MS = 50;   // 그룹 수가 늘지 않도록 간격을 맞춘다
+    private static final long DEFAULT_THROTTLE_MS = 250;
+
+    public static StreamSpec parse(String mode, Long intervalMs, String bar) {
+        if (mode == null || mode.isBlank() || mode.equalsIgnoreCase("raw")) {
+            return RAW;
+        }
+        if (mode.equalsIgnoreCase("throttled")) {
+            long ms = intervalMs == null ? DEFAULT_THROTTLE_MS : intervalMs;
+            if (ms < MIN_THROTTLE_MS || ms > MAX_THROTTLE_MS) {
+                throw new InvalidStreamModeException("intervalMs 는 100 ~ 5000 사이여야 합니다.");
+            }
+            return new StreamSpec(Mode.THROTTLED, Math.round((double) ms / THROTTLE_STEP_MS) * THROTTLE_STEP_MS);
+        }
+        if (mode.equalsIgnoreCase("bar")) {
+            return new StreamSpec(Mode.BAR, barPeriodMs(bar == null ? "1s" : bar));
+        }
+        throw new InvalidStreamModeException("mode 는 raw, throttled, bar 중 하나여야 합니다.");
+    }
+
+    /**
+     * 봉 주기 이름 (1s, 5s, 1m)
+     */
+    public String barLabel() {
+        return periodMs % 60_000 == 0 ? periodMs / 60_000 + "m" : periodMs / 1_000 + "s";
+    }
+
+    @Override
+    public String toString() {
+        return switch (mode) {
+            case RAW -> "raw";
+            case THROTTLED -> "throttled-" + periodMs + "ms";
+            case BAR -> "bar-" + barLabel();
+        };
+    }
+
+    private static long barPeriodMs(String bar) {
+        return switch (bar.toLowerCase()) {
+            case "1s" -> 1_000;
+            case "5s" -> 5_000;
+            case "1m" -> 60_000;
+            default -> throw new InvalidStreamModeException("bar 는 1s, 5s, 1m 중 하나여야 합니다.");
+        };
+    }
+}
@@ -0,0 +1,159 @@
+package com.project.stock.investory.stockInfo.stream;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.project.stock.investory.stockInfo.dto.RealTimeTradeDTO;
+import com.project.stock.investory.stockInfo.exception.StockNotFoundException;
+import com.project.stock.investory.stockInfo.service.StockSymbolTable;
+import com.project.stock.investory.stockInfo.util.StockMarketUtils;
+import com.project.stock.investory.stockInfo.util.SymbolIndexedArray;
+import com.project.stock.investory.stockInfo.websocket.KisWebSocketClient;
+import com.project.stock.investory.stockInfo.websocket.RealTimeTickBatch;
+import com.project.stock.investory.stockInfo.websocket.RealTimeTickListener;
+import io.micrometer.core.instrument.FunctionCounter;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.annotation.Profile;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.stereotype.Service;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Sinks;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 실시간 체결 스트림 (reactive) – streaming 프로필의 Netty 서버가 쓴다.
+ * <p>
+ * 종목마다 {@link Sinks.Many} 멀티캐스트 하나를 두고, KIS 체결 틱을 JSON 으로 한 번만 직렬화해 흘린다.
+ * <ul>
+ *     <li>sink 는 directBestEffort – 준비 안 된 구독자 몫만 버리고 나머지 구독자는 막지 않는다</li>
+ *     <li>구독자마다 onBackpressureLatest – 소켓이 밀리면 최신 틱 하나만 남긴다 (느린 클라이언트 합치기)</li>
+ *     <li>첫 구독자가 오면 KIS subscribe, 마지막 구독자가 나가면 unsubscribe</li>
+ * </ul>
+ * 연결마다 스레드 · async context 를 잡지 않으므로 연결 수가 늘어도 스레드 수는 Netty 이벤트 루프 수로 고정된다.
+ */
+@Slf4j
+@Service
+@Profile("streaming")
+public class ReactivePriceStreamService {
+
+    private static final ServerSentEvent<String> CONNECTED =
+            ServerSentEvent.builder("connected").event("message").build();
+    private static final ServerSentEvent<String> MARKET_CLOSED =
+            ServerSentEvent.builder("장 외 시간입니다.").event("marketClosed").build();
+
+    /**
+     * 종목 하나의 멀티캐스트 – 구독자 수 변경은 인스턴스 락으로 직렬화한다. (cold path)
+     */
+    private static final class Channel {
+        final String stockId;
+        final Sinks.Many<ServerSentEvent<String>> sink = Sinks.many().multicast().directBestEffort();
+        int subscribers;   // this 로 보호
+        volatile boolean live;
+
+        Channel(String stockId) {
+            this.stockId = stockId;
+        }
+    }
+
+    private final KisWebSocketClient kisClient;
+    private final StockSymbolTable symbols;
+    private final ObjectMapper om = new ObjectMapper();
+
+    private final SymbolIndexedArray<Channel> channels = new SymbolIndexedArray<>();
+    private final RealTimeTickListener tradeListener = this::onTicks;
+
+    /* 메트릭 */
+    private final AtomicInteger streams = new AtomicInteger();
+    private final LongAdder emitted = new LongAdder();
+    private final LongAdder emitFailed = new LongAdder();
+
+    public ReactivePriceStreamService(KisWebSocketClient kisClient, StockSymbolTable symbols, MeterRegistry meterRegistry) {
+        this.kisClient = kisClient;
+        this.symbols = symbols;
+        Gauge.builder("stock.stream.connections", streams, AtomicInteger::get)
+                .description("reactive 실시간 체결 스트림 연결 수")
+                .register(meterRegistry);
+        FunctionCounter.builder("stock.stream.emitted", emitted, LongAdder::sum)
+                .description("종목 sink 로 흘린 체결 틱")
+                .register(meterRegistry);
+        FunctionCounter.builder("stock.stream.emit.failed", emitFailed, LongAdder::sum)
+                .description("sink 에 넣지 못한 체결 틱 (동시 emit 등)")
+                .register(meterRegistry);
+    }
+
+    /**
+     * 연결 하나의 이벤트 스트림 – 구독할 때 채널을 잡고, 취소 · 종료 때 놓는다.
+     * 종목 마스터에 없는 코드면 {@link StockNotFoundException}
+     */
+    public Flux<ServerSentEvent<String>> stream(String stockId) {
+        if (!StockMarketUtils.isTradingHours()) {
+            return Flux.just(MARKET_CLOSED);
+        }
+        int symbolId = symbols.registerListed(stockId);
+        if (symbolId == StockSymbolTable.UNKNOWN) throw new StockNotFoundException(stockId);
+
+        return Flux.defer(() -> {
+            Channel channel = acquire(symbolId, stockId);
+            return Flux.concat(
+                            Flux.just(CONNECTED),
+                            channel.sink.asFlux().onBackpressureLatest())
+                    .doFinally(signal -> release(channel));
+        });
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 게이트웨이 콜백                                                       */
+    /* ------------------------------------------------------------------ */
+
+    private void onTicks(RealTimeTickBatch batch) {
+        Channel channel = channels.get(batch.getSymbolId());
+        if (channel == null || !channel.live || channel.sink.currentSubscriberCount() == 0) return;
+
+        for (int i = 0; i < batch.size(); i++) {
+            String json;
+            try {
+                json = om.writeValueAsString(RealTimeTradeDTO.from(batch.get(i)));
+            } catch (Exception e) {
+                log.warn("[{}] 체결 이벤트 직렬화 실패 : {}", channel.stockId, e.toString());
+                continue;
+            }
+            // 직렬화 · 이벤트 객체는 틱당 하나를 모든 구독자가 공유한다
+            Sinks.EmitResult result = channel.sink.tryEmitNext(ServerSentEvent.builder(json).event("trade").build());
+            if (result.isSuccess()) {
+                emitted.increment();
+            } else {
+                emitFailed.increment();
+            }
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 구독자 수 · KIS 구독                                                  */
+    /* ------------------------------------------------------------------ */
+
+    private Channel acquire(int symbolId, String stockId) {
+        Channel channel = channels.computeIfAbsent(symbolId, id -> new Channel(stockId));
+        synchronized (channel) {
+            if (channel.subscribers++ == 0) {
+                channel.live = true;
+                log.info("[{}] ▶️  KIS subscribe (reactive)", stockId);
+                kisClient.queueSubscribe(KisWebSocketClient.TR_TRADE, stockId, tradeListener);
+            }
+        }
+        streams.incrementAndGet();
+        return channel;
+    }
+
+    private void release(Channel channel) {
+        streams.decrementAndGet();
+        synchronized (channel) {
+            if (--channel.subscribers == 0) {
+                channel.live = false;
+                log.info("[{}] ⏹️  마지막 스트림 종료 → KIS unsubscribe (reactive)", channel.stockId);
+                kisClient.queueUnsubscribe(KisWebSocketClient.TR_TRADE, channel.stockId, tradeListener);
+            }
+        }
+    }
+}
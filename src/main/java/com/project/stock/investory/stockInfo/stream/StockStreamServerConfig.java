@@ -0,0 +1,118 @@
+package com.project.stock.investory.stockInfo.stream;
+
+import jakarta.annotation.PostConstruct;
+import jakarta.annotation.PreDestroy;
+import com.project.stock.investory.stockInfo.exception.StockNotFoundException;
+import lombok.RequiredArgsConstructor;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.core.ParameterizedTypeReference;
+import org.springframework.http.MediaType;
+import org.springframework.http.codec.ServerSentEvent;
+import org.springframework.http.server.reactive.HttpHandler;
+import org.springframework.http.server.reactive.ReactorHttpHandlerAdapter;
+import org.springframework.web.cors.CorsConfiguration;
+import org.springframework.web.cors.reactive.CorsWebFilter;
+import org.springframework.web.cors.reactive.UrlBasedCorsConfigurationSource;
+import org.springframework.web.reactive.function.server.RouterFunction;
+import org.springframework.web.reactive.function.server.RouterFunctions;
+import org.springframework.web.reactive.function.server.ServerRequest;
+import org.springframework.web.reactive.function.server.ServerResponse;
+import org.springframework.web.server.adapter.WebHttpHandlerBuilder;
+import reactor.core.publisher.Flux;
+import reactor.core.publisher.Mono;
+import reactor.netty.DisposableServer;
+import reactor.netty.http.server.HttpServer;
+import reactor.netty.resources.LoopResources;
+
+import java.util.List;
+
+import static org.springframework.web.reactive.function.server.RequestPredicates.GET;
+
+/**
+ * streaming 프로필에서만 실시간 체결 전용 Netty 서버를 별도 포트로 띄운다.
+ * <p>
+ * 본 애플리케이션(서블릿, 인증 · JPA 등)은 그대로 두고, 연결 수가 많은 가격 스트림만 이벤트 루프 서버로 받는다.
+ * 경로는 서블릿과 같다: {@code GET :{stock.stream.port}/stock/{stockId}/realTimeprice}
+ * <p>
+ * 예) --spring.profiles.active=streaming --stock.stream.port=8081 --stock.stream.event-loops=4
+ * 연결 5만 개 이상이면 OS 파일 디스크립터 한도(ulimit -n)도 그만큼 올려야 한다.
+ */
+@Slf4j
+@Configuration
+@Profile("streaming")
+@RequiredArgsConstructor
+public class StockStreamServerConfig {
+
+    private static final ParameterizedTypeReference<ServerSentEvent<String>> EVENT_TYPE =
+            new ParameterizedTypeReference<>() {
+            };
+
+    private final ReactivePriceStreamService streamService;
+
+    @Value("${stock.stream.port:8081}")
+    private int port;
+
+    @Value("${stock.stream.event-loops:0}")
+    private int eventLoops;   // 0 = CPU 코어 수
+
+    @Value("${stock.stream.allowed-origins:http://localhost:5173}")
+    private List<String> allowedOrigins;
+
+    private LoopResources loops;
+    private DisposableServer server;
+
+    @PostConstruct
+    public void start() {
+        RouterFunction<ServerResponse> routes = RouterFunctions.route(
+                GET("/stock/{stockId}/realTimeprice"), this::realTimePrice);
+
+        HttpHandler handler = WebHttpHandlerBuilder.webHandler(RouterFunctions.toWebHandler(routes))
+                .filter(new CorsWebFilter(corsSource()))
+                .build();
+
+        int threads = eventLoops > 0 ? eventLoops : Runtime.getRuntime().availableProcessors();
+        loops = LoopResources.create("stock-stream", threads, true);
+        server = HttpServer.create()
+                .port(port)
+                .runOn(loops)
+                .handle(new ReactorHttpHandlerAdapter(handler))
+                .bindNow();
+        log.info("실시간 체결 스트림 서버 시작 – port {}, event loop {}개", server.port(), threads);
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (server != null) server.disposeNow();
+        if (loops != null) loops.disposeLater().block();
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private Mono<ServerResponse> realTimePrice(ServerRequest request) {
+        String stockId = request.pathVariable("stockId");
+        Flux<ServerSentEvent<String>> events;
+        try {
+            events = streamService.stream(stockId);
+        } catch (StockNotFoundException e) {
+            return ServerResponse.status(e.getStatus()).bodyValue(e.getMessage());
+        }
+        return ServerResponse.ok()
+                .contentType(MediaType.TEXT_EVENT_STREAM)
+                .body(events, EVENT_TYPE);
+    }
+
+    private UrlBasedCorsConfigurationSource corsSource() {
+        CorsConfiguration config = new CorsConfiguration();
+        config.setAllowedOrigins(allowedOrigins);
+        config.addAllowedMethod("GET");
+        config.addAllowedHeader("*");
+        config.setAllowCredentials(true);
+
+        UrlBasedCorsConfigurationSource source = new UrlBasedCorsConfigurationSource();
+        source.registerCorsConfiguration("/**", config);
+        return source;
+    }
+}
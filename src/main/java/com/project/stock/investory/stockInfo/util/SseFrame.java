@@ -0,0 +1,75 @@
+package com.project.stock.investory.stockInfo.util;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.springframework.http.MediaType;
+import org.springframework.web.servlet.mvc.method.annotation.ResponseBodyEmitter;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.Set;
+
+/**
+ * 미리 인코딩해 둔 SSE 이벤트 한 건 ({@code event:}/{@code data:} 줄과 끝의 빈 줄까지 포함한 바이트)
+ * <p>
+ * 같은 틱을 받는 구독자가 여럿이면 JSON 직렬화와 이벤트 조립을 틱당 한 번만 하고,
+ * 연결마다 이 바이트를 그대로 쓴다. (ByteArrayHttpMessageConverter 가 그대로 복사)
+ * 생성 후에는 바뀌지 않으므로 여러 스레드 · 여러 emitter 가 같은 인스턴스를 공유해도 된다.
+ */
+public final class SseFrame {
+
+    private static final byte[] EVENT = "event:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] DATA = "\ndata:".getBytes(StandardCharsets.UTF_8);
+    private static final byte[] END = "\n\n".getBytes(StandardCharsets.UTF_8);
+
+    private final byte[] bytes;
+    private final Set<ResponseBodyEmitter.DataWithMediaType> items;
+
+    private SseFrame(byte[] bytes) {
+        this.bytes = bytes;
+        this.items = Set.of(new ResponseBodyEmitter.DataWithMediaType(bytes, MediaType.TEXT_PLAIN));
+    }
+
+    /**
+     * payload 를 JSON 한 줄로 직렬화해 이벤트로 만든다. (Jackson 기본 출력은 줄바꿈이 없다)
+     */
+    public static SseFrame json(ObjectMapper om, String event, Object payload) throws JsonProcessingException {
+        return of(event, om.writeValueAsBytes(payload));
+    }
+
+    /**
+     * data 는 줄바꿈 없는 UTF-8 한 줄이어야 한다.
+     */
+    public static SseFrame of(String event, byte[] data) {
+        byte[] name = event.getBytes(StandardCharsets.UTF_8);
+        byte[] out = new byte[EVENT.length + name.length + DATA.length + data.length + END.length];
+        int p = 0;
+        System.arraycopy(EVENT, 0, out, p, EVENT.length);
+        p += EVENT.length;
+        System.arraycopy(name, 0, out, p, name.length);
+        p += name.length;
+        System.arraycopy(DATA, 0, out, p, DATA.length);
+        p += DATA.length;
+        System.arraycopy(data, 0, out, p, data.length);
+        p += data.length;
+        System.arraycopy(END, 0, out, p, END.length);
+        return new SseFrame(out);
+    }
+
+    /**
+     * 연결 하나에 쓰기 – 이벤트 조립 없이 emitter 락 안에서 바이트만 복사된다.
+     */
+    public void writeTo(SseEmitter emitter) throws IOException {
+        emitter.send(items);
+    }
+
+    public int size() {
+        return bytes.length;
+    }
+
+    @Override
+    public String toString() {
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
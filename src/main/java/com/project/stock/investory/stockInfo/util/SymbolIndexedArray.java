@@ -0,0 +1,98 @@
+package com.project.stock.investory.stockInfo.util;
+
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.function.BiConsumer;
+import java.util.function.IntFunction;
+import java.util.function.UnaryOperator;
+
+/**
+ * 심볼 ID(StockSymbolTable) 로 바로 인덱싱하는 배열 맵
+ * <p>
+ * 실시간 경로의 {@code Map<String, V>} 를 대체한다. 읽기는 락 없이 원소 단위 volatile 읽기 한 번이고,
+ * 쓰기(등록/해제)는 드물기 때문에 인스턴스 락으로 직렬화한다. 공간이 모자라면 두 배로 복사해 늘린다.
+ */
+public final class SymbolIndexedArray<V> {
+
+    private volatile AtomicReferenceArray<V> slots;
+
+    public SymbolIndexedArray() {
+        this(256);
+    }
+
+    public SymbolIndexedArray(int initialCapacity) {
+        this.slots = new AtomicReferenceArray<>(Math.max(initialCapacity, 16));
+    }
+
+    /**
+     * 빈 맵 n 개를 담은 배열 (가격 기준별 묶음 등) – 제네릭 배열 생성의 unchecked 경고는 여기서만 누른다.
+     */
+    @SuppressWarnings({"unchecked", "rawtypes"})
+    public static <V> SymbolIndexedArray<V>[] arrayOf(int n) {
+        SymbolIndexedArray<V>[] arrays = new SymbolIndexedArray[n];
+        for (int i = 0; i < n; i++) arrays[i] = new SymbolIndexedArray<>();
+        return arrays;
+    }
+
+    public V get(int id) {
+        AtomicReferenceArray<V> s = slots;
+        return id >= 0 && id < s.length() ? s.get(id) : null;
+    }
+
+    public synchronized V computeIfAbsent(int id, IntFunction<V> factory) {
+        AtomicReferenceArray<V> s = ensureCapacity(id);
+        V v = s.get(id);
+        if (v == null) {
+            v = factory.apply(id);
+            s.set(id, v);
+        }
+        return v;
+    }
+
+    /**
+     * 현재 값에 remapping 을 적용한다. 결과가 null 이면 비운다.
+     */
+    public synchronized V compute(int id, UnaryOperator<V> remapping) {
+        AtomicReferenceArray<V> s = ensureCapacity(id);
+        V v = remapping.apply(s.get(id));
+        s.set(id, v);
+        return v;
+    }
+
+    public synchronized void set(int id, V value) {
+        ensureCapacity(id).set(id, value);
+    }
+
+    public synchronized V remove(int id) {
+        AtomicReferenceArray<V> s = slots;
+        return id >= 0 && id < s.length() ? s.getAndSet(id, null) : null;
+    }
+
+    public synchronized void clear() {
+        slots = new AtomicReferenceArray<>(slots.length());
+    }
+
+    /**
+     * 비어 있지 않은 칸만 순회 (cold path 용)
+     */
+    public void forEach(BiConsumer<Integer, V> action) {
+        AtomicReferenceArray<V> s = slots;
+        for (int i = 0; i < s.length(); i++) {
+            V v = s.get(i);
+            if (v != null) action.accept(i, v);
+        }
+    }
+
+    private AtomicReferenceArray<V> ensureCapacity(int id) {
+        if (id < 0) throw new IllegalArgumentException("잘못된 심볼 ID: " + id);
+
+        AtomicReferenceArray<V> s = slots;
+        if (id < s.length()) return s;
+
+        int capacity = s.length();
+        while (capacity <= id) capacity <<= 1;
+        AtomicReferenceArray<V> grown = new AtomicReferenceArray<>(capacity);
+        for (int i = 0; i < s.length(); i++) grown.set(i, s.get(i));
+        slots = grown;
+        return grown;
+    }
+}
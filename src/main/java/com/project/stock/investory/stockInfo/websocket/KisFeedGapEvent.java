@@ -0,0 +1,29 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+import java.util.List;
+
+/**
+ * KIS 실시간 연결이 끊겼다가 복구되고, 구독 재등록까지 끝났을 때 게이트웨이가 발행하는 이벤트
+ * <p>
+ * 등록 단위마다 수신이 끊겼던 구간을 담는다. 그 사이의 체결/호가는 유실됐으므로
+ * consumer 는 REST 스냅샷 등으로 현재 상태를 다시 맞춰야 한다.
+ */
+public record KisFeedGapEvent(List<Gap> gaps) {
+
+    /**
+     * 등록 단위 하나의 수신 공백 [disconnectedAtMillis, recoveredAtMillis)
+     */
+    public record Gap(KisSubscription subscription, long disconnectedAtMillis, long recoveredAtMillis) {
+
+        public long durationMillis() {
+            return recoveredAtMillis - disconnectedAtMillis;
+        }
+    }
+
+    /**
+     * 특정 tr_id 의 공백 목록만
+     */
+    public List<Gap> gapsOf(String trId) {
+        return gaps.stream().filter(g -> g.subscription().trId().equals(trId)).toList();
+    }
+}
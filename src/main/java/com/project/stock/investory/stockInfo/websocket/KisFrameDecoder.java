@@ -0,0 +1,316 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+import com.project.stock.investory.stockInfo.service.StockSymbolTable;
+
+import java.util.function.Consumer;
+
+/**
+ * KIS 실시간 체결(H0STCNT0 / H0NXCNT0) · 호가(H0STASP0) 프레임 디코더
+ * <p>
+ * {@code split()} 으로 String[] 를 만들지 않고 커서로 '^' 구분 필드를 훑으면서,
+ * 필요한 필드만 고정 오프셋에서 primitive 로 바로 파싱한다.
+ * 종목코드는 {@link StockSymbolTable} 에서 문자 범위로 바로 심볼 ID 를 찾으므로 String 을 만들지 않는다.
+ * <pre>
+ * 0|H0NXCNT0|001|005930^093015^71000^2^500^0.71^...
+ * ↑암호화 ↑tr_id  ↑건수 ↑payload ('^' 구분)
+ *
+ * payload 오프셋
+ * 0  종목코드
+ * 1  체결시간(HHmmss)
+ * 2  현재가
+ * 5  등락률
+ * 12 체결량
+ * 13 누적거래량
+ *
+ * 호가(H0STASP0) payload 오프셋
+ * 0  종목코드
+ * 1  영업시간(HHmmss)
+ * 3  매도1호가
+ * 13 매수1호가
+ * </pre>
+ */
+public final class KisFrameDecoder {
+
+    static final int F_STOCK_CODE = 0;
+    static final int F_TRADE_TIME = 1;
+    static final int F_PRICE = 2;
+    static final int F_CHANGE_RATE = 5;
+    static final int F_VOLUME = 12;
+    static final int F_ACC_VOLUME = 13;
+
+    static final int Q_STOCK_CODE = 0;
+    static final int Q_TIME = 1;
+    static final int Q_ASK_PRICE_1 = 3;
+    static final int Q_BID_PRICE_1 = 13;
+
+    private KisFrameDecoder() {
+    }
+
+    /**
+     * 체결 프레임의 레코드 N건을 모두 {@code out} 에 디코딩한다.
+     * <p>
+     * KIS 는 한 프레임에 여러 체결을 '^' 로 이어 붙여 보내므로 (세 번째 필드가 건수),
+     * payload 전체 필드 수를 건수로 나눈 값을 레코드당 필드 수로 본다.
+     * 숫자 필드가 깨진 레코드는 그 레코드만 건너뛰고 ({@link RealTimeTickBatch#skippedCount()}) 나머지는 살린다.
+     *
+     * @return 필드가 모자라는 등 형식이 맞지 않으면 false
+     */
+    public static boolean decodeTrades(String raw, StockSymbolTable symbols, RealTimeTickBatch out) {
+        out.clear();
+
+        int cursor = payloadStart(raw);
+        if (cursor < 0) return false;
+
+        int records = recordCount(raw, cursor);
+        if (records <= 0) return false;
+
+        int fieldsPerRecord = fieldCount(raw, cursor) / records;
+        if (fieldsPerRecord <= F_ACC_VOLUME) return false;
+
+        for (int r = 0; r < records; r++) {
+            int start = cursor;
+            try {
+                cursor = decodeRecord(raw, cursor, fieldsPerRecord, symbols, out.next());
+            } catch (NumberFormatException e) {
+                out.dropLast();
+                cursor = skipFields(raw, start, fieldsPerRecord);
+            }
+            if (cursor < 0) return false;
+        }
+        return true;
+    }
+
+    /**
+     * 호가 프레임의 레코드를 하나씩 {@code out} 에 덮어쓰면서 {@code sink} 로 넘긴다.
+     * 숫자 필드가 깨진 레코드는 넘기지 않고 다음 레코드로 간다.
+     *
+     * @return 필드가 모자라는 등 형식이 맞지 않으면 false (그 전 레코드는 이미 전달됨)
+     */
+    public static boolean decodeQuotes(String raw, StockSymbolTable symbols, RealTimeQuote out,
+                                       Consumer<RealTimeQuote> sink) {
+        int cursor = payloadStart(raw);
+        if (cursor < 0) return false;
+
+        int records = recordCount(raw, cursor);
+        if (records <= 0) return false;
+
+        int fieldsPerRecord = fieldCount(raw, cursor) / records;
+        if (fieldsPerRecord <= Q_BID_PRICE_1) return false;
+
+        for (int r = 0; r < records; r++) {
+            int start = cursor;
+            try {
+                cursor = decodeQuote(raw, cursor, fieldsPerRecord, symbols, out);
+            } catch (NumberFormatException e) {
+                cursor = skipFields(raw, start, fieldsPerRecord);
+                if (cursor < 0) return false;
+                continue;
+            }
+            if (cursor < 0) return false;
+            sink.accept(out);
+        }
+        return true;
+    }
+
+    /**
+     * cursor 에서 시작하는 호가 레코드 하나를 디코딩하고 다음 레코드의 시작 위치를 돌려준다. 필드가 모자라면 -1
+     */
+    private static int decodeQuote(String raw, int cursor, int fieldsPerRecord,
+                                   StockSymbolTable symbols, RealTimeQuote out) {
+        int len = raw.length();
+        for (int field = 0; field < fieldsPerRecord; field++) {
+            if (cursor > len) return -1;
+
+            int end = raw.indexOf('^', cursor);
+            if (end < 0) end = len;
+
+            switch (field) {
+                case Q_STOCK_CODE -> {
+                    out.symbolId = symbols.idOf(raw, cursor, end);
+                    out.stockCode = code(raw, cursor, end, symbols, out.symbolId, out.stockCode);
+                }
+                case Q_TIME -> out.quoteTime = parseInt(raw, cursor, end);
+                case Q_ASK_PRICE_1 -> out.askPrice1 = parseInt(raw, cursor, end);
+                case Q_BID_PRICE_1 -> out.bidPrice1 = parseInt(raw, cursor, end);
+                default -> {
+                    // 사용하지 않는 필드는 건너뜀
+                }
+            }
+            cursor = end + 1;
+        }
+        return cursor;
+    }
+
+    /**
+     * cursor 에서 시작하는 레코드 하나를 디코딩하고 다음 레코드의 시작 위치를 돌려준다. 필드가 모자라면 -1
+     */
+    private static int decodeRecord(String raw, int cursor, int fieldsPerRecord,
+                                    StockSymbolTable symbols, RealTimeTick out) {
+        int len = raw.length();
+        for (int field = 0; field < fieldsPerRecord; field++) {
+            if (cursor > len) return -1;
+
+            int end = raw.indexOf('^', cursor);
+            if (end < 0) end = len;
+
+            switch (field) {
+                case F_STOCK_CODE -> {
+                    out.symbolId = symbols.idOf(raw, cursor, end);
+                    out.stockCode = code(raw, cursor, end, symbols, out.symbolId, out.stockCode);
+                }
+                case F_TRADE_TIME -> out.tradeTime = parseInt(raw, cursor, end);
+                case F_PRICE -> out.price = parseInt(raw, cursor, end);
+                case F_CHANGE_RATE -> {
+                    out.changeRate = parseScaled2(raw, cursor, end);
+                    out.frame = raw;
+                    out.changeRateFrom = cursor;
+                    out.changeRateTo = end;
+                }
+                case F_VOLUME -> out.volume = parseLong(raw, cursor, end);
+                case F_ACC_VOLUME -> out.accumulateVolume = parseLong(raw, cursor, end);
+                default -> {
+                    // 사용하지 않는 필드는 건너뜀
+                }
+            }
+            cursor = end + 1;
+        }
+        return cursor;
+    }
+
+    /**
+     * 레코드 하나를 해석하지 않고 넘긴다. (숫자가 깨진 레코드) 필드가 모자라면 -1
+     */
+    private static int skipFields(String raw, int cursor, int fields) {
+        int len = raw.length();
+        for (int field = 0; field < fields; field++) {
+            if (cursor > len) return -1;
+
+            int end = raw.indexOf('^', cursor);
+            cursor = (end < 0 ? len : end) + 1;
+        }
+        return cursor;
+    }
+
+    /**
+     * 세 번째 '|' 필드(레코드 건수). payload 시작 위치를 받아 그 앞 필드를 읽는다. 숫자가 아니면 -1
+     */
+    static int recordCount(String raw, int payload) {
+        int countStart = raw.lastIndexOf('|', payload - 2) + 1;
+        try {
+            return parseInt(raw, countStart, payload - 1);
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * payload 전체의 '^' 구분 필드 수
+     */
+    static int fieldCount(String raw, int payload) {
+        int fields = 1;
+        for (int i = raw.indexOf('^', payload); i >= 0; i = raw.indexOf('^', i + 1)) fields++;
+        return fields;
+    }
+
+    /**
+     * payload(네 번째 '|' 필드) 시작 위치. '|' 가 3개 미만이면 -1
+     */
+    static int payloadStart(String raw) {
+        int pos = -1;
+        for (int i = 0; i < 3; i++) {
+            pos = raw.indexOf('|', pos + 1);
+            if (pos < 0) return -1;
+        }
+        return pos + 1;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 필드 파서 – 범위 [from, to) 를 그대로 읽는다                         */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * 등록된 종목이면 심볼 테이블의 String 을 그대로 쓰고, 미등록이면 직전 값과 비교해 재사용한다. (대부분의 경우 할당 0)
+     */
+    private static String code(String raw, int from, int to, StockSymbolTable symbols, int symbolId, String previous) {
+        if (symbolId != StockSymbolTable.UNKNOWN) return symbols.codeOf(symbolId);
+
+        int n = to - from;
+        if (previous != null && previous.length() == n && raw.regionMatches(from, previous, 0, n)) {
+            return previous;
+        }
+        return raw.substring(from, to);
+    }
+
+    static int parseInt(CharSequence s, int from, int to) {
+        long v = parseLong(s, from, to);
+        if (v < Integer.MIN_VALUE || v > Integer.MAX_VALUE) {
+            throw new NumberFormatException("int 범위 초과: " + s.subSequence(from, to));
+        }
+        return (int) v;
+    }
+
+    static long parseLong(CharSequence s, int from, int to) {
+        if (from >= to) throw new NumberFormatException("빈 숫자 필드");
+
+        boolean negative = false;
+        char first = s.charAt(from);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            if (++from == to) throw new NumberFormatException("부호만 있는 숫자 필드");
+        }
+
+        long v = 0;
+        for (int i = from; i < to; i++) {
+            int d = s.charAt(i) - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("숫자 아님: " + s.subSequence(from, to));
+            }
+            v = v * 10 + d;
+        }
+        return negative ? -v : v;
+    }
+
+    /**
+     * 소수점 둘째 자리까지의 10진수를 ×100 정수로 변환 ("-0.7" → -70, "1.23" → 123, "3" → 300)
+     * 셋째 자리 이하는 버린다.
+     */
+    static int parseScaled2(CharSequence s, int from, int to) {
+        if (from >= to) throw new NumberFormatException("빈 숫자 필드");
+
+        boolean negative = false;
+        char first = s.charAt(from);
+        if (first == '-' || first == '+') {
+            negative = first == '-';
+            from++;
+        }
+
+        int intPart = 0;
+        int frac = 0;
+        int fracDigits = -1;   // '.' 이전이면 -1
+        boolean digit = false;
+        for (int i = from; i < to; i++) {
+            char c = s.charAt(i);
+            if (c == '.' && fracDigits < 0) {
+                fracDigits = 0;
+                continue;
+            }
+            int d = c - '0';
+            if (d < 0 || d > 9) {
+                throw new NumberFormatException("숫자 아님: " + s.subSequence(from, to));
+            }
+            digit = true;
+            if (fracDigits < 0) {
+                intPart = intPart * 10 + d;
+            } else if (fracDigits < 2) {
+                frac = frac * 10 + d;
+                fracDigits++;
+            }
+        }
+        if (!digit) throw new NumberFormatException("숫자 아님: " + s.subSequence(from, to));
+        if (fracDigits < 1) frac *= 100;
+        else if (fracDigits == 1) frac *= 10;
+
+        int v = intPart * 100 + frac;
+        return negative ? -v : v;
+    }
+}
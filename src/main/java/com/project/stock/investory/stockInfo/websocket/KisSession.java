@@ -0,0 +1,332 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import jakarta.websocket.*;
+import lombok.extern.slf4j.Slf4j;
+
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Consumer;
+
+/**
+ * KIS 업스트림 WebSocket 세션 하나 (approval key 하나)
+ * <p>
+ * 자기 supervisor 스레드에서 상태 머신(DISCONNECTED → CONNECTING → OPEN)으로 연결을 관리하고,
+ * 끊기면 지터를 섞은 지수 백오프로 계속 재연결한다. 열리면 자기에게 배정된 구독 전체를 다시 등록한다.
+ * 등록/해제 패킷은 세션마다 따로 둔 {@link KisSubscriptionSender} 를 거쳐 속도 제한 안에서 나간다.
+ * <p>
+ * 어떤 구독을 어느 세션이 맡을지는 풀({@link KisWebSocketClient})이 정하고, 수신한 실시간 프레임도
+ * 세션 전용 디코딩 버퍼와 함께 풀로 넘겨 하나의 논리 스트림으로 합친다.
+ * (컨테이너가 콜백을 리플렉션으로 부르므로 클래스는 public, 생성은 풀에서만)
+ */
+@Slf4j
+@ClientEndpoint
+public class KisSession {
+
+    enum ConnectionState {DISCONNECTED, CONNECTING, OPEN, SHUTDOWN}
+
+    private final int index;
+    private final String wsUrl;
+    private final String approvalKey;
+    private final long reconnectBaseMs;
+    private final long reconnectMaxMs;
+    private final KisWebSocketClient pool;
+
+    private final ObjectMapper om = new ObjectMapper();
+    private final ReentrantLock sendLock = new ReentrantLock();   // sendText
+    private final ScheduledExecutorService supervisor;
+    private final AtomicReference<ConnectionState> state = new AtomicReference<>(ConnectionState.DISCONNECTED);
+    private final KisSubscriptionSender sender;
+
+    /**
+     * 이 세션에 배정된 등록 단위 – 여기 있는 키가 곧 이 세션에서 서버에 등록돼 있어야 하는 목록
+     */
+    private final Set<KisSubscription> assigned = ConcurrentHashMap.newKeySet();
+
+    private int reconnectAttempt;     // supervisor 스레드 전용
+    private volatile long openGeneration;   // 연결이 열릴 때마다 +1 – 이전 연결의 재등록 작업을 무효화
+    private volatile Session session;
+
+    /**
+     * onMessage 는 세션당 한 스레드에서 순차 호출되므로 디코딩 버퍼를 세션마다 하나씩 두고 계속 재사용한다.
+     */
+    final RealTimeTickBatch batch = new RealTimeTickBatch();
+    final RealTimeQuote quote = new RealTimeQuote();
+    final Consumer<RealTimeQuote> quoteDispatcher;
+
+    KisSession(int index, String wsUrl, String approvalKey, long reconnectBaseMs, long reconnectMaxMs,
+               double sendRatePerSec, int sendBurst, KisWebSocketClient pool) {
+        this.index = index;
+        this.wsUrl = wsUrl;
+        this.approvalKey = approvalKey;
+        this.reconnectBaseMs = reconnectBaseMs;
+        this.reconnectMaxMs = reconnectMaxMs;
+        this.pool = pool;
+        this.quoteDispatcher = pool::dispatchQuote;
+        this.supervisor = Executors.newSingleThreadScheduledExecutor(r -> {
+            Thread t = new Thread(r, "kis-ws-supervisor-" + index);
+            t.setDaemon(true);
+            return t;
+        });
+        this.sender = new KisSubscriptionSender(supervisor, this::sendPacket, sendRatePerSec, sendBurst);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* Life-cycle                                                         */
+    /* ------------------------------------------------------------------ */
+
+    void start() {
+        supervisor.execute(this::connect);
+    }
+
+    void shutdown() {
+        state.set(ConnectionState.SHUTDOWN);
+        supervisor.shutdownNow();
+        try {
+            if (session != null && session.isOpen()) {
+                session.close(new CloseReason(
+                        CloseReason.CloseCodes.NORMAL_CLOSURE, "shutdown"));
+            }
+        } catch (Exception ignored) {
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 풀에서 호출 (풀 배정 락 안)                                           */
+    /* ------------------------------------------------------------------ */
+
+    void subscribe(KisSubscription key) {
+        if (assigned.add(key)) sender.subscribe(key);
+    }
+
+    void unsubscribe(KisSubscription key) {
+        if (assigned.remove(key)) sender.unsubscribe(key);
+    }
+
+    /**
+     * 패킷 없이 배정만 뺀다 – 끊긴 세션에서 다른 세션으로 옮길 때 (서버 쪽 등록은 연결과 함께 이미 사라짐)
+     */
+    void drop(KisSubscription key) {
+        assigned.remove(key);
+    }
+
+    Set<KisSubscription> assigned() {
+        return assigned;
+    }
+
+    int assignedCount() {
+        return assigned.size();
+    }
+
+    boolean isOpen() {
+        return state.get() == ConnectionState.OPEN;
+    }
+
+    int index() {
+        return index;
+    }
+
+    Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("session", index);
+        stats.put("state", state.get().name());
+        stats.put("assigned", assigned.size());
+        stats.put("sender", sender.getStats());
+        stats.put("statuses", sender.getStatuses());
+        return stats;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 연결 상태 머신 (supervisor 스레드)                                    */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * DISCONNECTED 에서만 연결을 시도한다.
+     */
+    private void connect() {
+        if (!state.compareAndSet(ConnectionState.DISCONNECTED, ConnectionState.CONNECTING)) return;
+
+        try {
+            WebSocketContainer container = ContainerProvider.getWebSocketContainer();
+            container.setDefaultMaxSessionIdleTimeout(60_000);
+            container.connectToServer(this, URI.create(wsUrl));   // 성공하면 onOpen 이 불린다
+            log.info("📡 KIS WebSocket 연결 수립 [세션 {}] {}", index, wsUrl);
+        } catch (Exception e) {
+            log.error("WebSocket 연결 실패 [세션 {}] (시도 {})", index, reconnectAttempt + 1, e);
+            if (state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.DISCONNECTED)) {
+                scheduleReconnect();
+            }
+        }
+    }
+
+    /**
+     * 지수 백오프 + equal jitter, 상한 {@code reconnectMaxMs}. 횟수 제한 없이 계속 시도한다.
+     */
+    private void scheduleReconnect() {
+        if (state.get() == ConnectionState.SHUTDOWN) return;
+
+        long ceiling = Math.min(reconnectMaxMs, reconnectBaseMs << Math.min(reconnectAttempt, 16));
+        long delay = ceiling / 2 + ThreadLocalRandom.current().nextLong(ceiling / 2 + 1);
+        reconnectAttempt++;
+
+        log.info("🔄 [세션 {}] {}ms 후 재연결 시도 ({}번째)", index, delay, reconnectAttempt);
+        supervisor.schedule(this::connect, delay, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * 새 세션에는 아무 것도 등록돼 있지 않으므로 송신 큐를 비우고 배정된 구독 전체를 다시 넣는다.
+     * 송신 큐가 속도 제한에 맞춰 다 보내고 나면 풀에 공백 발행을 맡긴다. 도중에 연결이 바뀌면 하지 않는다.
+     */
+    private void replaySubscriptions(long generation) {
+        List<KisSubscription> keys = new ArrayList<>(assigned);
+        log.info("🔁 [세션 {}] 구독 {}건 재등록 시작", index, keys.size());
+
+        sender.reset();
+        keys.forEach(sender::subscribe);
+        sender.whenIdle(() -> {
+            if (generation == openGeneration && isOpen()) pool.publishGaps(this);
+        });
+    }
+
+    /**
+     * 세션이 다시 열린 뒤 풀이 다른 세션의 구독을 옮겨 왔을 때 – 다 보내고 나면 공백 발행
+     */
+    void publishGapsWhenIdle() {
+        long generation = openGeneration;
+        sender.whenIdle(() -> {
+            if (generation == openGeneration && isOpen()) pool.publishGaps(this);
+        });
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 실제 subscribe / unsubscribe 패킷 전송                              */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * {@link KisSubscriptionSender} 의 전송 함수 – supervisor 스레드에서만 불린다.
+     */
+    private boolean sendPacket(String trType, KisSubscription key) {
+        sendLock.lock();
+        try {
+            if (!isOpen() || session == null || !session.isOpen()) return false;
+            session.getBasicRemote().sendText(buildPayload(trType, key));
+            log.info(KisSubscriptionSender.SUBSCRIBE.equals(trType) ? "▶️ subscribe [세션 {}] : {}" : "⏹️ unsubscribe [세션 {}] : {}", index, key);
+            return true;
+        } catch (Exception e) {
+            // 배정은 그대로 두고 재연결(onOpen) 때 다시 보낸다
+            log.error("등록 패킷 전송 오류 [세션 {}] – {}", index, key, e);
+            return false;
+        } finally {
+            sendLock.unlock();
+        }
+    }
+
+    private String buildPayload(String trType, KisSubscription key) {
+        return """
+                {
+                  "header": {
+                    "approval_key": "%s",
+                    "custtype":    "P",
+                    "tr_type":     "%s",
+                    "content-type":"utf-8",
+                    "tr_id":       "%s",
+                    "tr_key":      "%s"
+                  },
+                  "body": {
+                    "input": {
+                      "tr_id":  "%s",
+                      "tr_key": "%s"
+                    }
+                  }
+                }
+                """.replace("\n", "")      // 필요하면 개행 제거
+                .formatted(approvalKey, trType, key.trId(), key.trKey(), key.trId(), key.trKey());
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* WebSocket 콜백                                                      */
+    /* ------------------------------------------------------------------ */
+
+    @OnOpen
+    public void onOpen(Session s) {
+        log.info("✅  WebSocket OPEN [세션 {}]", index);
+        this.session = s;
+        if (!state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.OPEN)) return;
+
+        long generation = ++openGeneration;
+        supervisor.execute(() -> {
+            reconnectAttempt = 0;
+            replaySubscriptions(generation);
+            pool.onSessionUp(this);
+        });
+    }
+
+    @OnMessage
+    public void onMessage(String msg) {
+        pool.capture(msg);   // 재생용 원본 기록
+
+        if (msg.startsWith("{")) {
+            if (msg.contains("\"tr_id\":\"PINGPONG\"")) return; // 하트비트
+            handleJson(msg);
+        } else {
+            pool.onFrame(this, msg);
+        }
+    }
+
+    @OnClose
+    public void onClose(Session s, CloseReason reason) {
+        log.warn("⚠️  WebSocket CLOSED [세션 {}] : {} ({})",
+                index, reason.getReasonPhrase(), reason.getCloseCode());
+        if (s != session) return;   // 이미 교체된 이전 세션
+
+        boolean wasOpen = state.compareAndSet(ConnectionState.OPEN, ConnectionState.DISCONNECTED);
+        if (wasOpen || state.compareAndSet(ConnectionState.CONNECTING, ConnectionState.DISCONNECTED)) {
+            try {
+                supervisor.execute(() -> {
+                    if (wasOpen) pool.onSessionDown(this);
+                    scheduleReconnect();
+                });
+            } catch (RejectedExecutionException ignored) {
+                // 종료 중
+            }
+        }
+    }
+
+    @OnError
+    public void onError(Session s, Throwable t) {
+        log.error("WebSocket ERROR [세션 {}]", index, t);
+    }
+
+    /**
+     * 등록/해제 응답 – header 의 (tr_id, tr_key) 로 송신 큐의 in-flight 요청과 맞춘다.
+     */
+    private void handleJson(String json) {
+        try {
+            JsonNode root = om.readTree(json);
+            JsonNode header = root.path("header");
+            JsonNode body = root.path("body");
+
+            String rt = body.path("rt_cd").asText();
+            String code = body.path("msg_cd").asText();
+            String msg = body.path("msg1").asText();
+            KisSubscription key = new KisSubscription(header.path("tr_id").asText(""), header.path("tr_key").asText(""));
+
+            if ("0".equals(rt)) {
+                log.info("구독 응답 [세션 {}] – {} ({}) {}", index, key, code, msg);
+            } else {
+                log.warn("❗ KIS 오류 [세션 {}] – {} ({}) {}", index, key, code, msg);
+            }
+            sender.onResponse(key, "0".equals(rt), code, msg);
+        } catch (Exception e) {
+            log.warn("JSON 메시지 파싱 실패: {}", json, e);
+        }
+    }
+}
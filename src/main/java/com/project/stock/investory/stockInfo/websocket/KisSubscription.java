@@ -0,0 +1,15 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+/**
+ * KIS 실시간 등록 단위 (tr_id, tr_key=종목코드)
+ * <p>
+ * KIS 는 approval key 당 등록 수를 제한하므로 게이트웨이는 이 단위로 참조 횟수를 세고,
+ * 처음 참조될 때 한 번 등록 / 마지막 참조가 빠질 때 한 번 해제한다.
+ */
+public record KisSubscription(String trId, String trKey) {
+
+    @Override
+    public String toString() {
+        return trId + ":" + trKey;
+    }
+}
@@ -0,0 +1,327 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * KIS 등록/해제 패킷 송신 큐 – 토큰 버킷으로 속도를 맞춘다.
+ * <p>
+ * 모든 등록/해제 요청은 이 큐 하나를 거친다. 아직 보내지 않은 요청끼리는 합쳐서,
+ * 같은 키의 같은 요청은 한 번만 보내고 서로 상쇄되는 등록/해제 쌍은 아예 보내지 않는다.
+ * 보낸 요청은 JSON 응답(rt_cd)이 올 때까지 in-flight 로 두고, 응답을 받으면 등록 상태를 확정한다.
+ * 응답이 ACK_TIMEOUT_MS 안에 오지 않으면 다시 보내고, ACK_RETRIES 번째에도 없으면 거절로 본다.
+ * <p>
+ * 실제 전송과 큐 비우기(drain)는 게이트웨이 supervisor 스레드에서만 일어난다.
+ * 꺼내기와 결과 반영만 락 안에서 하고 전송은 락 밖에서 해, 전송이 막혀도 등록 요청 적재와 응답 처리는 멈추지 않는다.
+ */
+@Slf4j
+final class KisSubscriptionSender {
+
+    static final String SUBSCRIBE = "1";
+    static final String UNSUBSCRIBE = "2";
+
+    // KIS 응답 msg_cd
+    private static final String MSG_SUBSCRIBE_OK = "OPSP0000";
+    private static final String MSG_UNSUBSCRIBE_OK = "OPSP0001";
+    private static final String MSG_ALREADY_SUBSCRIBED = "OPSP0002";
+    private static final String MSG_NOT_SUBSCRIBED = "OPSP0003";
+
+    private static final long ACK_TIMEOUT_MS = 10_000L;
+    private static final int ACK_RETRIES = 3;
+
+    @FunctionalInterface
+    interface Transport {
+        /**
+         * 패킷 하나 전송 – 보냈으면 true
+         */
+        boolean send(String trType, KisSubscription key);
+    }
+
+    enum Status {SUBSCRIBING, SUBSCRIBED, UNSUBSCRIBING, REJECTED}
+
+    private record InFlight(String trType, long sentAtMillis, int attempt) {
+    }
+
+    private final ScheduledExecutorService executor;
+    private final Transport transport;
+    private final double permitsPerMilli;
+    private final double burst;
+
+    /* 아래 상태는 모두 this 로 보호 */
+    private final LinkedHashMap<KisSubscription, String> pending = new LinkedHashMap<>();   // 키 → tr_type
+    private final Map<KisSubscription, InFlight> inFlight = new HashMap<>();
+    private final Map<KisSubscription, Status> status = new HashMap<>();
+    private final Map<KisSubscription, Integer> attempts = new HashMap<>();   // 응답이 없어 다시 보낼 키 → 다음 시도 번호
+    private final List<Runnable> idleCallbacks = new ArrayList<>();
+    private double tokens;
+    private long lastRefillNanos = System.nanoTime();
+    private boolean drainScheduled;
+    private long generation;   // reset 마다 증가 – 락 밖 전송 중에 세션이 바뀌었는지 확인
+
+    /* 메트릭 */
+    private long sent;
+    private long coalesced;   // 같은 요청이 겹쳐 합쳐진 수
+    private long cancelled;   // 등록/해제가 서로 상쇄되어 보내지 않은 수
+    private long acked;
+    private long rejected;
+    private long ackTimedOut;   // 응답이 없어 다시 보내거나 포기한 수
+
+    KisSubscriptionSender(ScheduledExecutorService executor, Transport transport, double ratePerSecond, int burst) {
+        this.executor = executor;
+        this.transport = transport;
+        this.permitsPerMilli = ratePerSecond / 1_000.0;
+        this.burst = Math.max(1, burst);
+        this.tokens = this.burst;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 요청 적재                                                           */
+    /* ------------------------------------------------------------------ */
+
+    synchronized void subscribe(KisSubscription key) {
+        enqueue(key, SUBSCRIBE);
+    }
+
+    synchronized void unsubscribe(KisSubscription key) {
+        enqueue(key, UNSUBSCRIBE);
+    }
+
+    private void enqueue(KisSubscription key, String trType) {
+        String queued = pending.get(key);
+        if (trType.equals(queued)) {
+            coalesced++;
+            return;
+        }
+        attempts.remove(key);   // 새 요청 – 재전송 횟수는 처음부터
+        if (queued != null) {
+            // 아직 안 보낸 반대 요청과 상쇄 – 서버 상태는 그대로 둔다
+            pending.remove(key);
+            cancelled += 2;
+            notifyIfIdle();
+            return;
+        }
+        pending.put(key, trType);
+        scheduleDrain(0);
+    }
+
+    /**
+     * 새 세션이 열렸을 때 – 서버에는 아무 것도 등록돼 있지 않으므로 이전 세션의 상태를 모두 버린다.
+     */
+    synchronized void reset() {
+        pending.clear();
+        inFlight.clear();
+        status.clear();
+        attempts.clear();
+        generation++;
+    }
+
+    /**
+     * 대기 중인 요청이 모두 전송되면 한 번 호출 (이미 비어 있으면 다음 drain 에서 바로)
+     */
+    synchronized void whenIdle(Runnable callback) {
+        idleCallbacks.add(callback);
+        scheduleDrain(0);
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 전송 (supervisor 스레드)                                             */
+    /* ------------------------------------------------------------------ */
+
+    private void scheduleDrain(long delayMs) {
+        if (drainScheduled) return;
+        drainScheduled = true;
+        try {
+            executor.schedule(this::drain, delayMs, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) {
+            drainScheduled = false;   // 종료 중
+        }
+    }
+
+    private void drain() {
+        synchronized (this) {
+            drainScheduled = false;
+            requeueUnacked(System.currentTimeMillis());
+        }
+
+        while (true) {
+            KisSubscription key;
+            String trType;
+            Status before;
+            long sessionGeneration;
+            synchronized (this) {
+                refill();
+                if (pending.isEmpty() || tokens < 1) {
+                    scheduleNext();
+                    return;
+                }
+                Map.Entry<KisSubscription, String> next = pending.pollFirstEntry();
+                key = next.getKey();
+                trType = next.getValue();
+                tokens -= 1;
+                sessionGeneration = generation;
+
+                // 응답이 전송 직후 바로 와도 짝을 찾도록 보내기 전에 in-flight 로
+                inFlight.put(key, new InFlight(trType, System.currentTimeMillis(), attempts.getOrDefault(key, 1)));
+                before = status.put(key, SUBSCRIBE.equals(trType) ? Status.SUBSCRIBING : Status.UNSUBSCRIBING);
+            }
+
+            boolean delivered = transport.send(trType, key);   // 락 밖 – 막혀도 적재 · 응답 처리는 계속된다
+
+            synchronized (this) {
+                if (sessionGeneration != generation) return;   // 그새 새 세션 – reset 이 상태를 비웠다
+                if (delivered) {
+                    attempts.remove(key);
+                    sent++;
+                    continue;
+                }
+                // 연결이 없음 – 보내지 못한 요청은 되돌리고, 다시 열리면 reset 후 재등록된다
+                inFlight.remove(key);
+                if (before == null) status.remove(key);
+                else status.put(key, before);
+                requeueFirst(key, trType);
+                return;
+            }
+        }
+    }
+
+    /**
+     * 보내지 못한 요청을 큐 맨 앞으로 – 그새 들어온 같은 키의 요청과는 {@link #enqueue} 와 같은 규칙으로 합친다.
+     */
+    private void requeueFirst(KisSubscription key, String trType) {
+        String queued = pending.get(key);
+        if (trType.equals(queued)) return;
+        if (queued != null) {
+            pending.remove(key);
+            attempts.remove(key);
+            cancelled += 2;
+            return;
+        }
+        pending.putFirst(key, trType);
+    }
+
+    /**
+     * 응답 없이 ACK_TIMEOUT_MS 가 지난 요청 – 다시 보내거나, 횟수를 넘겼으면 거절로 둔다.
+     */
+    private void requeueUnacked(long now) {
+        Iterator<Map.Entry<KisSubscription, InFlight>> it = inFlight.entrySet().iterator();
+        while (it.hasNext()) {
+            Map.Entry<KisSubscription, InFlight> e = it.next();
+            InFlight request = e.getValue();
+            if (now - request.sentAtMillis() <= ACK_TIMEOUT_MS) continue;
+
+            KisSubscription key = e.getKey();
+            it.remove();
+            ackTimedOut++;
+            if (pending.containsKey(key)) continue;   // 뒤이은 요청이 이미 대기 중 – 그 결과를 따른다
+
+            if (request.attempt() >= ACK_RETRIES) {
+                rejected++;
+                status.put(key, Status.REJECTED);
+                log.warn("❗ {} 응답 없음 ({}회) – 포기: {}",
+                        SUBSCRIBE.equals(request.trType()) ? "subscribe" : "unsubscribe", request.attempt(), key);
+                continue;
+            }
+            log.warn("{} 응답 없음 – 다시 보냄 ({}번째): {}",
+                    SUBSCRIBE.equals(request.trType()) ? "subscribe" : "unsubscribe", request.attempt() + 1, key);
+            attempts.put(key, request.attempt() + 1);
+            pending.putFirst(key, request.trType());
+        }
+    }
+
+    /**
+     * 남은 요청은 토큰이 찰 때, 응답 대기만 남았으면 가장 오래된 요청의 응답 시한에 다시 drain 한다.
+     */
+    private void scheduleNext() {
+        if (!pending.isEmpty()) {
+            long waitMs = (long) Math.ceil((1 - tokens) / permitsPerMilli);
+            scheduleDrain(Math.max(1, waitMs));
+            return;
+        }
+        notifyIfIdle();
+
+        long oldest = inFlight.values().stream().mapToLong(InFlight::sentAtMillis).min().orElse(-1);
+        if (oldest >= 0) {
+            scheduleDrain(Math.max(1, oldest + ACK_TIMEOUT_MS + 1 - System.currentTimeMillis()));
+        }
+    }
+
+    private void refill() {
+        long now = System.nanoTime();
+        double elapsedMs = (now - lastRefillNanos) / 1_000_000.0;
+        lastRefillNanos = now;
+        tokens = Math.min(burst, tokens + elapsedMs * permitsPerMilli);
+    }
+
+    private void notifyIfIdle() {
+        if (!pending.isEmpty() || idleCallbacks.isEmpty()) return;
+
+        List<Runnable> callbacks = new ArrayList<>(idleCallbacks);
+        idleCallbacks.clear();
+        executor.execute(() -> callbacks.forEach(Runnable::run));
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 응답 처리                                                            */
+    /* ------------------------------------------------------------------ */
+
+    /**
+     * JSON 응답 한 건 반영 – 수신 스레드에서 호출
+     */
+    synchronized void onResponse(KisSubscription key, boolean ok, String msgCd, String msg) {
+        InFlight sentRequest = inFlight.remove(key);
+        if (sentRequest == null) {
+            log.debug("요청하지 않은 응답 – {} ({}) {}", key, msgCd, msg);
+            return;
+        }
+        attempts.remove(key);
+
+        boolean subscribe = SUBSCRIBE.equals(sentRequest.trType());
+        if (ok || MSG_SUBSCRIBE_OK.equals(msgCd) || MSG_UNSUBSCRIBE_OK.equals(msgCd)
+                || (subscribe && MSG_ALREADY_SUBSCRIBED.equals(msgCd))
+                || (!subscribe && MSG_NOT_SUBSCRIBED.equals(msgCd))) {
+            acked++;
+            if (subscribe) status.put(key, Status.SUBSCRIBED);
+            else status.remove(key);
+        } else {
+            rejected++;
+            status.put(key, Status.REJECTED);
+            log.warn("❗ {} 거절 – {} ({}) {}", subscribe ? "subscribe" : "unsubscribe", key, msgCd, msg);
+        }
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 조회                                                                */
+    /* ------------------------------------------------------------------ */
+
+    synchronized Map<String, Object> getStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("pending", pending.size());
+        stats.put("inFlight", inFlight.size());
+        stats.put("ackTimedOut", ackTimedOut);
+        stats.put("sent", sent);
+        stats.put("acked", acked);
+        stats.put("rejected", rejected);
+        stats.put("coalesced", coalesced);
+        stats.put("cancelled", cancelled);
+        return stats;
+    }
+
+    /**
+     * 등록 단위별 현재 상태 (tr_id:종목 → 상태)
+     */
+    synchronized Map<String, String> getStatuses() {
+        Map<String, String> result = new LinkedHashMap<>();
+        status.forEach((key, s) -> result.put(key.toString(), s.name()));
+        pending.forEach((key, trType) -> result.putIfAbsent(key.toString(), "QUEUED"));
+        return result;
+    }
+}
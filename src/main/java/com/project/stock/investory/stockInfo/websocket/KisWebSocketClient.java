@@ -1,32 +1,44 @@
 package com.project.stock.investory.stockInfo.websocket;
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.project.stock.investory.stockInfo.dto.RealTimeTradeDTO;
+import com.project.stock.investory.stockInfo.capture.KisFrameCapture;
+import com.project.stock.investory.stockInfo.service.StockSymbolTable;
+import com.project.stock.investory.stockInfo.util.SymbolIndexedArray;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
-import jakarta.websocket.*;
+import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.ObjectProvider;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Component;
 
-import java.net.URI;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
-import java.util.concurrent.*;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.locks.ReentrantLock;
-import java.util.function.Consumer;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.CopyOnWriteArrayList;
 
 /**
- * KIS 실시간(웹소켓) 커넥터 – subscribe once & fan-out
+ * KIS 실시간(웹소켓) 공유 게이트웨이 – subscribe once & fan-out
  * <p>
- * 한국투자증권(KIS)의 WebSocket에 연결하고, 특정 종목의 실시간 체결 데이터를 받아오는 클라이언트
+ * 체결(H0NXCNT0/H0STCNT0 → SSE 시세 스트림)과 호가(H0STASP0 → 주가 알람) consumer 가 모두 여기에 붙고,
+ * 게이트웨이는 (tr_id, 종목코드) 단위로 참조 횟수를 세어 서버에는 등록/해제 패킷을 한 번씩만 보낸다.
+ * <p>
+ * KIS 는 세션(approval key)마다 등록 수를 제한하므로, 설정된 approval key 마다 업스트림 세션({@link KisSession})을
+ * 하나씩 열어 풀로 쓴다. 등록 단위는 consistent hashing 링으로 세션에 배정하고(세션당 상한 초과 시 링의 다음 세션),
+ * 세션이 끊기면 그 구독을 살아 있는 세션으로 옮겼다가 복구되면 원래 자리로 되돌린다.
+ * consumer 쪽에서는 세션 수와 상관없이 하나의 논리 스트림으로 보인다.
+ * <p>
+ * 세션이 끊겨 있던 구간은 재등록이 끝난 뒤 {@link KisFeedGapEvent} 로 알린다.
  */
-@ClientEndpoint
 @Component
 @Slf4j
+@RequiredArgsConstructor
 public class KisWebSocketClient {
 
     /* ------------------------------------------------------------------ */
@@ -35,31 +47,72 @@ public class KisWebSocketClient {
     @Value("${kis.ws.url:ws://ops.koreainvestment.com:21000/WebSocket}")
     private String wsUrl;
 
-    @Value("${sse.approval_key}")
-    private String approvalKey;
+    /**
+     * 세션마다 하나씩 – 없으면 기존 단일 키(sse.approval_key)로 세션 하나
+     */
+    @Value("${kis.ws.approval-keys:${sse.approval_key}}")
+    private List<String> approvalKeys;
+
+    @Value("${kis.ws.max-subscriptions-per-session:41}")
+    private int maxPerSession;
+
+    @Value("${kis.ws.reconnect.base-ms:500}")
+    private long reconnectBaseMs;
+
+    @Value("${kis.ws.reconnect.max-ms:30000}")
+    private long reconnectMaxMs;
+
+    @Value("${kis.ws.send.rate-per-sec:5}")
+    private double sendRatePerSec;
 
-    private static final int MAX_RECONNECT = 5;
-    private static final long RECONNECT_BACKOFF_MS = 2_000L;
+    @Value("${kis.ws.send.burst:10}")
+    private int sendBurst;
+
+    public static final String TR_TRADE = "H0NXCNT0";      // nxt 체결
+    public static final String TR_TRADE_KRX = "H0STCNT0";  // krx 체결
+    public static final String TR_QUOTE = "H0STASP0";      // krx 호가
+
+    private static final int VIRTUAL_NODES = 64;   // 세션당 링 위의 가상 노드 수
 
     /* ------------------------------------------------------------------ */
     /* 상태                                                               */
     /* ------------------------------------------------------------------ */
-    private final ObjectMapper om = new ObjectMapper();
-    private final ReentrantLock connectionLock = new ReentrantLock();   // connect/close
-    private final ReentrantLock sendLock = new ReentrantLock();   // sendText
+    private final StockSymbolTable symbols;
+    private final ApplicationEventPublisher eventPublisher;
+    private final ObjectProvider<KisFrameCapture> captureProvider;   // kis.capture.enabled=true 일 때만 존재
+    private final MeterRegistry meterRegistry;
+
+    private List<KisSession> sessions;
+    private final TreeMap<Integer, KisSession> ring = new TreeMap<>();
+    private KisFrameCapture capture;
+    private final Map<String, Timer> parseTimers = new ConcurrentHashMap<>();   // tr_id → 프레임 해석 시간
 
     /**
-     * 서버에 실제 subscribe 되어 있는 종목
+     * 배정 변경(구독 추가/해제, 세션 장애/복구에 따른 이동)은 이 락 하나로 직렬화한다. (cold path)
      */
-    private final Set<String> subscribed = ConcurrentHashMap.newKeySet();
+    private final Object assignLock = new Object();
+    private final Map<KisSubscription, KisSession> assignment = new ConcurrentHashMap<>();
+
     /**
-     * 종목별 → Listener 목록
+     * 수신이 끊긴 등록 단위 → 끊긴 시각. 맡은 세션의 재등록이 끝나면 비우고 {@link KisFeedGapEvent} 로 발행
      */
-    private final Map<String, CopyOnWriteArrayList<Consumer<RealTimeTradeDTO>>> listeners =
-            new ConcurrentHashMap<>();
+    private final Map<KisSubscription, Long> gapSince = new ConcurrentHashMap<>();
 
-    private Session session;
-    private final AtomicBoolean reconnecting = new AtomicBoolean(false);
+    /**
+     * (tr_id, 종목) → 참조 횟수. 여기 있는 키가 곧 서버에 subscribe 되어 있어야 하는 목록
+     * 횟수 변경과 그에 따른 subscribe/unsubscribe 결정이 엇갈리지 않도록 assignLock 안에서만 바꾼다.
+     */
+    private final Map<KisSubscription, Integer> refCounts = new ConcurrentHashMap<>();
+    /**
+     * 체결 tr_id → 심볼 ID → Listener 목록
+     */
+    private final Map<String, SymbolIndexedArray<CopyOnWriteArrayList<RealTimeTickListener>>> tradeListeners =
+            new ConcurrentHashMap<>();
+    /**
+     * 호가 심볼 ID → Listener 목록
+     */
+    private final SymbolIndexedArray<CopyOnWriteArrayList<RealTimeQuoteListener>> quoteListeners =
+            new SymbolIndexedArray<>();
 
     /* ------------------------------------------------------------------ */
     /* Life-cycle                                                         */
@@ -67,21 +120,47 @@ public class KisWebSocketClient {
 
     @PostConstruct
     public void init() {
-        asyncConnect();
+        capture = captureProvider.getIfAvailable();
+        for (String trId : List.of(TR_TRADE, TR_TRADE_KRX, TR_QUOTE)) {
+            parseTimers.put(trId, Timer.builder("kis.ws.parse")
+                    .description("KIS 실시간 프레임 해석")
+                    .tag("tr", trId)
+                    .publishPercentiles(0.5, 0.99)
+                    .publishPercentileHistogram()
+                    .register(meterRegistry));
+        }
+
+        List<KisSession> created = new ArrayList<>();
+        for (String key : approvalKeys) {
+            if (key == null || key.isBlank()) continue;
+            KisSession session = new KisSession(created.size(), wsUrl, key.trim(), reconnectBaseMs, reconnectMaxMs,
+                    sendRatePerSec, sendBurst, this);
+            created.add(session);
+            for (int v = 0; v < VIRTUAL_NODES; v++) {
+                ring.put(mix(("kis-session-" + session.index() + "#" + v).hashCode()), session);
+            }
+        }
+        if (created.isEmpty()) throw new IllegalStateException("KIS approval key 가 설정되지 않았습니다.");
+        sessions = List.copyOf(created);
+
+        log.info("KIS 세션 풀 시작: {}개 세션, 세션당 최대 {}건", sessions.size(), maxPerSession);
+        sessions.forEach(KisSession::start);
     }
 
     @PreDestroy
     public void destroy() {
-        connectionLock.lock();
-        try {
-            if (session != null && session.isOpen()) {
-                session.close(new CloseReason(
-                        CloseReason.CloseCodes.NORMAL_CLOSURE, "shutdown"));
-            }
-        } catch (Exception ignored) {
-        } finally {
-            connectionLock.unlock();
-        }
+        sessions.forEach(KisSession::shutdown);
+    }
+
+    /**
+     * 관리자용 – 세션별 연결 상태, 송신 큐 메트릭, 등록 단위별 응답 상태
+     */
+    public Map<String, Object> getSubscriptionStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("subscriptions", refCounts.size());
+        stats.put("maxPerSession", maxPerSession);
+        stats.put("sessions", sessions.stream().map(KisSession::getStats).toList());
+        return stats;
     }
 
     /* ------------------------------------------------------------------ */
@@ -89,230 +168,313 @@ public class KisWebSocketClient {
     /* ------------------------------------------------------------------ */
 
     /**
-     * “한 번만” subscribe – 같은 종목이 여러 번 들어와도 서버엔 1패킷만 전송
+     * 체결 구독 – 같은 (tr_id, 종목)이 여러 번 들어와도 서버엔 1패킷만 전송
      */
-    public void queueSubscribe(String stockId, Consumer<RealTimeTradeDTO> handler) {
-        listeners.computeIfAbsent(stockId, k -> new CopyOnWriteArrayList<>()).add(handler);
+    public void queueSubscribe(String trId, String stockId, RealTimeTickListener handler) {
+        tradeListeners.computeIfAbsent(trId, k -> new SymbolIndexedArray<>())
+                .computeIfAbsent(symbols.register(stockId), id -> new CopyOnWriteArrayList<>())
+                .add(handler);
+        retain(new KisSubscription(trId, stockId));
+    }
 
-        if (subscribed.add(stockId)) {
-            // 최초 subscribe 패킷
-            sendLater(() -> sendSubscribe(stockId));
-        } else {
-            log.debug("[{}] 이미 서버에 subscribe 완료 – listener 추가만", stockId);
-        }
+    /**
+     * 호가 구독 – 참조 횟수 규칙은 체결과 같다.
+     */
+    public void queueSubscribe(String stockId, RealTimeQuoteListener handler) {
+        quoteListeners.computeIfAbsent(symbols.register(stockId), id -> new CopyOnWriteArrayList<>()).add(handler);
+        retain(new KisSubscription(TR_QUOTE, stockId));
     }
 
     /**
-     * 모든 listener 가 빠지면 unsubscribe
+     * 체결 listener 해제 – 해당 (tr_id, 종목)의 마지막 참조가 빠지면 unsubscribe
      */
-    public void queueUnsubscribe(String stockId) {
-        listeners.remove(stockId);
+    public void queueUnsubscribe(String trId, String stockId, RealTimeTickListener handler) {
+        SymbolIndexedArray<CopyOnWriteArrayList<RealTimeTickListener>> bySymbol = tradeListeners.get(trId);
+        if (bySymbol == null) return;
+        if (removeListener(bySymbol, stockId, handler)) {
+            release(new KisSubscription(trId, stockId));
+        }
+    }
 
-        if (subscribed.remove(stockId)) {
-            sendLater(() -> sendUnsubscribe(stockId));
+    /**
+     * 호가 listener 해제
+     */
+    public void queueUnsubscribe(String stockId, RealTimeQuoteListener handler) {
+        if (removeListener(quoteListeners, stockId, handler)) {
+            release(new KisSubscription(TR_QUOTE, stockId));
         }
     }
 
-    /* ------------------------------------------------------------------ */
-    /* WebSocket 연결 helpers                                              */
-    /* ------------------------------------------------------------------ */
+    private <L> boolean removeListener(SymbolIndexedArray<CopyOnWriteArrayList<L>> bySymbol, String stockId, L handler) {
+        int id = symbols.idOf(stockId);
+        if (id == StockSymbolTable.UNKNOWN) return false;
 
-    private void asyncConnect() {
-        CompletableFuture.runAsync(() -> {
-            connectionLock.lock();
-            try {
-                WebSocketContainer container = ContainerProvider.getWebSocketContainer();
-                container.setDefaultMaxSessionIdleTimeout(60_000);
-                this.session = container.connectToServer(this, URI.create(wsUrl));
-                log.info("📡 KIS WebSocket 연결 수립 {}", wsUrl);
-            } catch (Exception e) {
-                log.error("초기 WebSocket 연결 실패", e);
-                triggerReconnect();
-            } finally {
-                connectionLock.unlock();
-            }
+        boolean[] removed = {false};
+        bySymbol.compute(id, list -> {
+            if (list == null) return null;
+            removed[0] = list.remove(handler);
+            return list.isEmpty() ? null : list;
         });
+        return removed[0];
     }
 
-    private void triggerReconnect() {
-        if (!reconnecting.compareAndSet(false, true)) return;
-
-        CompletableFuture.runAsync(() -> {
-            for (int i = 1; i <= MAX_RECONNECT; i++) {
-                try {
-                    Thread.sleep(RECONNECT_BACKOFF_MS * i);
-                    log.info("🔄 재연결 시도 {}/{}", i, MAX_RECONNECT);
-                    asyncConnect();
-                    return;      // 성공하면 루프 종료
-                } catch (InterruptedException ignored) {
-                }
+    private void retain(KisSubscription key) {
+        synchronized (assignLock) {
+            if (refCounts.merge(key, 1, Integer::sum) != 1) {
+                log.debug("[{}] 이미 서버에 subscribe 완료 – listener 추가만", key);
+                return;
+            }
+
+            KisSession target = choose(key);
+            assignment.put(key, target);
+            // 끊겨 있는 세션에 배정되면 복구 시점까지는 공백이다
+            if (!target.isOpen()) gapSince.putIfAbsent(key, System.currentTimeMillis());
+            // 최초 subscribe 패킷 (끊겨 있으면 재연결 때 다시 들어간다)
+            target.subscribe(key);
+        }
+    }
+
+    private void release(KisSubscription key) {
+        synchronized (assignLock) {
+            Integer n = refCounts.get(key);
+            if (n == null) return;
+            if (n > 1) {
+                refCounts.put(key, n - 1);
+                return;
             }
-            log.error("❌ WebSocket 재연결 실패 – 더 이상 시도하지 않음");
-        }).whenComplete((v, t) -> reconnecting.set(false));
+
+            refCounts.remove(key);
+            gapSince.remove(key);
+            KisSession owner = assignment.remove(key);
+            if (owner != null) owner.unsubscribe(key);
+        }
     }
 
     /* ------------------------------------------------------------------ */
-    /* 실제 subscribe / unsubscribe 패킷 전송                              */
+    /* 세션 배정 (consistent hashing)                                      */
     /* ------------------------------------------------------------------ */
 
-    private void sendSubscribe(String stockId) {
-        sendLock.lock();
-        try {
-            if (!isSessionOpen()) return;
-            session.getBasicRemote().sendText(buildPayload("1", stockId));
-            log.info("▶️ subscribe : {}", stockId);
-        } catch (Exception e) {
-            log.error("subscribe 전송 오류 – {}", stockId, e);
-            subscribed.remove(stockId);
-        } finally {
-            sendLock.unlock();
+    /**
+     * 링에서 키 위치부터 시계 방향으로: 열린 세션 중 여유 있는 첫 세션 → 열린 첫 세션 → (모두 끊김) 첫 세션
+     */
+    private KisSession choose(KisSubscription key) {
+        KisSession firstOpen = null;
+        KisSession first = null;
+        for (KisSession s : walk(key)) {
+            if (first == null) first = s;
+            if (!s.isOpen()) continue;
+            if (s.assignedCount() < maxPerSession) return s;
+            if (firstOpen == null) firstOpen = s;
+        }
+        if (firstOpen != null) {
+            log.warn("모든 세션이 등록 상한({})에 도달 – {} 를 세션 {} 에 초과 배정", maxPerSession, key, firstOpen.index());
+            return firstOpen;
         }
+        return first;
     }
 
-    private void sendUnsubscribe(String stockId) {
-        sendLock.lock();
-        try {
-            if (!isSessionOpen()) return;
-            session.getBasicRemote().sendText(buildPayload("2", stockId));
-            log.info("⏹️ unsubscribe : {}", stockId);
-        } catch (Exception e) {
-            log.error("unsubscribe 전송 오류 – {}", stockId, e);
-        } finally {
-            sendLock.unlock();
+    /**
+     * 키 위치에서 시작해 링을 한 바퀴 돌며 만나는 세션 (중복 제거, 링 순서)
+     */
+    private List<KisSession> walk(KisSubscription key) {
+        List<KisSession> order = new ArrayList<>(sessions.size());
+        int h = mix(key.hashCode());
+        for (KisSession s : ring.tailMap(h, true).values()) {
+            if (!order.contains(s)) order.add(s);
+            if (order.size() == sessions.size()) return order;
         }
+        for (KisSession s : ring.headMap(h, false).values()) {
+            if (!order.contains(s)) order.add(s);
+            if (order.size() == sessions.size()) return order;
+        }
+        return order;
     }
 
-    private boolean isSessionOpen() {
-        return session != null && session.isOpen();
+    /**
+     * 세션 장애 – 맡고 있던 구독을 공백으로 기록하고, 열린 세션이 있으면 그쪽으로 옮긴다. (그 세션 supervisor 스레드)
+     */
+    void onSessionDown(KisSession down) {
+        long now = System.currentTimeMillis();
+        synchronized (assignLock) {
+            for (KisSubscription key : new ArrayList<>(down.assigned())) {
+                gapSince.putIfAbsent(key, now);
+            }
+            int moved = rebalance();
+            log.warn("세션 {} 끊김 – 구독 {}건 다른 세션으로 이동", down.index(), moved);
+        }
+        sessions.stream().filter(KisSession::isOpen).forEach(KisSession::publishGapsWhenIdle);
     }
 
-    private void sendLater(Runnable task) {
-        CompletableFuture.runAsync(() -> {
-            if (!isSessionOpen()) {
-                asyncConnect();
-                try {
-                    Thread.sleep(300);
-                } catch (InterruptedException ignored) {
-                }
-            }
-            task.run();
-        });
+    /**
+     * 세션 복구 – 원래 이 세션 몫인 구독과, 끊긴 세션에 남아 있던 구독을 가져온다.
+     */
+    void onSessionUp(KisSession up) {
+        synchronized (assignLock) {
+            int moved = rebalance();
+            if (moved > 0) log.info("세션 {} 복구 – 구독 {}건 재배정", up.index(), moved);
+        }
+        sessions.stream().filter(KisSession::isOpen).forEach(KisSession::publishGapsWhenIdle);
     }
 
-    //krx
-//    private String buildPayload(String trType, String stockId) {
-//        return """
-//               {"header":{"approval_key":"%s","custtype":"P","tr_type":"%s",
-//               "content-type":"utf-8","tr_id":"H0STCNT0","tr_key":"%s"},
-//               "body":{"input":{"tr_id":"H0STCNT0","tr_key":"%s"}}}
-//               """.replace("\n", "")
-//                .formatted(approvalKey, trType, stockId, stockId);
-//    }
-
-    private String buildPayload(String trType, String stockId) {
-        return """
-                {
-                  "header": {
-                    "approval_key": "%s",
-                    "custtype":    "P",
-                    "tr_type":     "%s",
-                    "content-type":"utf-8",
-                    "tr_id":       "H0NXCNT0",
-                    "tr_key":      "%s"
-                  },
-                  "body": {
-                    "input": {
-                      "tr_id":  "H0NXCNT0",
-                      "tr_key": "%s"
-                    }
-                  }
+    /**
+     * assignLock 안에서만 – 끊긴 세션에 있는 키는 열린 세션으로, 열린 세션에 있더라도 링 위 첫 열린 세션(제자리)에
+     * 여유가 있으면 제자리로 옮긴다. 그 외에는 움직이지 않아 불필요한 재등록을 줄인다.
+     */
+    private int rebalance() {
+        int moved = 0;
+        for (Map.Entry<KisSubscription, KisSession> e : new ArrayList<>(assignment.entrySet())) {
+            KisSubscription key = e.getKey();
+            KisSession current = e.getValue();
+
+            KisSession home = null;
+            for (KisSession s : walk(key)) {
+                if (s.isOpen()) {
+                    home = s;
+                    break;
                 }
-                """.replace("\n", "")      // 필요하면 개행 제거
-                .formatted(approvalKey, trType, stockId, stockId);
-    }
+            }
+            if (home == null || home == current) continue;
 
-    //nxt
+            boolean currentDown = !current.isOpen();
+            boolean homeHasRoom = home.assignedCount() < maxPerSession;
+            if (!currentDown && !homeHasRoom) continue;
 
-    /* ------------------------------------------------------------------ */
-    /* WebSocket 콜백                                                      */
-    /* ------------------------------------------------------------------ */
+            KisSession target = homeHasRoom ? home : choose(key);
+            if (target == current) continue;
 
-    @OnOpen
-    public void onOpen(Session s) {
-        log.info("✅  WebSocket OPEN");
-        this.session = s;
-        // 끊겼다가 복구됐을 때 기존 구독 복원
-        subscribed.forEach(this::sendSubscribe);
+            if (currentDown) {
+                current.drop(key);
+            } else {
+                current.unsubscribe(key);
+                gapSince.putIfAbsent(key, System.currentTimeMillis());   // 옮기는 동안 잠깐 비는 구간
+            }
+            assignment.put(key, target);
+            target.subscribe(key);
+            moved++;
+        }
+        return moved;
     }
 
-    @OnMessage
-    public void onMessage(String msg) {
-        if (msg.contains("\"tr_id\":\"PINGPONG\"")) return; // 하트비트
-
-        if (msg.startsWith("0|H0NXCNT0|")) { // nxt
-//        if (msg.startsWith("0|H0STCNT0|")) { //krx
-            handleRealtime(msg);
-        } else if (msg.startsWith("{")) {
-            handleJson(msg);
-        } else {
-            log.debug("알 수 없는 메시지: {}", msg);
+    /**
+     * 세션의 등록 패킷이 모두 나간 뒤 – 그 세션이 맡은 키 중 공백이 있던 것만 모아 발행
+     */
+    void publishGaps(KisSession owner) {
+        if (gapSince.isEmpty()) return;
+
+        long now = System.currentTimeMillis();
+        List<KisFeedGapEvent.Gap> gaps = new ArrayList<>();
+        for (KisSubscription key : new ArrayList<>(gapSince.keySet())) {
+            if (assignment.get(key) != owner) continue;
+            Long since = gapSince.remove(key);
+            if (since != null && refCounts.containsKey(key)) {
+                gaps.add(new KisFeedGapEvent.Gap(key, since, now));
+            }
         }
-    }
+        if (gaps.isEmpty()) return;
 
-    @OnClose
-    public void onClose(Session s, CloseReason reason) {
-        log.warn("⚠️  WebSocket CLOSED : {} ({})",
-                reason.getReasonPhrase(), reason.getCloseCode());
-        triggerReconnect();
+        log.info("📉 [세션 {}] 수신 공백 {}건 복구 – 스냅샷 보정 요청", owner.index(), gaps.size());
+        try {
+            eventPublisher.publishEvent(new KisFeedGapEvent(List.copyOf(gaps)));
+        } catch (Exception e) {
+            log.warn("공백 이벤트 처리 중 오류", e);
+        }
     }
 
-    @OnError
-    public void onError(Session s, Throwable t) {
-        log.error("WebSocket ERROR", t);
+    private static int mix(int h) {
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        return h ^ (h >>> 16);
     }
 
     /* ------------------------------------------------------------------ */
-    /* 메시지 파서                                                         */
+    /* 메시지 파서 – 각 세션 수신 스레드에서 세션 전용 버퍼로 호출                    */
     /* ------------------------------------------------------------------ */
 
-    private void handleRealtime(String raw) {
-        try {
-            String[] parts = raw.split("\\|", 4);
-            if (parts.length < 4) return;
+    void capture(String msg) {
+        if (capture != null) capture.append(msg);
+    }
 
-            String[] f = parts[3].split("\\^");
-            String code = f[0];
+    void onFrame(KisSession from, String msg) {
+        if (msg.startsWith("0|H0NXCNT0|")) {         // nxt 체결
+            handleRealtime(TR_TRADE, msg, from.batch);
+        } else if (msg.startsWith("0|H0STCNT0|")) {  // krx 체결
+            handleRealtime(TR_TRADE_KRX, msg, from.batch);
+        } else if (msg.startsWith("0|H0STASP0|")) {  // krx 호가
+            handleQuote(msg, from);
+        } else {
+            log.debug("알 수 없는 메시지: {}", msg);
+        }
+    }
 
-            List<Consumer<RealTimeTradeDTO>> list = listeners.get(code);
-            if (list == null || list.isEmpty()) return;
+    private void handleRealtime(String trId, String raw, RealTimeTickBatch batch) {
+        try {
+            SymbolIndexedArray<CopyOnWriteArrayList<RealTimeTickListener>> bySymbol = tradeListeners.get(trId);
+            if (bySymbol == null) return;
+
+            long decodeStart = System.nanoTime();
+            boolean decoded = KisFrameDecoder.decodeTrades(raw, symbols, batch);
+            parseTimers.get(trId).record(System.nanoTime() - decodeStart, TimeUnit.NANOSECONDS);
+            if (!decoded) return;
+            if (batch.skippedCount() > 0) {
+                log.warn("realtime 레코드 {}건 숫자 형식 오류로 건너뜀: {}", batch.skippedCount(), raw);
+            }
 
-            RealTimeTradeDTO dto = RealTimeTradeDTO.from(f);
-            list.forEach(cb -> {
-                try {
-                    cb.accept(dto);
-                } catch (Exception e) {
-                    log.warn("listener 예외", e);
+            // 같은 종목이 연속된 구간마다 listener 를 한 번씩 호출 (보통 프레임 전체가 한 종목)
+            int n = batch.decodedCount();
+            int start = 0;
+            while (start < n) {
+                int id = batch.decoded(start).getSymbolId();
+                int end = start + 1;
+                while (end < n && batch.decoded(end).getSymbolId() == id) end++;
+
+                // 구독 시 등록되므로 미등록(UNKNOWN) 종목은 받을 listener 가 없다
+                if (id != StockSymbolTable.UNKNOWN) {
+                    batch.window(start, end);
+                    dispatch(bySymbol.get(id), batch);
                 }
-            });
+                start = end;
+            }
 
         } catch (Exception e) {
             log.warn("realtime 패킷 파싱 실패: {}", raw, e);
         }
     }
 
-    private void handleJson(String json) {
-        try {
-            JsonNode body = om.readTree(json).path("body");
-            String rt = body.path("rt_cd").asText();
-            if ("0".equals(rt)) {
-                log.info("구독 성공 – {}", body.path("tr_key").asText(""));
-            } else {
-                String code = body.path("msg_cd").asText();
-                String msg = body.path("msg1").asText();
-                log.warn("❗ KIS 오류 ({}) {}", code, msg);
+    private void dispatch(List<RealTimeTickListener> list, RealTimeTickBatch ticks) {
+        if (list == null || list.isEmpty()) return;
+
+        for (RealTimeTickListener cb : list) {
+            try {
+                cb.onTicks(ticks);
+            } catch (Exception e) {
+                log.warn("listener 예외", e);
             }
+        }
+    }
+
+    private void handleQuote(String raw, KisSession from) {
+        try {
+            // 호가는 해석하면서 바로 넘기므로 링 버퍼 적재까지 포함된 시간
+            long start = System.nanoTime();
+            KisFrameDecoder.decodeQuotes(raw, symbols, from.quote, from.quoteDispatcher);
+            parseTimers.get(TR_QUOTE).record(System.nanoTime() - start, TimeUnit.NANOSECONDS);
         } catch (Exception e) {
-            log.warn("JSON 메시지 파싱 실패: {}", json, e);
+            log.warn("호가 패킷 파싱 실패: {}", raw, e);
+        }
+    }
+
+    void dispatchQuote(RealTimeQuote q) {
+        List<RealTimeQuoteListener> list = quoteListeners.get(q.getSymbolId());
+        if (list == null || list.isEmpty()) return;
+
+        for (RealTimeQuoteListener cb : list) {
+            try {
+                cb.onQuote(q);
+            } catch (Exception e) {
+                log.warn("listener 예외", e);
+            }
         }
     }
 }
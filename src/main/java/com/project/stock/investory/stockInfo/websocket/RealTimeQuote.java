@@ -0,0 +1,20 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 실시간 호가 1건 (primitive 레코드)
+ * <p>
+ * {@link KisFrameDecoder#decodeQuotes} 가 같은 인스턴스를 덮어쓰며 재사용하므로 콜백 밖으로 보관하면 안 된다.
+ */
+@Getter
+@ToString
+public final class RealTimeQuote {
+
+    String stockCode;   // 종목코드
+    int symbolId;       // 심볼 ID (StockSymbolTable), 미등록 코드면 -1
+    int quoteTime;      // 영업시간 HHmmss
+    int askPrice1;      // 매도1호가
+    int bidPrice1;      // 매수1호가
+}
@@ -0,0 +1,12 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+/**
+ * 종목별 호가 listener – 호가 레코드 하나마다 호출된다.
+ * <p>
+ * quote 는 콜백이 끝나면 재사용되므로 필요한 값만 꺼내 쓸 것.
+ */
+@FunctionalInterface
+public interface RealTimeQuoteListener {
+
+    void onQuote(RealTimeQuote quote);
+}
@@ -0,0 +1,40 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+import lombok.AccessLevel;
+import lombok.Getter;
+import lombok.ToString;
+
+/**
+ * 실시간 체결 1건 (primitive 레코드)
+ * <p>
+ * {@link KisFrameDecoder} 가 매 프레임마다 같은 인스턴스를 덮어쓰며 재사용한다.
+ * 콜백 밖으로 참조를 넘기거나 보관하면 안 되고, 필요하면 {@code RealTimeTradeDTO.from(tick)} 으로 복사해서 쓴다.
+ */
+@Getter
+@ToString
+public final class RealTimeTick {
+
+    String stockCode;       // 종목코드 (005930 등, 심볼 테이블의 공유 String)
+    int symbolId;           // 심볼 ID (StockSymbolTable), 미등록 코드면 -1
+    int tradeTime;          // 체결시간 HHmmss (093015 → 93015)
+    int price;              // 체결가
+    int changeRate;         // 등락률 × 100 (-0.70% → -70)
+    long volume;            // 체결량
+    long accumulateVolume;  // 누적거래량
+
+    /* 등락률 원문 – 프레임 안의 범위만 기록하고 필요할 때만 잘라 쓴다 */
+    @Getter(AccessLevel.NONE)
+    @ToString.Exclude
+    String frame;
+    @Getter(AccessLevel.NONE)
+    int changeRateFrom;
+    @Getter(AccessLevel.NONE)
+    int changeRateTo;
+
+    /**
+     * KIS 가 보낸 등락률 문자열 그대로 ("-0.70", "0.7" 등) – 전송 형식을 원문과 같게 유지할 때
+     */
+    public String getChangeRateText() {
+        return frame.substring(changeRateFrom, changeRateTo);
+    }
+}
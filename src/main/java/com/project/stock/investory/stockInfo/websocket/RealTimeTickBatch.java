@@ -0,0 +1,90 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+import com.project.stock.investory.stockInfo.service.StockSymbolTable;
+
+/**
+ * 한 프레임에 담긴 체결 N건 (재사용 버퍼)
+ * <p>
+ * {@link KisFrameDecoder#decodeTrades} 가 채우고, 게이트웨이가 같은 종목 구간만 보이도록
+ * 창(window)을 좁혀 listener 에게 넘긴다. 콜백이 끝나면 내용이 덮어써지므로 보관하면 안 된다.
+ */
+public final class RealTimeTickBatch {
+
+    private RealTimeTick[] ticks = new RealTimeTick[4];
+    private int count;     // 디코딩된 레코드 수
+    private int skipped;   // 숫자 필드가 깨져 건너뛴 레코드 수
+    private int from;      // listener 에게 보이는 구간 [from, to)
+    private int to;
+
+    public RealTimeTickBatch() {
+        for (int i = 0; i < ticks.length; i++) ticks[i] = new RealTimeTick();
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* listener 용 (현재 창 기준)                                           */
+    /* ------------------------------------------------------------------ */
+
+    public int size() {
+        return to - from;
+    }
+
+    public RealTimeTick get(int i) {
+        if (i < 0 || i >= size()) throw new IndexOutOfBoundsException(i);
+        return ticks[from + i];
+    }
+
+    public String getStockCode() {
+        return size() == 0 ? null : ticks[from].stockCode;
+    }
+
+    public int getSymbolId() {
+        return size() == 0 ? StockSymbolTable.UNKNOWN : ticks[from].symbolId;
+    }
+
+    /* ------------------------------------------------------------------ */
+    /* 디코더 / 게이트웨이 용                                               */
+    /* ------------------------------------------------------------------ */
+
+    void clear() {
+        count = from = to = skipped = 0;
+    }
+
+    /**
+     * 다음 레코드 슬롯. 모자라면 두 배로 늘린다. (늘어난 뒤에는 다시 할당하지 않음)
+     */
+    RealTimeTick next() {
+        if (count == ticks.length) {
+            RealTimeTick[] grown = new RealTimeTick[ticks.length * 2];
+            System.arraycopy(ticks, 0, grown, 0, ticks.length);
+            for (int i = ticks.length; i < grown.length; i++) grown[i] = new RealTimeTick();
+            ticks = grown;
+        }
+        to = count + 1;
+        return ticks[count++];
+    }
+
+    /**
+     * 마지막으로 받은 슬롯을 되돌린다. (디코딩 실패한 레코드)
+     */
+    void dropLast() {
+        to = --count;
+        skipped++;
+    }
+
+    int skippedCount() {
+        return skipped;
+    }
+
+    int decodedCount() {
+        return count;
+    }
+
+    RealTimeTick decoded(int i) {
+        return ticks[i];
+    }
+
+    void window(int from, int to) {
+        this.from = from;
+        this.to = to;
+    }
+}
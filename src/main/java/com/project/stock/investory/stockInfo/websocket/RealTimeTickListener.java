@@ -0,0 +1,27 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+import com.project.stock.investory.stockInfo.dto.RealTimeTradeDTO;
+
+import java.util.function.Consumer;
+
+/**
+ * 종목별 체결 listener – 프레임 하나당 한 번, 같은 종목의 체결 묶음으로 호출된다.
+ * <p>
+ * batch 와 그 안의 틱은 콜백이 끝나면 재사용되므로 보관하지 말 것.
+ */
+@FunctionalInterface
+public interface RealTimeTickListener {
+
+    void onTicks(RealTimeTickBatch batch);
+
+    /**
+     * 기존 {@code Consumer<RealTimeTradeDTO>} 콜백을 batch listener 로 감싸는 어댑터 (틱마다 DTO 로 복사해서 전달)
+     */
+    static RealTimeTickListener perTrade(Consumer<RealTimeTradeDTO> handler) {
+        return batch -> {
+            for (int i = 0; i < batch.size(); i++) {
+                handler.accept(RealTimeTradeDTO.from(batch.get(i)));
+            }
+        };
+    }
+}
@@ -1,8 +1,12 @@
 package com.project.stock.investory.user.repository;
 
 import org.springframework.data.jpa.repository.JpaRepository;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.query.Param;
 import com.project.stock.investory.user.entity.User;
 
+import java.util.Collection;
+import java.util.List;
 import java.util.Optional;
 
 public interface UserRepository extends JpaRepository<User, Long> {
@@ -10,4 +14,8 @@ public interface UserRepository extends JpaRepository<User, Long> {
     // 이메일로 회원 조회
     Optional<User> findByEmail(String email);
 
+    // 회원번호 → 이름만 조회 (엔티티를 올리지 않는 알람용 조회)
+    @Query("SELECT u.userId, u.name FROM User u WHERE u.userId IN :userIds")
+    List<Object[]> findNamesByUserIdIn(@Param("userIds") Collection<Long> userIds);
+
 }
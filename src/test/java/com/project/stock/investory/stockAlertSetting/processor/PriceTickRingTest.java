@@ -0,0 +1,136 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.assertj.core.api.Assertions.assertThatThrownBy;
+
+class PriceTickRingTest {
+
+    @Test
+    void 가득_차면_거절하고_비운_만큼_다시_받는다() {
+        PriceTickRing ring = new PriceTickRing(4);
+        for (int i = 0; i < 4; i++) {
+            assertThat(ring.offer(i, PriceTickRing.QUOTE, 100 + i, 0, 0L, i)).isTrue();
+        }
+        assertThat(ring.offer(9, PriceTickRing.QUOTE, 999, 0, 0L, 9)).isFalse();
+
+        List<Integer> prices = new ArrayList<>();
+        assertThat(ring.drain((symbolId, kind, price, aux, volume, nanos) -> prices.add(price), 3)).isEqualTo(3);
+
+        // 슬롯을 한 바퀴 넘겨 쓴다
+        for (int i = 4; i < 7; i++) {
+            assertThat(ring.offer(i, PriceTickRing.TRADE, 100 + i, -70, 10L, i)).isTrue();
+        }
+        ring.drain((symbolId, kind, price, aux, volume, nanos) -> prices.add(price), 100);
+
+        assertThat(prices).containsExactly(100, 101, 102, 103, 104, 105, 106);
+        assertThat(ring.depth()).isZero();
+    }
+
+    @Test
+    void 슬롯_값을_그대로_돌려준다() {
+        PriceTickRing ring = new PriceTickRing(2);
+        ring.offer(7, PriceTickRing.TRADE, 71000, -70, 500L, 123L);
+
+        ring.drain((symbolId, kind, price, aux, volume, nanos) -> {
+            assertThat(symbolId).isEqualTo(7);
+            assertThat(kind).isEqualTo(PriceTickRing.TRADE);
+            assertThat(price).isEqualTo(71000);
+            assertThat(aux).isEqualTo(-70);
+            assertThat(volume).isEqualTo(500L);
+            assertThat(nanos).isEqualTo(123L);
+        }, 1);
+    }
+
+    @Test
+    void 크기는_2의_거듭제곱이어야_한다() {
+        assertThatThrownBy(() -> new PriceTickRing(6)).isInstanceOf(IllegalArgumentException.class);
+    }
+
+    @Test
+    void 여러_생산자가_링을_여러_바퀴_돌아도_생산자별_순서와_건수가_유지된다() throws Exception {
+        int producers = 4;
+        int perProducer = 50_000;
+        PriceTickRing ring = new PriceTickRing(64);   // 생산량보다 훨씬 작게 – 계속 감아 돈다
+
+        CountDownLatch start = new CountDownLatch(1);
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                for (int seq = 0; seq < perProducer; seq++) {
+                    // symbolId = 생산자, price = 생산자 내 순번
+                    while (!ring.offer(producer, PriceTickRing.QUOTE, seq, 0, 0L, 0L)) Thread.yield();
+                }
+            });
+            t.start();
+            threads.add(t);
+        }
+
+        int[] next = new int[producers];
+        int[] outOfOrder = new int[1];
+        PriceTickRing.SlotHandler check = (symbolId, kind, price, aux, volume, nanos) -> {
+            if (price != next[symbolId]) outOfOrder[0]++;
+            next[symbolId] = price + 1;
+        };
+
+        start.countDown();
+        long total = (long) producers * perProducer;
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(30);
+        for (long received = 0; received < total; ) {
+            int n = ring.drain(check, ring.capacity());
+            if (n == 0) Thread.yield();   // 코어가 하나뿐인 환경에서도 생산자가 돌 수 있게
+            received += n;
+            assertThat(System.nanoTime()).as("소비 시간 초과").isLessThan(deadline);
+        }
+        for (Thread t : threads) t.join();
+
+        assertThat(outOfOrder[0]).isZero();
+        for (int p = 0; p < producers; p++) assertThat(next[p]).isEqualTo(perProducer);
+        assertThat(ring.depth()).isZero();
+    }
+
+    @Test
+    void 잠든_소비자는_생산자가_깨운다() throws Exception {
+        PriceTickRing ring = new PriceTickRing(8);
+        CountDownLatch woke = new CountDownLatch(1);
+
+        Thread consumer = new Thread(() -> {
+            ring.park(TimeUnit.SECONDS.toNanos(30), () -> false);
+            woke.countDown();
+        });
+        consumer.start();
+
+        // 소비자가 잠들 때까지 기다렸다가 넣는다
+        while (consumer.getState() != Thread.State.TIMED_WAITING) Thread.yield();
+        ring.offer(1, PriceTickRing.QUOTE, 100, 0, 0L, 0L);
+
+        assertThat(woke.await(5, TimeUnit.SECONDS)).isTrue();
+        consumer.join();
+    }
+
+    @Test
+    void 쌓인_게_있으면_잠들지_않는다() {
+        PriceTickRing ring = new PriceTickRing(8);
+        ring.offer(1, PriceTickRing.QUOTE, 100, 0, 0L, 0L);
+
+        long start = System.nanoTime();
+        ring.park(TimeUnit.SECONDS.toNanos(30), () -> false);
+        ring.drain((symbolId, kind, price, aux, volume, nanos) -> {
+        }, 8);
+        ring.park(TimeUnit.SECONDS.toNanos(30), () -> true);   // 보조 큐에 일이 있는 경우
+
+        assertThat(System.nanoTime() - start).isLessThan(TimeUnit.SECONDS.toNanos(5));
+    }
+}
@@ -0,0 +1,87 @@
+package com.project.stock.investory.stockAlertSetting.processor;
+
+import com.project.stock.investory.stockAlertSetting.model.AlertCondition;
+import com.project.stock.investory.stockAlertSetting.model.ConditionType;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class ThresholdBookTest {
+
+    @Test
+    void 같은_목표가는_한_번에_모두_꺼내고_커서는_다음_목표가에_멈춘다() {
+        ThresholdBook book = ThresholdBook.ascending();
+        book.addAll(List.of(above(1, 100), above(2, 200), above(3, 100), above(4, 100)));
+
+        assertThat(book.takeReached(99)).isEmpty();
+        assertThat(ids(book.takeReached(100))).containsExactly(1L, 3L, 4L);   // 들어온 순서대로
+        assertThat(book.pendingCount()).isEqualTo(1);
+
+        // 같은 가격이 다시 와도 이미 꺼낸 조건은 다시 나오지 않는다
+        assertThat(book.takeReached(100)).isEmpty();
+        assertThat(book.takeReached(199)).isEmpty();
+        assertThat(ids(book.takeReached(200))).containsExactly(2L);
+        assertThat(book.isEmpty()).isTrue();
+    }
+
+    @Test
+    void 구간_고가가_여러_목표가를_넘으면_한_번에_꺼낸다() {
+        ThresholdBook book = ThresholdBook.ascending();
+        book.addAll(List.of(above(1, 100), above(2, 150), above(3, 150), above(4, 151)));
+
+        assertThat(ids(book.takeReached(150))).containsExactly(1L, 2L, 3L);
+        assertThat(ids(book.takeReached(Integer.MAX_VALUE))).containsExactly(4L);
+    }
+
+    @Test
+    void 이하_조건은_목표가_이하에서_높은_목표가부터_꺼낸다() {
+        ThresholdBook book = ThresholdBook.descending();
+        book.addAll(List.of(below(1, 100), below(2, 90), below(3, 100)));
+
+        assertThat(book.takeReached(101)).isEmpty();
+        assertThat(ids(book.takeReached(100))).containsExactly(1L, 3L);
+        assertThat(book.takeReached(91)).isEmpty();
+        assertThat(ids(book.takeReached(90))).containsExactly(2L);
+    }
+
+    @Test
+    void 커서가_지난_뒤_같은_목표가를_추가하면_새_조건만_다시_걸린다() {
+        ThresholdBook book = ThresholdBook.ascending();
+        book.addAll(List.of(above(1, 100), above(2, 100), above(3, 200)));
+        book.takeReached(100);
+
+        book.addAll(List.of(above(4, 100), above(5, 200)));
+        assertThat(book.pendingCount()).isEqualTo(3);
+
+        assertThat(ids(book.takeReached(100))).containsExactly(4L);
+        assertThat(ids(book.takeReached(200))).containsExactly(3L, 5L);   // 같은 목표가면 기존 것이 앞
+    }
+
+    @Test
+    void 꺼낸_조건은_지울_수_없고_남은_조건은_커서_위치에서_지운다() {
+        ThresholdBook book = ThresholdBook.ascending();
+        book.addAll(List.of(above(1, 100), above(2, 200), above(3, 200)));
+        book.takeReached(100);
+
+        assertThat(book.remove(1L)).isFalse();
+        assertThat(book.remove(2L)).isTrue();
+        assertThat(book.pendingCount()).isEqualTo(1);
+        assertThat(ids(book.takeReached(200))).containsExactly(3L);
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private static AlertCondition above(long settingId, int target) {
+        return new AlertCondition(settingId, 1L, "005930", target, ConditionType.ABOVE);
+    }
+
+    private static AlertCondition below(long settingId, int target) {
+        return new AlertCondition(settingId, 1L, "005930", target, ConditionType.BELOW);
+    }
+
+    private static List<Long> ids(List<AlertCondition> conditions) {
+        return conditions.stream().map(AlertCondition::getSettingId).toList();
+    }
+}
@@ -0,0 +1,61 @@
+package com.project.stock.investory.stockInfo.service;
+
+import com.project.stock.investory.stockInfo.util.SseFrame;
+import org.junit.jupiter.api.Test;
+import org.springframework.web.servlet.mvc.method.annotation.SseEmitter;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class SseClientTest {
+
+    private final LongAdder conflated = new LongAdder();
+
+    @Test
+    void 가득_차면_종목마다_최신_프레임만_남기고_제어_이벤트는_지킨다() {
+        SseClient client = client(4);
+        SseFrame watchAdded = frame("watchAdded");
+        SseFrame a1 = frame("a1");
+        SseFrame b1 = frame("b1");
+        SseFrame a2 = frame("a2");
+        SseFrame a3 = frame("a3");
+
+        assertThat(client.offer(watchAdded, null, 1)).isEqualTo(SseClient.Offer.SCHEDULE);
+        client.offer(a1, "005930", 2);
+        client.offer(b1, "000660", 3);
+        client.offer(a2, "005930", 4);
+        assertThat(client.offer(a3, "005930", 5)).isEqualTo(SseClient.Offer.QUEUED);
+
+        assertThat(drain(client)).containsExactly(watchAdded, b1, a3);
+        assertThat(conflated.sum()).isEqualTo(2);
+    }
+
+    @Test
+    void 합쳐도_자리가_나지_않으면_연결을_끊는다() {
+        SseClient client = client(2);
+        client.offer(frame("connected"), null, 1);
+        client.offer(frame("watchlist"), null, 2);
+
+        assertThat(client.offer(frame("watchAdded"), null, 3)).isEqualTo(SseClient.Offer.EVICT);
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private SseClient client(int capacity) {
+        return new SseClient("watchlist:test", new SseEmitter(), StreamSpec.RAW, capacity, 60_000, conflated);
+    }
+
+    private static SseFrame frame(String event) {
+        return SseFrame.of(event, "{}".getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static List<SseFrame> drain(SseClient client) {
+        List<SseFrame> frames = new ArrayList<>();
+        for (SseClient.Pending p = client.next(); p != null; p = client.next()) frames.add(p.frame());
+        return frames;
+    }
+}
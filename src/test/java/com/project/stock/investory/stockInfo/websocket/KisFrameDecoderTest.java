@@ -0,0 +1,164 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+import com.project.stock.investory.stockInfo.dto.RealTimeTradeDTO;
+import com.project.stock.investory.stockInfo.repository.StockRepository;
+import com.project.stock.investory.stockInfo.service.StockSymbolTable;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.assertj.core.api.Assertions.assertThat;
+import static org.mockito.Mockito.mock;
+
+class KisFrameDecoderTest {
+
+    private static final int TRADE_FIELDS = 20;   // 실제 46개 – 오프셋만 맞으면 된다
+    private static final int QUOTE_FIELDS = 16;
+
+    private StockSymbolTable symbols;
+    private int samsung;
+
+    @BeforeEach
+    void setUp() {
+        symbols = new StockSymbolTable(mock(StockRepository.class));
+        samsung = symbols.register("005930");
+        symbols.register("000660");
+    }
+
+    @Test
+    void 여러_건_체결_프레임을_모두_디코딩한다() {
+        String raw = frame("H0STCNT0",
+                trade("005930", "093015", "71000", "0.71", "500", "10000"),
+                trade("005930", "093016", "71100", "-0.7", "20", "10020"),
+                trade("000660", "093016", "185000", "3", "7", "300"));
+
+        RealTimeTickBatch batch = new RealTimeTickBatch();
+        assertThat(KisFrameDecoder.decodeTrades(raw, symbols, batch)).isTrue();
+
+        assertThat(batch.decodedCount()).isEqualTo(3);
+        assertThat(batch.skippedCount()).isZero();
+
+        RealTimeTick first = batch.decoded(0);
+        assertThat(first.getSymbolId()).isEqualTo(samsung);
+        assertThat(first.getStockCode()).isEqualTo("005930");
+        assertThat(first.getTradeTime()).isEqualTo(93015);
+        assertThat(first.getPrice()).isEqualTo(71000);
+        assertThat(first.getChangeRate()).isEqualTo(71);
+        assertThat(first.getVolume()).isEqualTo(500);
+        assertThat(first.getAccumulateVolume()).isEqualTo(10000);
+
+        assertThat(batch.decoded(1).getStockCode()).isSameAs(first.getStockCode());   // 심볼 테이블의 공유 String
+        assertThat(batch.decoded(1).getChangeRate()).isEqualTo(-70);
+        assertThat(batch.decoded(1).getChangeRateText()).isEqualTo("-0.7");   // 원문 그대로
+        assertThat(batch.decoded(2).getStockCode()).isEqualTo("000660");
+        assertThat(batch.decoded(2).getChangeRate()).isEqualTo(300);
+    }
+
+    @Test
+    void 숫자가_깨진_레코드만_건너뛰고_나머지는_살린다() {
+        String raw = frame("H0STCNT0",
+                trade("005930", "093015", "71000", "0.71", "500", "10000"),
+                trade("005930", "093016", "71A00", "0.72", "20", "10020"),
+                trade("005930", "093017", "71200", "0.73", "", "10030"),
+                trade("005930", "093018", "71300", "0.74", "30", "10060"));
+
+        RealTimeTickBatch batch = new RealTimeTickBatch();
+        assertThat(KisFrameDecoder.decodeTrades(raw, symbols, batch)).isTrue();
+
+        assertThat(batch.decodedCount()).isEqualTo(2);
+        assertThat(batch.skippedCount()).isEqualTo(2);
+        assertThat(batch.decoded(0).getPrice()).isEqualTo(71000);
+        assertThat(batch.decoded(1).getPrice()).isEqualTo(71300);
+        assertThat(batch.decoded(1).getAccumulateVolume()).isEqualTo(10060);
+    }
+
+    @Test
+    void 건수와_필드_수가_맞지_않으면_프레임을_버린다() {
+        String raw = "0|H0STCNT0|002|" + trade("005930", "093015", "71000", "0.71", "500", "10000");
+
+        RealTimeTickBatch batch = new RealTimeTickBatch();
+        assertThat(KisFrameDecoder.decodeTrades(raw, symbols, batch)).isFalse();
+        assertThat(KisFrameDecoder.decodeTrades("0|H0STCNT0|001", symbols, batch)).isFalse();
+        assertThat(KisFrameDecoder.decodeTrades("0|H0STCNT0|x|005930", symbols, batch)).isFalse();
+    }
+
+    @Test
+    void 미등록_종목코드는_UNKNOWN_으로_디코딩한다() {
+        String raw = frame("H0STCNT0", trade("123456", "093015", "1000", "0", "1", "1"));
+
+        RealTimeTickBatch batch = new RealTimeTickBatch();
+        assertThat(KisFrameDecoder.decodeTrades(raw, symbols, batch)).isTrue();
+        assertThat(batch.decoded(0).getSymbolId()).isEqualTo(StockSymbolTable.UNKNOWN);
+        assertThat(batch.decoded(0).getStockCode()).isEqualTo("123456");
+    }
+
+    @Test
+    void 호가_프레임은_깨진_레코드를_빼고_순서대로_넘긴다() {
+        String raw = frame("H0STASP0",
+                quote("005930", "093015", "71100", "71000"),
+                quote("005930", "093016", "7110O", "71000"),
+                quote("000660", "093016", "185500", "185000"));
+
+        List<String> received = new ArrayList<>();
+        boolean ok = KisFrameDecoder.decodeQuotes(raw, symbols, new RealTimeQuote(),
+                q -> received.add(q.getStockCode() + ":" + q.getAskPrice1() + "/" + q.getBidPrice1()));
+
+        assertThat(ok).isTrue();
+        assertThat(received).containsExactly("005930:71100/71000", "000660:185500/185000");
+    }
+
+    @Test
+    void 전송용_DTO_는_원문_등락률_형식을_유지한다() {
+        String raw = frame("H0STCNT0", trade("005930", "093015", "71000", "-0.7", "500", "10000"));
+
+        RealTimeTickBatch batch = new RealTimeTickBatch();
+        KisFrameDecoder.decodeTrades(raw, symbols, batch);
+        RealTimeTradeDTO dto = RealTimeTradeDTO.from(batch.decoded(0));
+
+        assertThat(dto.getChangeRate()).isEqualTo("-0.7%");
+        assertThat(dto.getTradeTime()).isEqualTo("093015");
+        assertThat(dto.getTradePrice()).isEqualTo("71000");
+    }
+
+    @Test
+    void 등락률은_소수_둘째_자리까지_100배_정수로_읽는다() {
+        assertThat(KisFrameDecoder.parseScaled2("1.23", 0, 4)).isEqualTo(123);
+        assertThat(KisFrameDecoder.parseScaled2("-0.7", 0, 4)).isEqualTo(-70);
+        assertThat(KisFrameDecoder.parseScaled2("+3", 0, 2)).isEqualTo(300);
+        assertThat(KisFrameDecoder.parseScaled2("29.999", 0, 6)).isEqualTo(2999);
+    }
+
+    /* ------------------------------------------------------------------ */
+
+    private static String frame(String trId, String... records) {
+        return "0|" + trId + "|" + String.format("%03d", records.length) + "|" + String.join("^", records);
+    }
+
+    private static String trade(String code, String time, String price, String rate, String volume, String accVolume) {
+        String[] f = filler(TRADE_FIELDS);
+        f[KisFrameDecoder.F_STOCK_CODE] = code;
+        f[KisFrameDecoder.F_TRADE_TIME] = time;
+        f[KisFrameDecoder.F_PRICE] = price;
+        f[KisFrameDecoder.F_CHANGE_RATE] = rate;
+        f[KisFrameDecoder.F_VOLUME] = volume;
+        f[KisFrameDecoder.F_ACC_VOLUME] = accVolume;
+        return String.join("^", f);
+    }
+
+    private static String quote(String code, String time, String ask1, String bid1) {
+        String[] f = filler(QUOTE_FIELDS);
+        f[KisFrameDecoder.Q_STOCK_CODE] = code;
+        f[KisFrameDecoder.Q_TIME] = time;
+        f[KisFrameDecoder.Q_ASK_PRICE_1] = ask1;
+        f[KisFrameDecoder.Q_BID_PRICE_1] = bid1;
+        return String.join("^", f);
+    }
+
+    private static String[] filler(int n) {
+        String[] f = new String[n];
+        for (int i = 0; i < n; i++) f[i] = "0";
+        return f;
+    }
+}
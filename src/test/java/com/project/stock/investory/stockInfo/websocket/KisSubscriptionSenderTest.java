@@ -0,0 +1,81 @@
+package com.project.stock.investory.stockInfo.websocket;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.assertj.core.api.Assertions.assertThat;
+
+class KisSubscriptionSenderTest {
+
+    private static final KisSubscription SAMSUNG = new KisSubscription("H0STCNT0", "005930");
+    private static final KisSubscription HYNIX = new KisSubscription("H0STCNT0", "000660");
+
+    private ScheduledExecutorService executor;
+
+    @BeforeEach
+    void setUp() {
+        executor = Executors.newSingleThreadScheduledExecutor();
+    }
+
+    @AfterEach
+    void tearDown() {
+        executor.shutdownNow();
+    }
+
+    @Test
+    void 전송이_막혀도_요청_적재와_응답_처리는_기다리지_않는다() throws Exception {
+        CountDownLatch sending = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+        KisSubscriptionSender sender = new KisSubscriptionSender(executor, (trType, key) -> {
+            sending.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return true;
+        }, 1_000, 10);
+
+        sender.subscribe(SAMSUNG);
+        assertThat(sending.await(5, TimeUnit.SECONDS)).isTrue();
+
+        // 전송 중에도 락을 잡지 않으므로 바로 돌아온다
+        sender.subscribe(HYNIX);
+        sender.onResponse(SAMSUNG, true, "OPSP0000", "SUBSCRIBE SUCCESS");
+        assertThat(sender.getStatuses()).containsEntry("H0STCNT0:005930", "SUBSCRIBED")
+                .containsEntry("H0STCNT0:000660", "QUEUED");
+
+        release.countDown();
+    }
+
+    @Test
+    void 보내지_못한_요청은_큐에_되돌린다() throws Exception {
+        AtomicBoolean open = new AtomicBoolean(false);
+        List<KisSubscription> sent = new CopyOnWriteArrayList<>();
+        KisSubscriptionSender sender = new KisSubscriptionSender(executor, (trType, key) -> {
+            if (!open.get()) return false;
+            sent.add(key);
+            return true;
+        }, 1_000, 10);
+
+        sender.subscribe(SAMSUNG);
+        executor.submit(() -> { }).get();   // 첫 drain 이 끝날 때까지
+        assertThat(sender.getStatuses()).containsEntry("H0STCNT0:005930", "QUEUED");
+
+        open.set(true);
+        CountDownLatch idle = new CountDownLatch(1);
+        sender.whenIdle(idle::countDown);
+        assertThat(idle.await(5, TimeUnit.SECONDS)).isTrue();
+        assertThat(sent).containsExactly(SAMSUNG);
+        assertThat(sender.getStatuses()).containsEntry("H0STCNT0:005930", "SUBSCRIBING");
+    }
+}